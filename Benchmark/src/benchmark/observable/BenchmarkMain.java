@@ -0,0 +1,33 @@
+/**
+ *
+ */
+package benchmark.observable;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>
+ * Runs the benchmarks with the {@link GCProfiler} attached, so that every
+ * result also reports the allocation rate ({@code gc.alloc.rate.norm}).
+ * Accepts the usual JMH command line, e.g.
+ * {@code ListMutationBenchmark -p size=10000 -p listenerCount=10}.
+ */
+public class BenchmarkMain {
+	/**
+	 * @param args JMH command line options
+	 * @throws CommandLineOptionException if {@code args} cannot be parsed
+	 * @throws RunnerException            if a benchmark fails
+	 */
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		var options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
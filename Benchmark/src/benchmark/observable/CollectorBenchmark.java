@@ -0,0 +1,70 @@
+/**
+ *
+ */
+package benchmark.observable;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import observable.ObservableCollections;
+import observable.ObservableList;
+
+/**
+ * <p>
+ * Collects {@code size} elements with
+ * {@link ObservableCollections#toObservableList}, and sums an
+ * {@link ObservableList} of {@code size} elements, each sequentially and in
+ * parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Thread)
+public class CollectorBenchmark {
+	@Param({ "10000", "1000000" })
+	int size;
+
+	private ObservableList<Integer> list;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		list = IntStream.range(0, size).boxed().collect(ObservableCollections.toObservableList(ArrayList::new));
+	}
+
+	@Benchmark
+	public ObservableList<Integer> collectSequential() {
+		return IntStream.range(0, size).boxed().collect(ObservableCollections.toObservableList(ArrayList::new));
+	}
+
+	@Benchmark
+	public ObservableList<Integer> collectParallel() {
+		return IntStream.range(0, size).boxed().parallel()
+				.collect(ObservableCollections.toObservableList(ArrayList::new));
+	}
+
+	@Benchmark
+	public long sumSequential() {
+		return list.stream().mapToLong(Integer::longValue).sum();
+	}
+
+	@Benchmark
+	public long sumParallel() {
+		return list.parallelStream().mapToLong(Integer::longValue).sum();
+	}
+}
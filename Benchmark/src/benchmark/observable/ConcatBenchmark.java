@@ -0,0 +1,87 @@
+/**
+ *
+ */
+package benchmark.observable;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import observable.ObservableCollections;
+import observable.ObservableList;
+
+/**
+ * <p>
+ * A feed of {@code shardCount} shards of 10,000 elements each, concatenated
+ * with {@link ObservableList#concat(ObservableList...)}, while elements are
+ * appended to and removed from one shard after another.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Thread)
+public class ConcatBenchmark {
+	private static final int SHARD_SIZE = 10_000;
+
+	@Param({ "2", "32", "1024" })
+	int shardCount;
+
+	private ObservableList<Integer>[] shards;
+	private ObservableList<Integer> feed;
+	private int cursor;
+
+	// keeps the listeners strongly reachable for the whole trial.
+	Listeners listeners;
+
+	@SuppressWarnings("unchecked")
+	@Setup(Level.Trial)
+	public void setup() {
+		shards = (ObservableList<Integer>[]) new ObservableList<?>[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			var values = new ArrayList<Integer>(SHARD_SIZE);
+			for (int j = 0; j < SHARD_SIZE; j++) {
+				values.add(j);
+			}
+			shards[i] = ObservableCollections.observableList(values);
+		}
+		feed = ObservableList.concat(shards);
+		listeners = Listeners.attach(feed, 1, Listeners.Kind.STRONG);
+	}
+
+	/**
+	 * appends to a shard and removes the element again, notifying the feed's
+	 * listener of both.
+	 */
+	@Benchmark
+	public void shardChange() {
+		var shard = shards[nextShard()];
+		shard.add(0);
+		shard.remove(shard.size() - 1);
+	}
+
+	@Benchmark
+	public Integer feedGet() {
+		return feed.get(nextShard() * SHARD_SIZE + SHARD_SIZE / 2);
+	}
+
+	private int nextShard() {
+		if (++cursor >= shardCount) {
+			cursor = 0;
+		}
+		return cursor;
+	}
+}
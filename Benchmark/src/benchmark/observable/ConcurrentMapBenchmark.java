@@ -0,0 +1,111 @@
+/**
+ *
+ */
+package benchmark.observable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import observable.ObservableCollections;
+import observable.ObservableConcurrentMap;
+
+/**
+ * <p>
+ * Throughput of {@code ObservableConcurrentMapImpl} under contention. Every
+ * {@code observable*} benchmark has a {@code bare*} counterpart that performs
+ * the same operations on the backing {@link ConcurrentHashMap}. Use
+ * {@code -t} to change the number of threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@Threads(4)
+@State(Scope.Benchmark)
+public class ConcurrentMapBenchmark {
+	@Param({ "100", "10000", "1000000" })
+	int size;
+
+	@Param({ "0", "1", "10" })
+	int listenerCount;
+
+	@Param({ "STRONG", "WEAK" })
+	Listeners.Kind listenerKind;
+
+	private ConcurrentHashMap<Integer, Integer> bare;
+	private ObservableConcurrentMap<Integer, Integer> map;
+	private Integer[] keys;
+
+	// keeps the listeners strongly reachable for the whole trial.
+	Listeners listeners;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		keys = new Integer[size];
+		bare = new ConcurrentHashMap<>();
+		var backing = new ConcurrentHashMap<Integer, Integer>();
+		for (int i = 0; i < size; i++) {
+			keys[i] = i;
+			bare.put(keys[i], i);
+			backing.put(keys[i], i);
+		}
+		map = ObservableCollections.observableConcurrentMap(backing);
+		listeners = Listeners.attach(map, listenerCount, listenerKind);
+	}
+
+	private Integer nextKey() {
+		return keys[ThreadLocalRandom.current().nextInt(size)];
+	}
+
+	@Benchmark
+	public Integer bareMerge() {
+		return bare.merge(nextKey(), 1, Integer::sum);
+	}
+
+	@Benchmark
+	public Integer barePut() {
+		var key = nextKey();
+		return bare.put(key, key);
+	}
+
+	@Benchmark
+	public Integer bareRemovePutIfAbsent() {
+		var key = nextKey();
+		bare.remove(key);
+		return bare.putIfAbsent(key, key);
+	}
+
+	@Benchmark
+	public Integer observableMerge() {
+		return map.merge(nextKey(), 1, Integer::sum);
+	}
+
+	@Benchmark
+	public Integer observablePut() {
+		var key = nextKey();
+		return map.put(key, key);
+	}
+
+	@Benchmark
+	public Integer observableRemovePutIfAbsent() {
+		var key = nextKey();
+		map.remove(key);
+		return map.putIfAbsent(key, key);
+	}
+}
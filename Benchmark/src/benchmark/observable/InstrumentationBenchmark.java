@@ -0,0 +1,78 @@
+/**
+ *
+ */
+package benchmark.observable;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import observable.ObservableCollections;
+import observable.ObservableList;
+import observable.ObservableMetrics;
+
+/**
+ * <p>
+ * Replaces single elements of a list with {@code listenerCount} listeners,
+ * with {@link ObservableMetrics} {@code instrumented} or not. Run with
+ * {@code -jvmArgsAppend -XX:StartFlightRecording} to include the cost of
+ * recording the events.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Thread)
+public class InstrumentationBenchmark {
+	private static final int SIZE = 10_000;
+
+	@Param({ "1", "10" })
+	int listenerCount;
+
+	@Param({ "false", "true" })
+	boolean instrumented;
+
+	private ObservableList<Integer> list;
+	private int cursor;
+
+	// keeps the listeners strongly reachable for the whole trial.
+	Listeners listeners;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		var values = new ArrayList<Integer>(SIZE);
+		for (int i = 0; i < SIZE; i++) {
+			values.add(i);
+		}
+		list = ObservableCollections.observableList(values);
+		listeners = Listeners.attach(list, listenerCount, Listeners.Kind.STRONG);
+		ObservableMetrics.setEnabled(instrumented);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		ObservableMetrics.setEnabled(false);
+	}
+
+	@Benchmark
+	public Integer set() {
+		if (++cursor == SIZE) {
+			cursor = 0;
+		}
+		return list.set(cursor, cursor);
+	}
+}
@@ -0,0 +1,190 @@
+/**
+ *
+ */
+package benchmark.observable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import observable.ObservableCollections;
+import observable.ObservableList;
+
+/**
+ * <p>
+ * The static algorithms on {@link ObservableList}. Each invocation starts from
+ * the same contents; the contents are restored through the backing lists, so
+ * the restore neither notifies the listeners nor counts towards the score.
+ * {@code bare*} benchmarks run the {@link Collections} equivalent on the
+ * backing {@link ArrayList}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Thread)
+public class ListAlgorithmBenchmark {
+	@Param({ "100", "10000", "1000000", "10000000" })
+	int size;
+
+	@Param({ "0", "1", "10", "1000" })
+	int listenerCount;
+
+	@Param({ "STRONG", "WEAK" })
+	Listeners.Kind listenerKind;
+
+	private List<Integer> shuffled;
+	private List<Integer> sorted;
+	private List<Integer> backing;
+	private List<Integer> sortedBacking;
+	private ObservableList<Integer> list;
+	private ObservableList<Integer> sortedList;
+	private SplittableRandom rng;
+
+	// keeps the listeners strongly reachable for the whole trial.
+	Listeners listeners;
+	Listeners sortedListeners;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		rng = new SplittableRandom(42);
+		shuffled = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			// a quarter of the values are distinct, so dedup has consecutive
+			// duplicates to remove once sorted.
+			shuffled.add(rng.nextInt(size / 4 + 1));
+		}
+		sorted = new ArrayList<>(shuffled);
+		Collections.sort(sorted);
+		backing = new ArrayList<>(shuffled);
+		sortedBacking = new ArrayList<>(sorted);
+		list = ObservableCollections.observableList(backing);
+		sortedList = ObservableCollections.observableList(sortedBacking);
+		listeners = Listeners.attach(list, listenerCount, listenerKind);
+		sortedListeners = Listeners.attach(sortedList, listenerCount, listenerKind);
+	}
+
+	@Setup(Level.Invocation)
+	public void restore() {
+		backing.clear();
+		backing.addAll(shuffled);
+		sortedBacking.clear();
+		sortedBacking.addAll(sorted);
+	}
+
+	@Benchmark
+	public List<Integer> bareSort() {
+		Collections.sort(backing);
+		return backing;
+	}
+
+	@Benchmark
+	public List<Integer> bareParallelSort() {
+		var elements = backing.toArray(new Integer[0]);
+		Arrays.parallelSort(elements);
+		for (int i = 0; i < elements.length; i++) {
+			backing.set(i, elements[i]);
+		}
+		return backing;
+	}
+
+	@Benchmark
+	public List<Integer> bareReverse() {
+		Collections.reverse(backing);
+		return backing;
+	}
+
+	@Benchmark
+	public List<Integer> bareRotate() {
+		Collections.rotate(backing, size / 3);
+		return backing;
+	}
+
+	@Benchmark
+	public List<Integer> bareShuffle() {
+		Collections.shuffle(backing, new Random(rng.nextLong()));
+		return backing;
+	}
+
+	@Benchmark
+	public List<Integer> bareFill() {
+		Collections.fill(backing, 0);
+		return backing;
+	}
+
+	@Benchmark
+	public boolean bareReplaceAll() {
+		return Collections.replaceAll(backing, shuffled.get(0), -1);
+	}
+
+	@Benchmark
+	public List<Integer> observableSort() {
+		ObservableList.sort(list);
+		return list;
+	}
+
+	@Benchmark
+	public List<Integer> observableParallelSort() {
+		ObservableList.parallelSort(list, null);
+		return list;
+	}
+
+	@Benchmark
+	public List<Integer> observableReverse() {
+		ObservableList.reverse(list);
+		return list;
+	}
+
+	@Benchmark
+	public List<Integer> observableRotate() {
+		ObservableList.rotate(list, size / 3);
+		return list;
+	}
+
+	@Benchmark
+	public List<Integer> observableShuffle() {
+		ObservableList.shuffle(list, rng);
+		return list;
+	}
+
+	@Benchmark
+	public List<Integer> observableParallelShuffle() {
+		ObservableList.parallelShuffle(list, rng);
+		return list;
+	}
+
+	@Benchmark
+	public List<Integer> observableDedupBy() {
+		ObservableList.dedupBy(sortedList, (a, b) -> a.intValue() == b.intValue());
+		return sortedList;
+	}
+
+	@Benchmark
+	public List<Integer> observableFill() {
+		ObservableList.fill(list, 0);
+		return list;
+	}
+
+	@Benchmark
+	public boolean observableReplaceAll() {
+		return ObservableList.replaceAll(list, shuffled.get(0), -1);
+	}
+}
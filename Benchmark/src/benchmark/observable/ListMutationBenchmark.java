@@ -0,0 +1,131 @@
+/**
+ *
+ */
+package benchmark.observable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import observable.ObservableCollections;
+import observable.ObservableList;
+
+/**
+ * <p>
+ * Hot paths of {@code ObservableListImpl}. Every {@code observable*} benchmark
+ * has a {@code bare*} counterpart that performs the same operations on the
+ * backing {@link ArrayList}, so the difference is the cost of notification.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Thread)
+public class ListMutationBenchmark {
+	@Param({ "100", "10000", "1000000", "10000000" })
+	int size;
+
+	@Param({ "0", "1", "10", "1000" })
+	int listenerCount;
+
+	@Param({ "STRONG", "WEAK" })
+	Listeners.Kind listenerKind;
+
+	private List<Integer> bare;
+	private List<Integer> bareScratch;
+	private ObservableList<Integer> list;
+	private ObservableList<Integer> scratch;
+	private List<Integer> source;
+	private int cursor;
+
+	// keeps the listeners strongly reachable for the whole trial.
+	Listeners listeners;
+	Listeners scratchListeners;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		source = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			source.add(i);
+		}
+		bare = new ArrayList<>(source);
+		bareScratch = new ArrayList<>(size);
+		list = ObservableCollections.observableList(new ArrayList<>(source));
+		scratch = ObservableCollections.observableList(new ArrayList<>(size));
+		listeners = Listeners.attach(list, listenerCount, listenerKind);
+		scratchListeners = Listeners.attach(scratch, listenerCount, listenerKind);
+	}
+
+	private int nextIndex() {
+		if (++cursor >= size) {
+			cursor = 0;
+		}
+		return cursor;
+	}
+
+	@Benchmark
+	public Integer bareAddRemoveFirst() {
+		bare.add(0, size);
+		return bare.remove(0);
+	}
+
+	@Benchmark
+	public Integer bareAddRemoveLast() {
+		bare.add(size);
+		return bare.remove(size);
+	}
+
+	@Benchmark
+	public int bareAddAllClear() {
+		bareScratch.addAll(source);
+		int added = bareScratch.size();
+		bareScratch.clear();
+		return added;
+	}
+
+	@Benchmark
+	public Integer bareSet() {
+		int index = nextIndex();
+		return bare.set(index, index);
+	}
+
+	@Benchmark
+	public Integer observableAddRemoveFirst() {
+		list.add(0, size);
+		return list.remove(0);
+	}
+
+	@Benchmark
+	public Integer observableAddRemoveLast() {
+		list.add(size);
+		return list.remove(size);
+	}
+
+	@Benchmark
+	public int observableAddAllClear() {
+		scratch.addAll(source);
+		int added = scratch.size();
+		scratch.clear();
+		return added;
+	}
+
+	@Benchmark
+	public Integer observableSet() {
+		int index = nextIndex();
+		return list.set(index, index);
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ *
+ */
+package benchmark.observable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import observable.ObservableCollections;
+import observable.ObservableList;
+import observable.ObservableListListener;
+import observable.WeakListener;
+
+/**
+ * <p>
+ * Short-lived listeners coming and going on a list that already has
+ * {@code listenerCount} of them, as views do that are created and dropped
+ * while the list keeps changing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Thread)
+public class ListenerChurnBenchmark {
+	private static final class Listener implements ObservableListListener<Integer> {
+		long events;
+
+		@Override
+		public void listElementPropertyChanged(ObservableList<? super Integer> list, int index) {
+			events++;
+		}
+
+		@Override
+		public void listElementReplaced(ObservableList<? super Integer> list, int index, Object oldElement) {
+			events++;
+		}
+
+		@Override
+		public void listElementsAdded(ObservableList<? super Integer> list, int index, int length) {
+			events++;
+		}
+
+		@Override
+		public void listElementsRemoved(ObservableList<? super Integer> list, int index,
+				List<? super Integer> oldElements) {
+			events++;
+		}
+	}
+
+	@Param({ "10", "1000", "10000" })
+	int listenerCount;
+
+	private ObservableList<Integer> list;
+
+	// keeps the listeners strongly reachable for the whole trial.
+	Listeners listeners;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		list = ObservableCollections.observableList(new ArrayList<>(List.of(0)));
+		listeners = Listeners.attach(list, listenerCount, Listeners.Kind.STRONG);
+	}
+
+	/**
+	 * registers a listener, notifies once and unregisters it again.
+	 */
+	@Benchmark
+	public long attachNotifyDetach() {
+		var listener = new Listener();
+		list.addObservableListListener(listener);
+		list.set(0, 0);
+		list.removeObservableListListener(listener);
+		return listener.events;
+	}
+
+	/**
+	 * registers a weak listener and lets it be collected instead of
+	 * unregistering it.
+	 */
+	@Benchmark
+	public void attachWeakAndDrop() {
+		list.addObservableListListener(new WeakListener.List<>(new Listener()));
+		list.set(0, 0);
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ *
+ */
+package benchmark.observable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import observable.ObservableDoubleList;
+import observable.ObservableDoubleListListener;
+import observable.ObservableList;
+import observable.ObservableListListener;
+import observable.ObservableMap;
+import observable.ObservableMapListener;
+import observable.ObservableSet;
+import observable.ObservableSetListener;
+import observable.WeakListener;
+
+/**
+ * <p>
+ * Attaches a fixed number of cheap counting listeners to an observable
+ * collection, so that the benchmarks measure the cost of the notification
+ * itself and not the cost of the listener.
+ */
+public final class Listeners {
+	/**
+	 * <p>
+	 * How listeners are registered on the observed collection.
+	 */
+	public enum Kind {
+		/**
+		 * the listener is registered as is.
+		 */
+		STRONG,
+		/**
+		 * the listener is wrapped with {@link WeakListener} before registration.
+		 */
+		WEAK
+	}
+
+	private static final class CountingListListener<E> implements ObservableListListener<E> {
+		long events;
+
+		@Override
+		public void listElementPropertyChanged(ObservableList<? super E> list, int index) {
+			events++;
+		}
+
+		@Override
+		public void listElementReplaced(ObservableList<? super E> list, int index, Object oldElement) {
+			events++;
+		}
+
+		@Override
+		public void listElementsAdded(ObservableList<? super E> list, int index, int length) {
+			events += length;
+		}
+
+		@Override
+		public void listElementsRemoved(ObservableList<? super E> list, int index, List<? super E> oldElements) {
+			events += oldElements.size();
+		}
+	}
+
+	private static final class CountingDoubleListListener implements ObservableDoubleListListener {
+		long events;
+
+		@Override
+		public void listElementReplaced(ObservableDoubleList list, int index, double oldValue) {
+			events++;
+		}
+
+		@Override
+		public void listElementsAdded(ObservableDoubleList list, int index, int length) {
+			events += length;
+		}
+
+		@Override
+		public void listElementsRemoved(ObservableDoubleList list, int index, double[] oldValues) {
+			events += oldValues.length;
+		}
+	}
+
+	private static final class CountingMapListener<K, V> implements ObservableMapListener<K, V> {
+		long events;
+
+		@Override
+		public void mapKeyAdded(ObservableMap<? extends K, ? extends V> map, Object key) {
+			events++;
+		}
+
+		@Override
+		public void mapKeyRemoved(ObservableMap<? extends K, ? extends V> map, Object key, Object value) {
+			events++;
+		}
+
+		@Override
+		public void mapKeyValueChanged(ObservableMap<? extends K, ? extends V> map, Object key, Object lastValue) {
+			events++;
+		}
+	}
+
+	private static final class CountingSetListener<E> implements ObservableSetListener<E> {
+		long events;
+
+		@Override
+		public void setElementAdded(ObservableSet<? extends E> set, Object element) {
+			events++;
+		}
+
+		@Override
+		public void setElementRemoved(ObservableSet<? extends E> set, Object element) {
+			events++;
+		}
+	}
+
+	static <E> Listeners attach(ObservableList<E> list, int count, Kind kind) {
+		var listeners = new Listeners();
+		for (int i = 0; i < count; i++) {
+			var listener = new CountingListListener<E>();
+			// the strong reference keeps weak listeners alive for the whole trial.
+			listeners.strong.add(listener);
+			list.addObservableListListener(kind == Kind.WEAK ? new WeakListener.List<>(listener) : listener);
+		}
+		return listeners;
+	}
+
+	static Listeners attach(ObservableDoubleList list, int count, Kind kind) {
+		var listeners = new Listeners();
+		for (int i = 0; i < count; i++) {
+			var listener = new CountingDoubleListListener();
+			listeners.strong.add(listener);
+			list.addObservableDoubleListListener(kind == Kind.WEAK ? new WeakListener.DoubleList(listener) : listener);
+		}
+		return listeners;
+	}
+
+	static <K, V> Listeners attach(ObservableMap<K, V> map, int count, Kind kind) {
+		var listeners = new Listeners();
+		for (int i = 0; i < count; i++) {
+			var listener = new CountingMapListener<K, V>();
+			listeners.strong.add(listener);
+			map.addObservableMapListener(kind == Kind.WEAK ? new WeakListener.Map<>(listener) : listener);
+		}
+		return listeners;
+	}
+
+	static <E> Listeners attach(ObservableSet<E> set, int count, Kind kind) {
+		var listeners = new Listeners();
+		for (int i = 0; i < count; i++) {
+			var listener = new CountingSetListener<E>();
+			listeners.strong.add(listener);
+			set.addObservableSetListener(kind == Kind.WEAK ? new WeakListener.Set<>(listener) : listener);
+		}
+		return listeners;
+	}
+
+	private final List<Object> strong = new ArrayList<>();
+
+	private Listeners() {
+	}
+}
+
@@ -0,0 +1,124 @@
+/**
+ *
+ */
+package benchmark.observable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import observable.ObservableCollections;
+import observable.ObservableMap;
+
+/**
+ * <p>
+ * Hot paths of {@code ObservableCollections.ObservableMapImpl}. Every
+ * {@code observable*} benchmark has a {@code bare*} counterpart that performs
+ * the same operations on the backing {@link HashMap}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Thread)
+public class MapMutationBenchmark {
+	@Param({ "100", "10000", "1000000", "10000000" })
+	int size;
+
+	@Param({ "0", "1", "10", "1000" })
+	int listenerCount;
+
+	@Param({ "STRONG", "WEAK" })
+	Listeners.Kind listenerKind;
+
+	private Map<Integer, Integer> bare;
+	private Map<Integer, Integer> bareScratch;
+	private ObservableMap<Integer, Integer> map;
+	private ObservableMap<Integer, Integer> scratch;
+	private Map<Integer, Integer> source;
+	private Integer[] keys;
+	private Integer absentKey;
+	private int cursor;
+
+	// keeps the listeners strongly reachable for the whole trial.
+	Listeners listeners;
+	Listeners scratchListeners;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		keys = new Integer[size];
+		source = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			keys[i] = i;
+			source.put(keys[i], i);
+		}
+		absentKey = size;
+		bare = new HashMap<>(source);
+		bareScratch = new HashMap<>();
+		map = ObservableCollections.observableMap(new HashMap<>(source));
+		scratch = ObservableCollections.observableMap(new HashMap<>());
+		listeners = Listeners.attach(map, listenerCount, listenerKind);
+		scratchListeners = Listeners.attach(scratch, listenerCount, listenerKind);
+	}
+
+	private Integer nextKey() {
+		if (++cursor >= size) {
+			cursor = 0;
+		}
+		return keys[cursor];
+	}
+
+	@Benchmark
+	public Integer barePutExisting() {
+		var key = nextKey();
+		return bare.put(key, key);
+	}
+
+	@Benchmark
+	public Integer barePutRemove() {
+		bare.put(absentKey, absentKey);
+		return bare.remove(absentKey);
+	}
+
+	@Benchmark
+	public int barePutAllClear() {
+		bareScratch.putAll(source);
+		int added = bareScratch.size();
+		bareScratch.clear();
+		return added;
+	}
+
+	@Benchmark
+	public Integer observablePutExisting() {
+		var key = nextKey();
+		return map.put(key, key);
+	}
+
+	@Benchmark
+	public Integer observablePutRemove() {
+		map.put(absentKey, absentKey);
+		return map.remove(absentKey);
+	}
+
+	@Benchmark
+	public int observablePutAllClear() {
+		scratch.putAll(source);
+		int added = scratch.size();
+		scratch.clear();
+		return added;
+	}
+}
@@ -0,0 +1,136 @@
+/**
+ *
+ */
+package benchmark.observable;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import observable.ObservableCollections;
+import observable.ObservableDoubleList;
+import observable.ObservableList;
+
+/**
+ * <p>
+ * {@code ObservableDoubleList} against an {@code ObservableList<Double>} over
+ * an {@link ArrayList}. Every {@code primitive*} benchmark has a
+ * {@code boxed*} counterpart that performs the same operations; run with the
+ * GC profiler of {@link BenchmarkMain} to see the allocations that boxing
+ * costs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Thread)
+public class PrimitiveListBenchmark {
+	@Param({ "100", "10000", "1000000" })
+	int size;
+
+	@Param({ "0", "1", "10" })
+	int listenerCount;
+
+	@Param({ "STRONG", "WEAK" })
+	Listeners.Kind listenerKind;
+
+	private ObservableList<Double> boxed;
+	private ObservableList<Double> boxedScratch;
+	private ObservableDoubleList primitive;
+	private ObservableDoubleList primitiveScratch;
+	private int cursor;
+
+	// keeps the listeners strongly reachable for the whole trial.
+	Listeners listeners;
+	Listeners scratchListeners;
+	Listeners primitiveListeners;
+	Listeners primitiveScratchListeners;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		var values = new double[size];
+		var boxedValues = new ArrayList<Double>(size);
+		for (int i = 0; i < size; i++) {
+			values[i] = i;
+			boxedValues.add(values[i]);
+		}
+		boxed = ObservableCollections.observableList(boxedValues);
+		boxedScratch = ObservableCollections.observableList(new ArrayList<>(size));
+		primitive = ObservableCollections.observableDoubleList(values);
+		primitiveScratch = ObservableCollections.observableDoubleList();
+		listeners = Listeners.attach(boxed, listenerCount, listenerKind);
+		scratchListeners = Listeners.attach(boxedScratch, listenerCount, listenerKind);
+		primitiveListeners = Listeners.attach(primitive, listenerCount, listenerKind);
+		primitiveScratchListeners = Listeners.attach(primitiveScratch, listenerCount, listenerKind);
+	}
+
+	private int nextIndex() {
+		if (++cursor >= size) {
+			cursor = 0;
+		}
+		return cursor;
+	}
+
+	@Benchmark
+	public int boxedAppendClear() {
+		for (int i = 0; i < size; i++) {
+			boxedScratch.add(i * 0.5);
+		}
+		int added = boxedScratch.size();
+		boxedScratch.clear();
+		return added;
+	}
+
+	@Benchmark
+	public Double boxedSet() {
+		int index = nextIndex();
+		return boxed.set(index, index * 0.5);
+	}
+
+	@Benchmark
+	public double boxedSum() {
+		double sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum += boxed.get(i);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int primitiveAppendClear() {
+		for (int i = 0; i < size; i++) {
+			primitiveScratch.add(i * 0.5);
+		}
+		int added = primitiveScratch.size();
+		primitiveScratch.clear();
+		return added;
+	}
+
+	@Benchmark
+	public double primitiveSet() {
+		int index = nextIndex();
+		return primitive.set(index, index * 0.5);
+	}
+
+	@Benchmark
+	public double primitiveSum() {
+		double sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum += primitive.get(i);
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ *
+ */
+package benchmark.observable;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import observable.ObservableCollections;
+import observable.ObservableSet;
+
+/**
+ * <p>
+ * Hot paths of {@code ObservableCollections.ObservableSetImpl}. Every
+ * {@code observable*} benchmark has a {@code bare*} counterpart that performs
+ * the same operations on the backing {@link HashSet}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Thread)
+public class SetMutationBenchmark {
+	@Param({ "100", "10000", "1000000", "10000000" })
+	int size;
+
+	@Param({ "0", "1", "10", "1000" })
+	int listenerCount;
+
+	@Param({ "STRONG", "WEAK" })
+	Listeners.Kind listenerKind;
+
+	private Set<Integer> bare;
+	private Set<Integer> bareScratch;
+	private ObservableSet<Integer> set;
+	private ObservableSet<Integer> scratch;
+	private Set<Integer> source;
+	private Integer absentElement;
+
+	// keeps the listeners strongly reachable for the whole trial.
+	Listeners listeners;
+	Listeners scratchListeners;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		source = new HashSet<>();
+		for (int i = 0; i < size; i++) {
+			source.add(i);
+		}
+		absentElement = size;
+		bare = new HashSet<>(source);
+		bareScratch = new HashSet<>();
+		set = ObservableCollections.observableMap(new HashSet<>(source));
+		scratch = ObservableCollections.observableMap(new HashSet<>());
+		listeners = Listeners.attach(set, listenerCount, listenerKind);
+		scratchListeners = Listeners.attach(scratch, listenerCount, listenerKind);
+	}
+
+	@Benchmark
+	public boolean bareAddRemove() {
+		bare.add(absentElement);
+		return bare.remove(absentElement);
+	}
+
+	@Benchmark
+	public boolean bareAddAllRemoveAll() {
+		bareScratch.addAll(source);
+		return bareScratch.removeAll(source);
+	}
+
+	@Benchmark
+	public boolean observableAddRemove() {
+		set.add(absentElement);
+		return set.remove(absentElement);
+	}
+
+	@Benchmark
+	public boolean observableAddAllRemoveAll() {
+		scratch.addAll(source);
+		return scratch.removeAll(source);
+	}
+}
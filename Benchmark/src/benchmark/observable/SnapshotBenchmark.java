@@ -0,0 +1,98 @@
+/**
+ *
+ */
+package benchmark.observable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import observable.ObservableCollections;
+import observable.ObservableList;
+import observable.ObservablePersistentList;
+
+/**
+ * <p>
+ * A stable view of a list that keeps changing: {@code toArray()} of an
+ * {@code ObservableList} over an {@link ArrayList} against
+ * {@code snapshot()} of an {@code ObservablePersistentList}. Every
+ * {@code *SetAndView} benchmark changes one element and takes a view, as a
+ * writer does between two reports; every {@code *Report} benchmark also reads
+ * the whole view.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Thread)
+public class SnapshotBenchmark {
+	@Param({ "100", "10000", "1000000" })
+	int size;
+
+	private ObservableList<Integer> array;
+	private ObservablePersistentList<Integer> persistent;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		var values = new ArrayList<Integer>(size);
+		for (int i = 0; i < size; i++) {
+			values.add(i);
+		}
+		array = ObservableCollections.observableList(new ArrayList<>(values));
+		persistent = ObservableCollections.observablePersistentList(values);
+	}
+
+	@Benchmark
+	public long arrayReport() {
+		long sum = 0;
+		for (var e : arraySetAndView()) {
+			sum += (Integer) e;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public Object[] arraySetAndView() {
+		int index = nextIndex();
+		array.set(index, index);
+		return array.toArray();
+	}
+
+	private int nextIndex() {
+		if (++cursor >= size) {
+			cursor = 0;
+		}
+		return cursor;
+	}
+
+	@Benchmark
+	public long persistentReport() {
+		long sum = 0;
+		for (var e : persistentSetAndView()) {
+			sum += e;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public List<Integer> persistentSetAndView() {
+		int index = nextIndex();
+		persistent.set(index, index);
+		return persistent.snapshot();
+	}
+}
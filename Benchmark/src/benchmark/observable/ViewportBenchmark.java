@@ -0,0 +1,126 @@
+/**
+ *
+ */
+package benchmark.observable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import observable.FilteredListListener;
+import observable.ObservableCollections;
+import observable.ObservableList;
+import observable.ObservableListListener;
+
+/**
+ * <p>
+ * {@code viewportCount} listeners that each show 100 rows of a list of a
+ * million, spread evenly over it, while single rows are replaced. The
+ * {@code filtered*} benchmarks register them as {@link FilteredListListener}s;
+ * the {@code unfiltered*} benchmarks register them as they are, and every
+ * listener checks the index itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Thread)
+public class ViewportBenchmark {
+	private static final int SIZE = 1_000_000;
+	private static final int ROWS = 100;
+
+	private static final class Viewport implements ObservableListListener<Integer> {
+		final int from;
+		long events;
+
+		Viewport(int from) {
+			this.from = from;
+		}
+
+		@Override
+		public void listElementPropertyChanged(ObservableList<? super Integer> list, int index) {
+			if (from <= index && index < from + ROWS) {
+				events++;
+			}
+		}
+
+		@Override
+		public void listElementReplaced(ObservableList<? super Integer> list, int index, Object oldElement) {
+			if (from <= index && index < from + ROWS) {
+				events++;
+			}
+		}
+
+		@Override
+		public void listElementsAdded(ObservableList<? super Integer> list, int index, int length) {
+			if (index < from + ROWS) {
+				events++;
+			}
+		}
+
+		@Override
+		public void listElementsRemoved(ObservableList<? super Integer> list, int index,
+				List<? super Integer> oldElements) {
+			if (index < from + ROWS) {
+				events++;
+			}
+		}
+	}
+
+	@Param({ "10", "100", "1000" })
+	int viewportCount;
+
+	private ObservableList<Integer> filtered;
+	private ObservableList<Integer> unfiltered;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		var values = new ArrayList<Integer>(SIZE);
+		for (int i = 0; i < SIZE; i++) {
+			values.add(i);
+		}
+		filtered = ObservableCollections.observableList(new ArrayList<>(values));
+		unfiltered = ObservableCollections.observableList(new ArrayList<>(values));
+		int step = SIZE / viewportCount;
+		for (int i = 0; i < viewportCount; i++) {
+			int from = i * step;
+			filtered.addObservableListListener(new FilteredListListener<>(new Viewport(from), from, from + ROWS));
+			unfiltered.addObservableListListener(new Viewport(from));
+		}
+	}
+
+	@Benchmark
+	public void filteredSet() {
+		int index = nextIndex();
+		filtered.set(index, index);
+	}
+
+	private int nextIndex() {
+		cursor += 7919;
+		if (cursor >= SIZE) {
+			cursor -= SIZE;
+		}
+		return cursor;
+	}
+
+	@Benchmark
+	public void unfilteredSet() {
+		int index = nextIndex();
+		unfiltered.set(index, index);
+	}
+}
@@ -6,4 +6,5 @@ module observable.collections {
 	exports observable;
 
 	requires java.base;
+	requires jdk.jfr;
 }
\ No newline at end of file
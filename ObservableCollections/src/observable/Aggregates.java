@@ -0,0 +1,422 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * {@code Aggregates} provides factory methods for creating
+ * {@link ObservableValue}s that keep an {@link Aggregator} current over the
+ * contents of an observable collection.
+ *
+ * <p>
+ * The aggregate visits the contents once when it is created. After that it
+ * only feeds the values that a notification reports as added or removed to the
+ * aggregator, and notifies its own listeners once per notification of the
+ * collection if the result has changed. For example, the total of a list of
+ * trades:
+ *
+ * <pre>
+ * var total = Aggregates.ofList(trades, Trade::price, Aggregator.summingDouble());
+ * total.addObservableValueListener((value, oldValue) -&gt; repaint());
+ * </pre>
+ *
+ * <p>
+ * The aggregate reads the collection while it is being notified, so the
+ * collection must notify on the thread that changes it; the collections
+ * created with an {@link AsyncDispatch} do not. An
+ * {@link ObservableConcurrentMap} may be changed and notify on several threads
+ * at once: the aggregate of its values serializes them, and its listeners are
+ * notified under its lock. The collection only refers to the aggregate weakly.
+ */
+public final class Aggregates {
+	private abstract static class Aggregate<T, R> implements ObservableValue<R> {
+		private final Aggregator<? super T, ? extends R> aggregator;
+		private final ListenerRegistry<ObservableValueListener<? super R>> listeners;
+		/**
+		 * the result that the listeners last saw.
+		 */
+		private R last;
+
+		Aggregate(Aggregator<? super T, ? extends R> aggregator) {
+			this.aggregator = aggregator;
+			listeners = new ListenerRegistry<>(ObservableValueListener.class);
+		}
+
+		final void add(T value) {
+			aggregator.add(value);
+		}
+
+		@Override
+		public synchronized void addObservableValueListener(ObservableValueListener<? super R> listener) {
+			if (listeners.isEmpty()) {
+				last = aggregator.result();
+			}
+			listeners.add(listener);
+		}
+
+		@Override
+		public synchronized R get() {
+			return aggregator.result();
+		}
+
+		final void remove(T value) {
+			aggregator.remove(value);
+		}
+
+		@Override
+		public void removeObservableValueListener(ObservableValueListener<? super R> listener) {
+			listeners.remove(listener);
+		}
+
+		@Override
+		public String toString() {
+			return String.valueOf(get());
+		}
+
+		/**
+		 * Notifies the listeners if the result has changed.
+		 */
+		final void update() {
+			if (listeners.isEmpty()) {
+				return;
+			}
+			R value = aggregator.result();
+			R oldValue = last;
+			if (!Objects.equals(oldValue, value)) {
+				last = value;
+				for (var listener : listeners.array()) {
+					listener.valueChanged(this, oldValue);
+				}
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * If the list can notify that a property of an element has changed, the
+	 * previous value cannot be extracted from the element any more, so the
+	 * aggregate keeps the extracted values of all elements in list order.
+	 */
+	private static final class ListAggregate<E, T, R> extends Aggregate<T, R> implements ObservableListListener<E> {
+		private final ObservableList<E> source;
+		private final Function<? super E, ? extends T> extractor;
+		private final ArrayList<T> values;
+
+		ListAggregate(ObservableList<E> source, Function<? super E, ? extends T> extractor,
+				Aggregator<? super T, ? extends R> aggregator) {
+			super(aggregator);
+			this.source = source;
+			this.extractor = extractor;
+			values = source.supportsElementPropertyChanged() ? new ArrayList<>(source.size()) : null;
+			added(0, source.size());
+			source.addObservableListListener(new WeakListener.List<>(this));
+		}
+
+		private void added(int index, int length) {
+			var added = values != null ? new ArrayList<T>(length) : null;
+			var it = source.listIterator(index);
+			for (int i = 0; i < length; i++) {
+				T value = extractor.apply(it.next());
+				add(value);
+				if (added != null) {
+					added.add(value);
+				}
+			}
+			if (added != null) {
+				values.addAll(index, added);
+			}
+		}
+
+		@Override
+		public void listElementPropertyChanged(ObservableList<? super E> list, int index) {
+			if (values != null) {
+				T value = extractor.apply(source.get(index));
+				remove(values.set(index, value));
+				add(value);
+				update();
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void listElementReplaced(ObservableList<? super E> list, int index, Object oldElement) {
+			T value = extractor.apply(source.get(index));
+			remove(values != null ? values.set(index, value) : extractor.apply((E) oldElement));
+			add(value);
+			update();
+		}
+
+		@Override
+		public void listElementsAdded(ObservableList<? super E> list, int index, int length) {
+			added(index, length);
+			update();
+		}
+
+		@Override
+		public void listElementsChanged(ObservableList<? super E> list, List<ListChange> changes) {
+			for (var change : changes) {
+				removed(change.from(), change.removed());
+				added(change.from(), change.addedSize());
+			}
+			update();
+		}
+
+		@Override
+		public void listElementsPermuted(ObservableList<? super E> list, int from, int[] permutation) {
+			if (values != null) {
+				var permuted = values.subList(from, from + permutation.length);
+				var oldValues = new ArrayList<>(permuted);
+				for (int i = 0; i < permutation.length; i++) {
+					permuted.set(permutation[i], oldValues.get(i));
+				}
+			}
+		}
+
+		@Override
+		public void listElementsRemoved(ObservableList<? super E> list, int index, List<? super E> oldElements) {
+			removed(index, oldElements);
+			update();
+		}
+
+		@SuppressWarnings("unchecked")
+		private void removed(int index, List<?> oldElements) {
+			if (values != null) {
+				var removed = values.subList(index, index + oldElements.size());
+				for (var value : removed) {
+					remove(value);
+				}
+				removed.clear();
+			} else {
+				for (var e : oldElements) {
+					remove(extractor.apply((E) e));
+				}
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * The notifications of a map do not tell the new values, and those of an
+	 * {@link ObservableConcurrentMap} arrive concurrently, possibly after the
+	 * value has changed again. So the aggregate keeps the extracted value of
+	 * every key and, for every key a notification names, replaces it with the
+	 * value the key holds now, under its own lock; the last notification of a
+	 * key always leaves the current value in the aggregator.
+	 */
+	private static final class MapAggregate<K, V, T, R> extends Aggregate<T, R>
+			implements ObservableMapListener<K, V> {
+		private final ObservableMap<K, V> source;
+		private final Function<? super V, ? extends T> extractor;
+		private final HashMap<Object, T> values;
+
+		MapAggregate(ObservableMap<K, V> source, Function<? super V, ? extends T> extractor,
+				Aggregator<? super T, ? extends R> aggregator) {
+			super(aggregator);
+			this.source = source;
+			this.extractor = extractor;
+			values = new HashMap<>();
+			// listen first, so that no concurrent change is missed
+			source.addObservableMapListener(new WeakListener.Map<>(this));
+			synchronized (this) {
+				for (var key : source.keySet()) {
+					reconcile(key);
+				}
+			}
+		}
+
+		@Override
+		public synchronized void mapKeyAdded(ObservableMap<? extends K, ? extends V> map, Object key) {
+			reconcile(key);
+			update();
+		}
+
+		@Override
+		public synchronized void mapKeyRemoved(ObservableMap<? extends K, ? extends V> map, Object key,
+				Object value) {
+			reconcile(key);
+			update();
+		}
+
+		@Override
+		public synchronized void mapKeysAdded(ObservableMap<? extends K, ? extends V> map, Collection<?> keys) {
+			for (var key : keys) {
+				reconcile(key);
+			}
+			update();
+		}
+
+		@Override
+		public synchronized void mapKeysRemoved(ObservableMap<? extends K, ? extends V> map, Map<?, ?> entries) {
+			for (var key : entries.keySet()) {
+				reconcile(key);
+			}
+			update();
+		}
+
+		@Override
+		public synchronized void mapKeyValueChanged(ObservableMap<? extends K, ? extends V> map, Object key,
+				Object lastValue) {
+			reconcile(key);
+			update();
+		}
+
+		@Override
+		public synchronized void mapValuesChanged(ObservableMap<? extends K, ? extends V> map,
+				Map<?, ?> lastValues) {
+			for (var key : lastValues.keySet()) {
+				reconcile(key);
+			}
+			update();
+		}
+
+		/**
+		 * <p>
+		 * Replaces the value aggregated for {@code key} with the one it holds now.
+		 */
+		private void reconcile(Object key) {
+			V value = source.get(key);
+			if (value != null || source.containsKey(key)) {
+				T extracted = extractor.apply(value);
+				if (values.containsKey(key)) {
+					remove(values.put(key, extracted));
+				} else {
+					values.put(key, extracted);
+				}
+				add(extracted);
+			} else if (values.containsKey(key)) {
+				remove(values.remove(key));
+			}
+		}
+	}
+
+	private static final class SetAggregate<E, T, R> extends Aggregate<T, R> implements ObservableSetListener<E> {
+		private final Function<? super E, ? extends T> extractor;
+
+		SetAggregate(ObservableSet<E> source, Function<? super E, ? extends T> extractor,
+				Aggregator<? super T, ? extends R> aggregator) {
+			super(aggregator);
+			this.extractor = extractor;
+			for (var e : source) {
+				add(extractor.apply(e));
+			}
+			source.addObservableSetListener(new WeakListener.Set<>(this));
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void setElementAdded(ObservableSet<? extends E> set, Object element) {
+			add(extractor.apply((E) element));
+			update();
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void setElementRemoved(ObservableSet<? extends E> set, Object element) {
+			remove(extractor.apply((E) element));
+			update();
+		}
+	}
+
+	/**
+	 * Aggregates the elements of a list.
+	 *
+	 * @param <E>        element type
+	 * @param <R>        result type
+	 * @param list       the list
+	 * @param aggregator a new aggregator
+	 * @return the aggregate of the elements of {@code list}
+	 */
+	public static <E, R> ObservableValue<R> ofList(ObservableList<E> list,
+			Aggregator<? super E, ? extends R> aggregator) {
+		return ofList(list, Function.identity(), aggregator);
+	}
+
+	/**
+	 * Aggregates a value extracted from every element of a list.
+	 *
+	 * @param <E>        element type
+	 * @param <T>        extracted value type
+	 * @param <R>        result type
+	 * @param list       the list
+	 * @param extractor  extracts the value to aggregate from an element
+	 * @param aggregator a new aggregator
+	 * @return the aggregate of the values extracted from {@code list}
+	 */
+	public static <E, T, R> ObservableValue<R> ofList(ObservableList<E> list,
+			Function<? super E, ? extends T> extractor, Aggregator<? super T, ? extends R> aggregator) {
+		return new ListAggregate<>(requireNonNull(list), requireNonNull(extractor), requireNonNull(aggregator));
+	}
+
+	/**
+	 * Aggregates the values of a map.
+	 *
+	 * @param <V>        value type
+	 * @param <R>        result type
+	 * @param map        the map
+	 * @param aggregator a new aggregator
+	 * @return the aggregate of the values of {@code map}
+	 */
+	public static <V, R> ObservableValue<R> ofMapValues(ObservableMap<?, V> map,
+			Aggregator<? super V, ? extends R> aggregator) {
+		return ofMapValues(map, Function.identity(), aggregator);
+	}
+
+	/**
+	 * Aggregates a value extracted from every value of a map.
+	 *
+	 * @param <V>        value type
+	 * @param <T>        extracted value type
+	 * @param <R>        result type
+	 * @param map        the map
+	 * @param extractor  extracts the value to aggregate from a value of the map
+	 * @param aggregator a new aggregator
+	 * @return the aggregate of the values extracted from {@code map}
+	 */
+	public static <V, T, R> ObservableValue<R> ofMapValues(ObservableMap<?, V> map,
+			Function<? super V, ? extends T> extractor, Aggregator<? super T, ? extends R> aggregator) {
+		return new MapAggregate<>(requireNonNull(map), requireNonNull(extractor), requireNonNull(aggregator));
+	}
+
+	/**
+	 * Aggregates the elements of a set.
+	 *
+	 * @param <E>        element type
+	 * @param <R>        result type
+	 * @param set        the set
+	 * @param aggregator a new aggregator
+	 * @return the aggregate of the elements of {@code set}
+	 */
+	public static <E, R> ObservableValue<R> ofSet(ObservableSet<E> set, Aggregator<? super E, ? extends R> aggregator) {
+		return ofSet(set, Function.identity(), aggregator);
+	}
+
+	/**
+	 * Aggregates a value extracted from every element of a set.
+	 *
+	 * @param <E>        element type
+	 * @param <T>        extracted value type
+	 * @param <R>        result type
+	 * @param set        the set
+	 * @param extractor  extracts the value to aggregate from an element
+	 * @param aggregator a new aggregator
+	 * @return the aggregate of the values extracted from {@code set}
+	 */
+	public static <E, T, R> ObservableValue<R> ofSet(ObservableSet<E> set,
+			Function<? super E, ? extends T> extractor, Aggregator<? super T, ? extends R> aggregator) {
+		return new SetAggregate<>(requireNonNull(set), requireNonNull(extractor), requireNonNull(aggregator));
+	}
+
+	private Aggregates() {
+	}
+}
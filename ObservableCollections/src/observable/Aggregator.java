@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.function.BinaryOperator;
+
+/**
+ * <p>
+ * Maintains the result of an aggregate function while values are added and
+ * removed one at a time, without seeing the other values again. An aggregator
+ * is stateful; every {@link Aggregates} needs a new one.
+ *
+ * @param <T> the type of the aggregated values
+ * @param <R> the type of the result
+ *
+ * @see Aggregates
+ */
+public interface Aggregator<T, R> {
+	/**
+	 * @return an aggregator that counts the values
+	 */
+	public static Aggregator<Object, Long> counting() {
+		return new Aggregators.Counting();
+	}
+
+	/**
+	 * @return an aggregator of the arithmetic mean of the values, {@code 0.0} if
+	 *         there are none
+	 */
+	public static Aggregator<Number, Double> averagingDouble() {
+		return new Aggregators.Average();
+	}
+
+	/**
+	 * @param <T>        the type of the values
+	 * @param comparator orders the values
+	 * @return an aggregator of the greatest value, empty if there are none
+	 */
+	public static <T> Aggregator<T, Optional<T>> maxBy(Comparator<? super T> comparator) {
+		return new Aggregators.Extremum<>(requireNonNull(comparator), true);
+	}
+
+	/**
+	 * @param <T>        the type of the values
+	 * @param comparator orders the values
+	 * @return an aggregator of the least value, empty if there are none
+	 */
+	public static <T> Aggregator<T, Optional<T>> minBy(Comparator<? super T> comparator) {
+		return new Aggregators.Extremum<>(requireNonNull(comparator), false);
+	}
+
+	/**
+	 * <p>
+	 * Aggregates with a commutative monoid that has no inverse. Adding and
+	 * removing a value cost {@code O(log n)} {@code combine}s each, for
+	 * {@code n} the most values held at once, and {@link #result()} costs none.
+	 *
+	 * @param <T>      the type of the values
+	 * @param identity the identity of {@code combine}
+	 * @param combine  an associative and commutative operation
+	 * @return an aggregator of the combination of the values
+	 */
+	public static <T> Aggregator<T, T> of(T identity, BinaryOperator<T> combine) {
+		return new Aggregators.Monoid<>(identity, requireNonNull(combine));
+	}
+
+	/**
+	 * <p>
+	 * Aggregates with a commutative group. Adding and removing a value cost one
+	 * {@code combine} or {@code inverse} each.
+	 *
+	 * @param <T>      the type of the values
+	 * @param identity the identity of {@code combine}
+	 * @param combine  an associative and commutative operation
+	 * @param inverse  {@code inverse.apply(combine.apply(a, b), b)} equals
+	 *                 {@code a}
+	 * @return an aggregator of the combination of the values
+	 */
+	public static <T> Aggregator<T, T> of(T identity, BinaryOperator<T> combine, BinaryOperator<T> inverse) {
+		return new Aggregators.Group<>(identity, requireNonNull(combine), requireNonNull(inverse));
+	}
+
+	/**
+	 * @return an aggregator of the sum of the values, with compensation for the
+	 *         rounding error that adding and removing would accumulate
+	 */
+	public static Aggregator<Number, Double> summingDouble() {
+		return new Aggregators.DoubleSum();
+	}
+
+	/**
+	 * @return an aggregator of the sum of the values
+	 */
+	public static Aggregator<Number, Long> summingLong() {
+		return new Aggregators.LongSum();
+	}
+
+	/**
+	 * Adds a value.
+	 *
+	 * @param value the value
+	 */
+	void add(T value);
+
+	/**
+	 * Removes a value that was added before.
+	 *
+	 * @param value the value
+	 */
+	void remove(T value);
+
+	/**
+	 * @return the aggregate of the values added and not removed
+	 */
+	R result();
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.BinaryOperator;
+
+/**
+ * The {@link Aggregator}s behind its factory methods.
+ */
+final class Aggregators {
+	static final class Average implements Aggregator<Number, Double> {
+		private final DoubleSum sum = new DoubleSum();
+		private long count;
+
+		@Override
+		public void add(Number value) {
+			sum.add(value);
+			count++;
+		}
+
+		@Override
+		public void remove(Number value) {
+			sum.remove(value);
+			count--;
+		}
+
+		@Override
+		public Double result() {
+			return count == 0 ? 0.0 : sum.result() / count;
+		}
+	}
+
+	static final class Counting implements Aggregator<Object, Long> {
+		private long count;
+
+		@Override
+		public void add(Object value) {
+			count++;
+		}
+
+		@Override
+		public void remove(Object value) {
+			count--;
+		}
+
+		@Override
+		public Long result() {
+			return count;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Neumaier's compensated sum. The non-finite values are counted apart, so
+	 * that removing the only infinity or NaN restores a finite sum.
+	 */
+	static final class DoubleSum implements Aggregator<Number, Double> {
+		private double sum;
+		private double compensation;
+		private long nans;
+		private long positiveInfinities;
+		private long negativeInfinities;
+
+		@Override
+		public void add(Number value) {
+			add(value.doubleValue(), 1);
+		}
+
+		private void add(double x, int sign) {
+			if (Double.isNaN(x)) {
+				nans += sign;
+			} else if (x == Double.POSITIVE_INFINITY) {
+				positiveInfinities += sign;
+			} else if (x == Double.NEGATIVE_INFINITY) {
+				negativeInfinities += sign;
+			} else {
+				x *= sign;
+				double t = sum + x;
+				if (Math.abs(sum) >= Math.abs(x)) {
+					compensation += (sum - t) + x;
+				} else {
+					compensation += (x - t) + sum;
+				}
+				sum = t;
+			}
+		}
+
+		@Override
+		public void remove(Number value) {
+			add(value.doubleValue(), -1);
+		}
+
+		@Override
+		public Double result() {
+			if (nans != 0 || positiveInfinities != 0 && negativeInfinities != 0) {
+				return Double.NaN;
+			} else if (positiveInfinities != 0) {
+				return Double.POSITIVE_INFINITY;
+			} else if (negativeInfinities != 0) {
+				return Double.NEGATIVE_INFINITY;
+			}
+			return sum + compensation;
+		}
+	}
+
+	/**
+	 * A multiset of the values in comparator order.
+	 */
+	static final class Extremum<T> implements Aggregator<T, Optional<T>> {
+		private final TreeMap<T, int[]> counts;
+		private final boolean max;
+
+		Extremum(Comparator<? super T> comparator, boolean max) {
+			counts = new TreeMap<>(comparator);
+			this.max = max;
+		}
+
+		@Override
+		public void add(T value) {
+			counts.computeIfAbsent(requireNonNull(value), k -> new int[1])[0]++;
+		}
+
+		@Override
+		public void remove(T value) {
+			var count = counts.get(value);
+			if (count != null && --count[0] == 0) {
+				counts.remove(value);
+			}
+		}
+
+		@Override
+		public Optional<T> result() {
+			if (counts.isEmpty()) {
+				return Optional.empty();
+			}
+			return Optional.of(max ? counts.lastKey() : counts.firstKey());
+		}
+	}
+
+	static final class Group<T> implements Aggregator<T, T> {
+		private final BinaryOperator<T> combine;
+		private final BinaryOperator<T> inverse;
+		private T accumulator;
+
+		Group(T identity, BinaryOperator<T> combine, BinaryOperator<T> inverse) {
+			accumulator = identity;
+			this.combine = combine;
+			this.inverse = inverse;
+		}
+
+		@Override
+		public void add(T value) {
+			accumulator = combine.apply(accumulator, value);
+		}
+
+		@Override
+		public void remove(T value) {
+			accumulator = inverse.apply(accumulator, value);
+		}
+
+		@Override
+		public T result() {
+			return accumulator;
+		}
+	}
+
+	static final class LongSum implements Aggregator<Number, Long> {
+		private long sum;
+
+		@Override
+		public void add(Number value) {
+			sum += value.longValue();
+		}
+
+		@Override
+		public void remove(Number value) {
+			sum -= value.longValue();
+		}
+
+		@Override
+		public Long result() {
+			return sum;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Keeps every value in a slot of a segment tree whose inner nodes combine
+	 * their children, so that adding or removing a value recombines one path of
+	 * {@code O(log n)} nodes and the root is always the result. A removed
+	 * value's slot holds the identity until a later value reuses it; the tree
+	 * doubles when it is full.
+	 */
+	static final class Monoid<T> implements Aggregator<T, T> {
+		/**
+		 * the slots that hold a value, as a stack.
+		 */
+		private static final class Slots {
+			int[] slots = new int[1];
+			int size;
+
+			void push(int slot) {
+				if (size == slots.length) {
+					slots = Arrays.copyOf(slots, size * 2);
+				}
+				slots[size++] = slot;
+			}
+
+			int pop() {
+				return slots[--size];
+			}
+		}
+
+		private final T identity;
+		private final BinaryOperator<T> combine;
+		private final Map<T, Slots> slots;
+		/**
+		 * {@code tree[1]} is the root, the children of {@code tree[i]} are
+		 * {@code tree[2 * i]} and {@code tree[2 * i + 1]}, and slot {@code i} is
+		 * {@code tree[capacity + i]}.
+		 */
+		private Object[] tree;
+		private int capacity;
+		/**
+		 * the number of slots that have ever been used.
+		 */
+		private int end;
+		private final Slots free;
+
+		Monoid(T identity, BinaryOperator<T> combine) {
+			this.identity = identity;
+			this.combine = combine;
+			slots = new HashMap<>();
+			capacity = 1;
+			tree = new Object[] { identity, identity };
+			free = new Slots();
+		}
+
+		@Override
+		public void add(T value) {
+			int slot;
+			if (free.size != 0) {
+				slot = free.pop();
+			} else {
+				if (end == capacity) {
+					grow();
+				}
+				slot = end++;
+			}
+			slots.computeIfAbsent(value, k -> new Slots()).push(slot);
+			set(slot, value);
+		}
+
+		/**
+		 * <p>
+		 * Doubles the number of slots and recombines every inner node.
+		 */
+		@SuppressWarnings("unchecked")
+		private void grow() {
+			var grown = new Object[capacity * 4];
+			Arrays.fill(grown, identity);
+			System.arraycopy(tree, capacity, grown, capacity * 2, capacity);
+			tree = grown;
+			capacity *= 2;
+			for (int i = capacity - 1; i > 0; i--) {
+				tree[i] = combine.apply((T) tree[2 * i], (T) tree[2 * i + 1]);
+			}
+		}
+
+		@Override
+		public void remove(T value) {
+			var held = slots.get(value);
+			if (held != null) {
+				int slot = held.pop();
+				if (held.size == 0) {
+					slots.remove(value);
+				}
+				set(slot, identity);
+				free.push(slot);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public T result() {
+			return (T) tree[1];
+		}
+
+		@SuppressWarnings("unchecked")
+		private void set(int slot, T value) {
+			int i = capacity + slot;
+			tree[i] = value;
+			for (i >>= 1; i > 0; i >>= 1) {
+				tree[i] = combine.apply((T) tree[2 * i], (T) tree[2 * i + 1]);
+			}
+		}
+	}
+
+	private Aggregators() {
+	}
+}
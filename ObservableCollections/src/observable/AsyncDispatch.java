@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.Executor;
+
+/**
+ * <p>
+ * Asks an observable collection to notify its listeners on {@code executor}
+ * instead of on the thread that mutates it. Every listener gets its own queue
+ * of at most {@code capacity} pending notifications, delivered in order, and
+ * {@code overflow} decides what a mutation does when that queue is full.
+ *
+ * <p>
+ * Any {@link Executor} works, including one that starts a virtual thread per
+ * task. A listener still receives the collection itself, which may have
+ * changed further by the time the notification runs; the observable
+ * collections are not thread-safe, so the listener must not read it while the
+ * writer may be mutating it. For that reason, a reordering is delivered as one
+ * {@link ObservableListListener#listElementsChanged listElementsChanged} that
+ * carries the reordered elements, read on the mutating thread, instead of as
+ * {@link ObservableListListener#listElementsPermuted listElementsPermuted}.
+ *
+ * <p>
+ * If {@code executor} rejects a delivery, the mutation that notified throws the
+ * {@link java.util.concurrent.RejectedExecutionException} after the collection
+ * has changed. The notification stays queued, and goes out with the next one
+ * that the executor accepts.
+ *
+ * @param executor runs the deliveries
+ * @param capacity the maximum number of pending notifications per listener
+ * @param overflow what to do when the queue of a listener is full
+ *
+ * @see ObservableCollections#observableList(java.util.List, AsyncDispatch)
+ */
+public record AsyncDispatch(Executor executor, int capacity, AsyncDispatch.Overflow overflow) {
+	/**
+	 * <p>
+	 * What a mutation does when the queue of a listener is full.
+	 */
+	public enum Overflow {
+		/**
+		 * the mutating thread waits until the listener catches up.
+		 */
+		BLOCK,
+		/**
+		 * the notification is discarded.
+		 */
+		DROP,
+		/**
+		 * the notification is merged with the last pending one into a single net
+		 * change, for example one {@link ObservableListListener#listElementsChanged
+		 * listElementsChanged}.
+		 */
+		CONFLATE
+	}
+
+	/**
+	 * @throws NullPointerException     if {@code executor} or {@code overflow} is
+	 *                                  {@code null}
+	 * @throws IllegalArgumentException if {@code capacity < 1}
+	 */
+	public AsyncDispatch {
+		requireNonNull(executor);
+		requireNonNull(overflow);
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Illegal capacity: " + capacity);
+		}
+	}
+}
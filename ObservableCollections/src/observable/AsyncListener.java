@@ -0,0 +1,395 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.lang.System.Logger.Level;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Stands in for a listener of a collection created with an
+ * {@link AsyncDispatch}. The collection calls it on the mutating thread; it
+ * only queues the notification and delivers the queue to the real listener on
+ * the executor, one notification after the other.
+ *
+ * @param <L> the listener type
+ * @param <B> the builder that folds notifications together under
+ *            {@link AsyncDispatch.Overflow#CONFLATE}
+ */
+abstract class AsyncListener<L, B> implements Runnable {
+	static final class List<E> extends AsyncListener<ObservableListListener<E>, ListChangeBuilder>
+			implements ObservableListListener<E> {
+		private final ObservableList<? super E> source;
+
+		List(ObservableList<? super E> source, ObservableListListener<E> listener, AsyncDispatch dispatch) {
+			super(listener, dispatch);
+			this.source = source;
+		}
+
+		@Override
+		void fire(ListChangeBuilder builder) {
+			if (!builder.isEmpty()) {
+				target.listElementsChanged(source, builder.build());
+			}
+		}
+
+		@Override
+		public void listElementPropertyChanged(ObservableList<? super E> list, int index) {
+			var element = conflates() ? list.get(index) : null;
+			post(l -> l.listElementPropertyChanged(list, index), b -> b.propertyChanged(index, element));
+		}
+
+		@Override
+		public void listElementReplaced(ObservableList<? super E> list, int index, Object oldElement) {
+			post(l -> l.listElementReplaced(list, index, oldElement), b -> b.replaced(index, oldElement));
+		}
+
+		@Override
+		public void listElementsAdded(ObservableList<? super E> list, int index, int length) {
+			post(l -> l.listElementsAdded(list, index, length), b -> b.added(index, length));
+		}
+
+		@Override
+		public void listElementsChanged(ObservableList<? super E> list, java.util.List<ListChange> changes) {
+			post(l -> l.listElementsChanged(list, changes), b -> {
+				for (var change : changes) {
+					b.removed(change.from(), change.removed());
+					b.added(change.from(), change.addedSize());
+				}
+			});
+		}
+
+		/**
+		 * <p>
+		 * Reads the reordered elements now, while the list is still as the
+		 * permutation left it, and delivers them as one replaced range: the
+		 * listener runs on the executor, where it must not read the list.
+		 */
+		@Override
+		public void listElementsPermuted(ObservableList<? super E> list, int from, int[] permutation) {
+			var elements = new Object[permutation.length];
+			for (int i = 0; i < permutation.length; i++) {
+				elements[i] = list.get(from + permutation[i]);
+			}
+			var oldElements = Collections.unmodifiableList(Arrays.asList(elements));
+			var changes = java.util.List.of(new ListChange(from, oldElements, permutation.length));
+			post(l -> l.listElementsChanged(list, changes), b -> {
+				b.removed(from, oldElements);
+				b.added(from, permutation.length);
+			});
+		}
+
+		@Override
+		public void listElementsRemoved(ObservableList<? super E> list, int index,
+				java.util.List<? super E> oldElements) {
+			post(l -> l.listElementsRemoved(list, index, oldElements), b -> b.removed(index, oldElements));
+		}
+
+		@Override
+		ListChangeBuilder newBuilder() {
+			return new ListChangeBuilder();
+		}
+	}
+
+	static final class Map<K, V> extends AsyncListener<ObservableMapListener<K, V>, MapChangeBuilder>
+			implements ObservableMapListener<K, V> {
+		private final ObservableMap<? extends K, ? extends V> source;
+
+		Map(ObservableMap<? extends K, ? extends V> source, ObservableMapListener<K, V> listener,
+				AsyncDispatch dispatch) {
+			super(listener, dispatch);
+			this.source = source;
+		}
+
+		@Override
+		void fire(MapChangeBuilder builder) {
+			builder.fire(source, target);
+		}
+
+		@Override
+		public void mapCleared(ObservableMap<? extends K, ? extends V> map, java.util.Map<?, ?> oldEntries) {
+			post(l -> l.mapCleared(map, oldEntries), b -> b.keysRemoved(oldEntries));
+		}
+
+		@Override
+		public void mapKeyAdded(ObservableMap<? extends K, ? extends V> map, Object key) {
+			post(l -> l.mapKeyAdded(map, key), b -> b.keyAdded(key));
+		}
+
+		@Override
+		public void mapKeyRemoved(ObservableMap<? extends K, ? extends V> map, Object key, Object value) {
+			post(l -> l.mapKeyRemoved(map, key, value), b -> b.keyRemoved(key, value));
+		}
+
+		@Override
+		public void mapKeysAdded(ObservableMap<? extends K, ? extends V> map, Collection<?> keys) {
+			post(l -> l.mapKeysAdded(map, keys), b -> b.keysAdded(keys));
+		}
+
+		@Override
+		public void mapKeysRemoved(ObservableMap<? extends K, ? extends V> map, java.util.Map<?, ?> entries) {
+			post(l -> l.mapKeysRemoved(map, entries), b -> b.keysRemoved(entries));
+		}
+
+		@Override
+		public void mapKeyValueChanged(ObservableMap<? extends K, ? extends V> map, Object key, Object lastValue) {
+			post(l -> l.mapKeyValueChanged(map, key, lastValue), b -> b.keyValueChanged(key, lastValue));
+		}
+
+		@Override
+		public void mapValuesChanged(ObservableMap<? extends K, ? extends V> map, java.util.Map<?, ?> lastValues) {
+			post(l -> l.mapValuesChanged(map, lastValues), b -> b.valuesChanged(lastValues));
+		}
+
+		@Override
+		MapChangeBuilder newBuilder() {
+			return new MapChangeBuilder();
+		}
+	}
+
+	static final class Set<E> extends AsyncListener<ObservableSetListener<E>, SetChangeBuilder>
+			implements ObservableSetListener<E> {
+		private final ObservableSet<? extends E> source;
+
+		Set(ObservableSet<? extends E> source, ObservableSetListener<E> listener, AsyncDispatch dispatch) {
+			super(listener, dispatch);
+			this.source = source;
+		}
+
+		@Override
+		void fire(SetChangeBuilder builder) {
+			builder.fire(source, target);
+		}
+
+		@Override
+		SetChangeBuilder newBuilder() {
+			return new SetChangeBuilder();
+		}
+
+		@Override
+		public void setElementAdded(ObservableSet<? extends E> set, Object element) {
+			post(l -> l.setElementAdded(set, element), b -> b.elementAdded(element));
+		}
+
+		@Override
+		public void setElementRemoved(ObservableSet<? extends E> set, Object element) {
+			post(l -> l.setElementRemoved(set, element), b -> b.elementRemoved(element));
+		}
+	}
+
+	/**
+	 * <p>
+	 * A queued notification. {@code folding} replays it into a builder when the
+	 * queue overflows under {@link AsyncDispatch.Overflow#CONFLATE}; it must only
+	 * use values captured when the notification was posted.
+	 */
+	private record Event<L, B>(Consumer<? super L> delivery, Consumer<? super B> folding) {
+	}
+
+	private static final System.Logger LOGGER = System.getLogger(AsyncListener.class.getName());
+
+	/**
+	 * <p>
+	 * Unregisters the stand-in of {@code listener} from {@code listeners} and
+	 * discards the notifications it has not delivered yet.
+	 */
+	static void remove(ListenerRegistry<?> listeners, Object listener) {
+		if (listeners.find(l -> l instanceof AsyncListener<?, ?> async
+				&& async.target.equals(listener)) instanceof AsyncListener<?, ?> async) {
+			listeners.remove(async);
+			async.close();
+		}
+	}
+
+	final L target;
+	private final AsyncDispatch dispatch;
+	private final ArrayDeque<Event<L, B>> queue = new ArrayDeque<>();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notFull = lock.newCondition();
+	/**
+	 * the conflated notification at the end of the queue and the builder it
+	 * delivers. It only grows while it is still the last element of the queue.
+	 */
+	private Event<L, B> tail;
+	private B tailBuilder;
+	private boolean scheduled;
+	private boolean closed;
+	/**
+	 * the thread that is delivering, so that a listener which mutates the
+	 * collection under {@link AsyncDispatch.Overflow#BLOCK} does not wait for
+	 * itself.
+	 */
+	private Thread drainer;
+
+	AsyncListener(L target, AsyncDispatch dispatch) {
+		this.target = target;
+		this.dispatch = dispatch;
+	}
+
+	private void close() {
+		lock.lock();
+		try {
+			closed = true;
+			queue.clear();
+			tail = null;
+			tailBuilder = null;
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	final boolean conflates() {
+		return dispatch.overflow() == AsyncDispatch.Overflow.CONFLATE;
+	}
+
+	private void conflate(Event<L, B> event) {
+		if (tail == null || queue.peekLast() != tail) {
+			var last = queue.pollLast();
+			var builder = newBuilder();
+			last.folding().accept(builder);
+			tail = new Event<>(l -> fire(builder), null);
+			tailBuilder = builder;
+			queue.add(tail);
+		}
+		event.folding().accept(tailBuilder);
+	}
+
+	/**
+	 * <p>
+	 * Delivers the notifications folded into {@code builder} to {@link #target}.
+	 */
+	abstract void fire(B builder);
+
+	abstract B newBuilder();
+
+	/**
+	 * <p>
+	 * Queues a notification and makes sure a delivery is scheduled.
+	 *
+	 * @throws RejectedExecutionException if the executor rejects the delivery;
+	 *                                    the collection has already changed then,
+	 *                                    and the notification stays queued for the
+	 *                                    next one to schedule
+	 */
+	final void post(Consumer<? super L> delivery, Consumer<? super B> folding) {
+		var event = new Event<L, B>(delivery, folding);
+		lock.lock();
+		try {
+			while (!closed && queue.size() >= dispatch.capacity() && drainer != Thread.currentThread()) {
+				switch (dispatch.overflow()) {
+				case BLOCK:
+					notFull.awaitUninterruptibly();
+					continue;
+				case DROP:
+					return;
+				case CONFLATE:
+					conflate(event);
+					return;
+				}
+			}
+			if (closed) {
+				return;
+			}
+			queue.add(event);
+			if (scheduled) {
+				return;
+			}
+			scheduled = true;
+		} finally {
+			lock.unlock();
+		}
+		schedule();
+	}
+
+	/**
+	 * <p>
+	 * Delivers the queued notifications in order until the queue is empty. A
+	 * listener that throws a {@link RuntimeException} is logged and gets the
+	 * next notification; any other throwable ends this delivery, and the rest
+	 * of the queue is scheduled anew.
+	 */
+	@Override
+	public final void run() {
+		boolean drained = false;
+		try {
+			for (;;) {
+				Event<L, B> event;
+				lock.lock();
+				try {
+					event = queue.poll();
+					if (event == null) {
+						scheduled = false;
+						drainer = null;
+						drained = true;
+						return;
+					}
+					drainer = Thread.currentThread();
+					notFull.signal();
+				} finally {
+					lock.unlock();
+				}
+				try {
+					event.delivery().accept(target);
+				} catch (RuntimeException e) {
+					LOGGER.log(Level.WARNING, "listener " + target + " failed", e);
+				}
+			}
+		} finally {
+			if (!drained) {
+				reschedule();
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Schedules a new delivery of the rest of the queue after one has ended
+	 * abruptly.
+	 */
+	private void reschedule() {
+		lock.lock();
+		try {
+			drainer = null;
+			scheduled = !closed && !queue.isEmpty();
+			notFull.signalAll();
+			if (!scheduled) {
+				return;
+			}
+		} finally {
+			lock.unlock();
+		}
+		try {
+			schedule();
+		} catch (RejectedExecutionException e) {
+			LOGGER.log(Level.WARNING, "cannot schedule the notifications of " + target, e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Hands this to the executor once {@link #scheduled} has been set.
+	 */
+	private void schedule() {
+		try {
+			dispatch.executor().execute(this);
+		} catch (RejectedExecutionException e) {
+			// the queue is kept; the next notification tries again
+			lock.lock();
+			try {
+				scheduled = false;
+			} finally {
+				lock.unlock();
+			}
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>
+ * A live view of several lists one after another. It copies nothing: the
+ * sizes of the parts are kept in a Fenwick tree, so that {@link #get(int)}
+ * finds the part of an index, and a notification of a part finds the offset
+ * of that part, in {@code O(log k)} for {@code k} parts.
+ *
+ * <p>
+ * Elements can be replaced and removed through the view, which changes the
+ * part that holds them; elements cannot be added, since an index at the end
+ * of one part is also the start of the next.
+ *
+ * <p>
+ * Like the other views, the parts refer to the view only weakly. A list that
+ * appears more than once is followed correctly, but its listeners then see the
+ * view in between the notifications of its occurrences.
+ *
+ * <p>
+ * The view follows the parts on the thread that changes them, even if they
+ * were created with an {@link AsyncDispatch}, so that the sizes stay
+ * consistent; its own listeners are notified on that thread as well.
+ *
+ * @see ObservableList#concat(ObservableList...)
+ */
+final class ConcatenatedObservableList<E> extends AbstractList<E> implements ObservableList<E> {
+	/**
+	 * <p>
+	 * Follows one part. The part only refers to it weakly.
+	 */
+	private final class Part implements ObservableListListener<E>, SynchronousListener {
+		final int index;
+		final ObservableList<E> list;
+
+		Part(int index, ObservableList<E> list) {
+			this.index = index;
+			this.list = list;
+		}
+
+		@Override
+		public void listElementPropertyChanged(ObservableList<? super E> list, int index) {
+			if (isObserved()) {
+				int offset = offset(this.index);
+				for (var listener : listeners.array()) {
+					listener.listElementPropertyChanged(ConcatenatedObservableList.this, offset + index);
+				}
+			}
+		}
+
+		@Override
+		public void listElementReplaced(ObservableList<? super E> list, int index, Object oldElement) {
+			if (isObserved()) {
+				int offset = offset(this.index);
+				for (var listener : listeners.array()) {
+					listener.listElementReplaced(ConcatenatedObservableList.this, offset + index, oldElement);
+				}
+			}
+		}
+
+		@Override
+		public void listElementsAdded(ObservableList<? super E> list, int index, int length) {
+			resize(this.index, length);
+			if (isObserved()) {
+				int offset = offset(this.index);
+				for (var listener : listeners.array()) {
+					listener.listElementsAdded(ConcatenatedObservableList.this, offset + index, length);
+				}
+			}
+		}
+
+		@Override
+		public void listElementsChanged(ObservableList<? super E> list, List<ListChange> changes) {
+			int delta = 0;
+			for (var change : changes) {
+				delta += change.addedSize() - change.removed().size();
+			}
+			resize(this.index, delta);
+			if (!isObserved()) {
+				return;
+			}
+			int offset = offset(this.index);
+			var shifted = changes;
+			if (offset != 0) {
+				var moved = new ArrayList<ListChange>(changes.size());
+				for (var change : changes) {
+					moved.add(new ListChange(offset + change.from(), change.removed(), change.addedSize()));
+				}
+				shifted = List.copyOf(moved);
+			}
+			for (var listener : listeners.array()) {
+				listener.listElementsChanged(ConcatenatedObservableList.this, shifted);
+			}
+		}
+
+		@Override
+		public void listElementsPermuted(ObservableList<? super E> list, int from, int[] permutation) {
+			if (isObserved()) {
+				int offset = offset(this.index);
+				for (var listener : listeners.array()) {
+					listener.listElementsPermuted(ConcatenatedObservableList.this, offset + from, permutation);
+				}
+			}
+		}
+
+		@Override
+		public void listElementsRemoved(ObservableList<? super E> list, int index, List<? super E> oldElements) {
+			resize(this.index, -oldElements.size());
+			if (isObserved()) {
+				int offset = offset(this.index);
+				for (var listener : listeners.array()) {
+					listener.listElementsRemoved(ConcatenatedObservableList.this, offset + index, oldElements);
+				}
+			}
+		}
+	}
+
+	private final List<Part> parts;
+	/**
+	 * the Fenwick tree of the sizes of the parts: {@code tree[i]} holds the
+	 * sum of the sizes of the {@code i & -i} parts up to part {@code i - 1}.
+	 */
+	private final int[] tree;
+	private int size;
+	private final ListenerRegistry<ObservableListListener<? extends E>> listeners;
+
+	@SafeVarargs
+	ConcatenatedObservableList(ObservableList<E>... lists) {
+		parts = new ArrayList<>(lists.length);
+		tree = new int[lists.length + 1];
+		for (int i = 0; i < lists.length; i++) {
+			parts.add(new Part(i, Objects.requireNonNull(lists[i])));
+			tree[i + 1] += lists[i].size();
+			int parent = i + 1 + (i + 1 & -(i + 1));
+			if (parent <= lists.length) {
+				tree[parent] += tree[i + 1];
+			}
+			size += lists[i].size();
+		}
+		listeners = new ListenerRegistry<>(ObservableListListener.class);
+		for (var part : parts) {
+			part.list.addObservableListListener(new WeakListener.List<>(part));
+		}
+	}
+
+	@Override
+	public void addObservableListListener(ObservableListListener<? extends E> listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public E get(int index) {
+		long location = locate(index);
+		return parts.get((int) (location >>> 32)).list.get((int) location);
+	}
+
+	private boolean isObserved() {
+		return !listeners.isEmpty();
+	}
+
+	/**
+	 * @return the index of the first element of {@code part} in this view
+	 */
+	private int offset(int part) {
+		int offset = 0;
+		for (int i = part; i > 0; i -= i & -i) {
+			offset += tree[i];
+		}
+		return offset;
+	}
+
+	/**
+	 * @return the part that holds {@code index}, and its index in that part
+	 *         in the lower half
+	 */
+	private long locate(int index) {
+		Objects.checkIndex(index, size);
+		int part = 0;
+		for (int step = Integer.highestOneBit(parts.size()); step != 0; step >>= 1) {
+			int next = part + step;
+			if (next <= parts.size() && tree[next] <= index) {
+				part = next;
+				index -= tree[next];
+			}
+		}
+		return (long) part << 32 | index;
+	}
+
+	@Override
+	public E remove(int index) {
+		long location = locate(index);
+		return parts.get((int) (location >>> 32)).list.remove((int) location);
+	}
+
+	@Override
+	public void removeObservableListListener(ObservableListListener<? extends E> listener) {
+		listeners.remove(listener);
+	}
+
+	private void resize(int part, int delta) {
+		if (delta == 0) {
+			return;
+		}
+		for (int i = part + 1; i <= parts.size(); i += i & -i) {
+			tree[i] += delta;
+		}
+		size += delta;
+		modCount++;
+	}
+
+	@Override
+	public E set(int index, E element) {
+		long location = locate(index);
+		return parts.get((int) (location >>> 32)).list.set((int) location, element);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public ObservableList<E> subList(int fromIndex, int toIndex) {
+		return new ObservableSubList<>(this, fromIndex, toIndex);
+	}
+
+	/**
+	 * @return {@code true} if every part does
+	 */
+	@Override
+	public boolean supportsElementPropertyChanged() {
+		for (var part : parts) {
+			if (!part.list.supportsElementPropertyChanged()) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * The buffer behind the {@link ConflatingListener}s. Notifications are folded
+ * into a builder under a lock, and {@link #flush()} swaps the builder out
+ * before it delivers it, so that the collection can go on notifying while the
+ * listener works through the last flush.
+ *
+ * @param <B> the builder that folds the notifications together
+ */
+final class ConflatingBuffer<B> {
+	private final Supplier<B> newBuilder;
+	/**
+	 * delivers a builder from a collection, and tells whether anything was left
+	 * to deliver.
+	 */
+	private final BiPredicate<Object, B> fire;
+	private final Runnable onPending;
+	private final ReentrantLock lock;
+	/**
+	 * the notifications since the last flush, {@code null} if there are none.
+	 */
+	private B pending;
+	/**
+	 * the collection that sent the pending notifications.
+	 */
+	private Object source;
+
+	ConflatingBuffer(Supplier<B> newBuilder, BiPredicate<Object, B> fire, Runnable onPending) {
+		this.newBuilder = newBuilder;
+		this.fire = fire;
+		this.onPending = onPending;
+		lock = new ReentrantLock();
+	}
+
+	/**
+	 * @see ConflatingListener#flush()
+	 */
+	boolean flush() {
+		B builder;
+		Object source;
+		lock.lock();
+		try {
+			builder = pending;
+			source = this.source;
+			pending = null;
+			this.source = null;
+		} finally {
+			lock.unlock();
+		}
+		return builder != null && fire.test(source, builder);
+	}
+
+	/**
+	 * @see ConflatingListener#isPending()
+	 */
+	boolean isPending() {
+		lock.lock();
+		try {
+			return pending != null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Folds a notification into the pending ones, and runs {@code onPending}
+	 * if there were none.
+	 */
+	void record(Object source, Consumer<? super B> folding) {
+		boolean first;
+		lock.lock();
+		try {
+			first = pending == null;
+			if (first) {
+				pending = newBuilder.get();
+			}
+			this.source = source;
+			folding.accept(pending);
+		} finally {
+			lock.unlock();
+		}
+		if (first && onPending != null) {
+			onPending.run();
+		}
+	}
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * <p>
+ * A listener adapter that does not pass notifications on as they arrive, but
+ * folds them into their net change until the wrapped listener asks for them
+ * with {@link #flush()}. A listener that cannot keep up with a burst of
+ * changes then sees one compacted change per flush, and never the
+ * intermediate states.
+ *
+ * <p>
+ * For a list, additions and removals of the same elements cancel out and
+ * adjacent ranges merge; the wrapped listener receives a single
+ * {@link ObservableListListener#listElementsChanged listElementsChanged}. For
+ * a map, a key that is added and removed again disappears and the changes of
+ * the value of a key collapse into one; for a set, an element that is added
+ * and removed again disappears.
+ *
+ * <p>
+ * The collection may notify on any thread, and the consumer may flush on
+ * another one, but only one thread at a time should flush. A flush reports
+ * the changes relative to the state of the collection after the last folded
+ * notification; a listener that reads the collection must not let the writer
+ * run ahead of it in the meantime.
+ *
+ * <pre>
+ * var adapter = new ConflatingListener.List&lt;&gt;(tableModel);
+ * list.addObservableListListener(adapter);
+ * new javax.swing.Timer(100, e -&gt; adapter.flush()).start();
+ * </pre>
+ */
+public interface ConflatingListener {
+	public static final class List<E> implements ConflatingListener, ObservableListListener<E> {
+		private final ObservableListListener<E> target;
+		private final ConflatingBuffer<ListChangeBuilder> buffer;
+
+		/**
+		 * @param listener receives the net changes
+		 */
+		public List(ObservableListListener<E> listener) {
+			this(listener, null);
+		}
+
+		/**
+		 * @param listener  receives the net changes
+		 * @param onPending runs when a notification arrives and none was pending,
+		 *                  on the thread that notifies; may be {@code null}
+		 */
+		public List(ObservableListListener<E> listener, Runnable onPending) {
+			target = requireNonNull(listener);
+			buffer = new ConflatingBuffer<>(ListChangeBuilder::new, this::fire, onPending);
+		}
+
+		@SuppressWarnings("unchecked")
+		private boolean fire(Object source, ListChangeBuilder builder) {
+			if (builder.isEmpty()) {
+				return false;
+			}
+			target.listElementsChanged((ObservableList<? super E>) source, builder.build());
+			return true;
+		}
+
+		@Override
+		public boolean flush() {
+			return buffer.flush();
+		}
+
+		@Override
+		public boolean isPending() {
+			return buffer.isPending();
+		}
+
+		@Override
+		public void listElementPropertyChanged(ObservableList<? super E> list, int index) {
+			var element = list.get(index);
+			buffer.record(list, b -> b.propertyChanged(index, element));
+		}
+
+		@Override
+		public void listElementReplaced(ObservableList<? super E> list, int index, Object oldElement) {
+			buffer.record(list, b -> b.replaced(index, oldElement));
+		}
+
+		@Override
+		public void listElementsAdded(ObservableList<? super E> list, int index, int length) {
+			buffer.record(list, b -> b.added(index, length));
+		}
+
+		@Override
+		public void listElementsChanged(ObservableList<? super E> list, java.util.List<ListChange> changes) {
+			buffer.record(list, b -> {
+				for (var change : changes) {
+					b.removed(change.from(), change.removed());
+					b.added(change.from(), change.addedSize());
+				}
+			});
+		}
+
+		@Override
+		public void listElementsPermuted(ObservableList<? super E> list, int from, int[] permutation) {
+			var oldElements = new Object[permutation.length];
+			for (int i = 0; i < permutation.length; i++) {
+				oldElements[i] = list.get(from + permutation[i]);
+			}
+			buffer.record(list, b -> {
+				b.removed(from, Arrays.asList(oldElements));
+				b.added(from, permutation.length);
+			});
+		}
+
+		@Override
+		public void listElementsRemoved(ObservableList<? super E> list, int index,
+				java.util.List<? super E> oldElements) {
+			buffer.record(list, b -> b.removed(index, oldElements));
+		}
+	}
+
+	public static final class Map<K, V> implements ConflatingListener, ObservableMapListener<K, V> {
+		private final ObservableMapListener<K, V> target;
+		private final ConflatingBuffer<MapChangeBuilder> buffer;
+
+		/**
+		 * @param listener receives the net changes
+		 */
+		public Map(ObservableMapListener<K, V> listener) {
+			this(listener, null);
+		}
+
+		/**
+		 * @param listener  receives the net changes
+		 * @param onPending runs when a notification arrives and none was pending,
+		 *                  on the thread that notifies; may be {@code null}
+		 */
+		public Map(ObservableMapListener<K, V> listener, Runnable onPending) {
+			target = requireNonNull(listener);
+			buffer = new ConflatingBuffer<>(MapChangeBuilder::new, this::fire, onPending);
+		}
+
+		@SuppressWarnings("unchecked")
+		private boolean fire(Object source, MapChangeBuilder builder) {
+			return builder.fire((ObservableMap<? extends K, ? extends V>) source, target);
+		}
+
+		@Override
+		public boolean flush() {
+			return buffer.flush();
+		}
+
+		@Override
+		public boolean isPending() {
+			return buffer.isPending();
+		}
+
+		@Override
+		public void mapCleared(ObservableMap<? extends K, ? extends V> map, java.util.Map<?, ?> oldEntries) {
+			buffer.record(map, b -> b.keysRemoved(oldEntries));
+		}
+
+		@Override
+		public void mapKeyAdded(ObservableMap<? extends K, ? extends V> map, Object key) {
+			buffer.record(map, b -> b.keyAdded(key));
+		}
+
+		@Override
+		public void mapKeyRemoved(ObservableMap<? extends K, ? extends V> map, Object key, Object value) {
+			buffer.record(map, b -> b.keyRemoved(key, value));
+		}
+
+		@Override
+		public void mapKeysAdded(ObservableMap<? extends K, ? extends V> map, Collection<?> keys) {
+			buffer.record(map, b -> b.keysAdded(keys));
+		}
+
+		@Override
+		public void mapKeysRemoved(ObservableMap<? extends K, ? extends V> map, java.util.Map<?, ?> entries) {
+			buffer.record(map, b -> b.keysRemoved(entries));
+		}
+
+		@Override
+		public void mapKeyValueChanged(ObservableMap<? extends K, ? extends V> map, Object key, Object lastValue) {
+			buffer.record(map, b -> b.keyValueChanged(key, lastValue));
+		}
+
+		@Override
+		public void mapValuesChanged(ObservableMap<? extends K, ? extends V> map, java.util.Map<?, ?> lastValues) {
+			buffer.record(map, b -> b.valuesChanged(lastValues));
+		}
+	}
+
+	public static final class Set<E> implements ConflatingListener, ObservableSetListener<E> {
+		private final ObservableSetListener<E> target;
+		private final ConflatingBuffer<SetChangeBuilder> buffer;
+
+		/**
+		 * @param listener receives the net changes
+		 */
+		public Set(ObservableSetListener<E> listener) {
+			this(listener, null);
+		}
+
+		/**
+		 * @param listener  receives the net changes
+		 * @param onPending runs when a notification arrives and none was pending,
+		 *                  on the thread that notifies; may be {@code null}
+		 */
+		public Set(ObservableSetListener<E> listener, Runnable onPending) {
+			target = requireNonNull(listener);
+			buffer = new ConflatingBuffer<>(SetChangeBuilder::new, this::fire, onPending);
+		}
+
+		@SuppressWarnings("unchecked")
+		private boolean fire(Object source, SetChangeBuilder builder) {
+			return builder.fire((ObservableSet<? extends E>) source, target);
+		}
+
+		@Override
+		public boolean flush() {
+			return buffer.flush();
+		}
+
+		@Override
+		public boolean isPending() {
+			return buffer.isPending();
+		}
+
+		@Override
+		public void setElementAdded(ObservableSet<? extends E> set, Object element) {
+			buffer.record(set, b -> b.elementAdded(element));
+		}
+
+		@Override
+		public void setElementRemoved(ObservableSet<? extends E> set, Object element) {
+			buffer.record(set, b -> b.elementRemoved(element));
+		}
+	}
+
+	/**
+	 * Delivers the notifications folded since the last flush to the wrapped
+	 * listener, on the calling thread.
+	 *
+	 * @return {@code false} if there was nothing to deliver
+	 */
+	boolean flush();
+
+	/**
+	 * @return {@code true} if a notification has arrived since the last flush
+	 */
+	boolean isPending();
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * An unmodifiable {@link Map} over a list of entries, used to hand the entries
+ * affected by a bulk operation to map listeners. Iterating it only walks the
+ * list; a hash index is built the first time a key is looked up.
+ */
+final class EntryListMap<K, V> extends AbstractMap<K, V> {
+	private final List<Map.Entry<K, V>> entries;
+	private Map<K, V> index;
+
+	/**
+	 * @param entries the entries, with distinct keys, which must not be modified
+	 *                afterwards
+	 */
+	EntryListMap(List<Map.Entry<K, V>> entries) {
+		this.entries = Collections.unmodifiableList(entries);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return index().containsKey(key);
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		return new AbstractSet<>() {
+			@Override
+			public Iterator<Map.Entry<K, V>> iterator() {
+				return entries.iterator();
+			}
+
+			@Override
+			public int size() {
+				return entries.size();
+			}
+		};
+	}
+
+	@Override
+	public V get(Object key) {
+		return index().get(key);
+	}
+
+	private Map<K, V> index() {
+		if (index == null) {
+			var map = new HashMap<K, V>(Math.max(16, (int) (entries.size() / 0.75f) + 1));
+			for (var entry : entries) {
+				map.put(entry.getKey(), entry.getValue());
+			}
+			index = map;
+		}
+		return index;
+	}
+
+	@Override
+	public int size() {
+		return entries.size();
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>
+ * A listener adapter that only passes on the notifications that can change
+ * the elements at the indices {@code from ... to - 1}, and only those of the
+ * given {@linkplain Kind kinds}. Elements that are added or removed before
+ * {@code to} shift the elements in the range, so they are passed on; a change
+ * at or after {@code to} is not.
+ *
+ * <p>
+ * The adapter filters by itself on any {@link ObservableList}. A list created
+ * by {@link ObservableCollections} also finds the adapters whose range a
+ * change can reach through an interval index, so that it does not call the
+ * others at all; it notifies them after its other listeners, ordered by
+ * {@code from}.
+ *
+ * <pre>
+ * var rows = new FilteredListListener&lt;&gt;(viewport, 10_000, 10_100);
+ * list.addObservableListListener(rows);
+ * // after scrolling
+ * list.removeObservableListListener(rows);
+ * </pre>
+ *
+ * <p>
+ * A compound change is passed on with only the parts that the adapter would
+ * pass on by themselves, or not at all if there are none.
+ *
+ * @param <E> the type of the elements
+ */
+public final class FilteredListListener<E> implements ObservableListListener<E> {
+	/**
+	 * <p>
+	 * The kinds of notification. A part of a compound change is of the kind it
+	 * is reported as by
+	 * {@link ObservableListListener#listElementsChanged(ObservableList, List)
+	 * listElementsChanged} by default.
+	 */
+	public enum Kind {
+		/**
+		 * {@link ObservableListListener#listElementPropertyChanged}
+		 */
+		PROPERTY_CHANGED,
+		/**
+		 * {@link ObservableListListener#listElementReplaced}
+		 */
+		REPLACED,
+		/**
+		 * {@link ObservableListListener#listElementsAdded}
+		 */
+		ADDED,
+		/**
+		 * {@link ObservableListListener#listElementsRemoved}
+		 */
+		REMOVED,
+		/**
+		 * {@link ObservableListListener#listElementsPermuted}
+		 */
+		PERMUTED
+	}
+
+	final ObservableListListener<E> target;
+	private final int from;
+	private final int to;
+	private final Set<Kind> kinds;
+
+	/**
+	 * @param listener receives the notifications of {@code kinds}
+	 * @param first    a kind to pass on
+	 * @param rest     the other kinds to pass on
+	 */
+	public FilteredListListener(ObservableListListener<E> listener, Kind first, Kind... rest) {
+		this(listener, 0, Integer.MAX_VALUE, EnumSet.of(first, rest));
+	}
+
+	/**
+	 * @param listener receives the notifications that can change the range
+	 * @param from     the first index of the range
+	 * @param to       the index after the range
+	 */
+	public FilteredListListener(ObservableListListener<E> listener, int from, int to) {
+		this(listener, from, to, EnumSet.allOf(Kind.class));
+	}
+
+	/**
+	 * @param listener receives the notifications of {@code kinds} that can
+	 *                 change the range
+	 * @param from     the first index of the range
+	 * @param to       the index after the range
+	 * @param kinds    the kinds to pass on
+	 *
+	 * @throws IllegalArgumentException if {@code from} is negative or greater
+	 *                                  than {@code to}
+	 */
+	public FilteredListListener(ObservableListListener<E> listener, int from, int to, Set<Kind> kinds) {
+		if (from < 0 || from > to) {
+			throw new IllegalArgumentException("Illegal range: " + from + " ... " + to);
+		}
+		target = requireNonNull(listener);
+		this.from = from;
+		this.to = to;
+		this.kinds = kinds.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(EnumSet.copyOf(kinds));
+	}
+
+	/**
+	 * @return {@code true} if this adapter passes on the part {@code change}
+	 */
+	private boolean accepts(ListChange change) {
+		boolean kind;
+		if (change.removed().size() == 1 && change.addedSize() == 1) {
+			kind = kinds.contains(Kind.REPLACED);
+		} else {
+			kind = change.wasRemoved() && kinds.contains(Kind.REMOVED)
+					|| change.wasAdded() && kinds.contains(Kind.ADDED);
+		}
+		if (!kind) {
+			return false;
+		}
+		return change.wasReplaced() ? overlaps(change.from(), change.to()) : change.from() < to;
+	}
+
+	/**
+	 * @return the first index of the range
+	 */
+	public int from() {
+		return from;
+	}
+
+	/**
+	 * @return the kinds that are passed on
+	 */
+	public Set<Kind> kinds() {
+		return kinds;
+	}
+
+	@Override
+	public void listElementPropertyChanged(ObservableList<? super E> list, int index) {
+		if (kinds.contains(Kind.PROPERTY_CHANGED) && from <= index && index < to) {
+			target.listElementPropertyChanged(list, index);
+		}
+	}
+
+	@Override
+	public void listElementReplaced(ObservableList<? super E> list, int index, Object oldElement) {
+		if (kinds.contains(Kind.REPLACED) && from <= index && index < to) {
+			target.listElementReplaced(list, index, oldElement);
+		}
+	}
+
+	@Override
+	public void listElementsAdded(ObservableList<? super E> list, int index, int length) {
+		if (kinds.contains(Kind.ADDED) && index < to) {
+			target.listElementsAdded(list, index, length);
+		}
+	}
+
+	@Override
+	public void listElementsChanged(ObservableList<? super E> list, List<ListChange> changes) {
+		List<ListChange> accepted = null;
+		for (int i = 0; i < changes.size(); i++) {
+			var change = changes.get(i);
+			if (accepts(change)) {
+				if (accepted != null) {
+					accepted.add(change);
+				}
+			} else if (accepted == null) {
+				accepted = new ArrayList<>(changes.subList(0, i));
+			}
+		}
+		if (accepted == null) {
+			target.listElementsChanged(list, changes);
+		} else if (!accepted.isEmpty()) {
+			target.listElementsChanged(list, Collections.unmodifiableList(accepted));
+		}
+	}
+
+	@Override
+	public void listElementsPermuted(ObservableList<? super E> list, int from, int[] permutation) {
+		if (kinds.contains(Kind.PERMUTED) && overlaps(from, from + permutation.length)) {
+			target.listElementsPermuted(list, from, permutation);
+		}
+	}
+
+	@Override
+	public void listElementsRemoved(ObservableList<? super E> list, int index, List<? super E> oldElements) {
+		if (kinds.contains(Kind.REMOVED) && index < to) {
+			target.listElementsRemoved(list, index, oldElements);
+		}
+	}
+
+	/**
+	 * @return {@code true} if {@code from ... to - 1} overlaps the range
+	 */
+	private boolean overlaps(int from, int to) {
+		return from < this.to && to > this.from;
+	}
+
+	/**
+	 * @return the index after the range, {@link Integer#MAX_VALUE} if it is
+	 *         not bounded
+	 */
+	public int to() {
+		return to;
+	}
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * A read-only view of the elements of the source that match a predicate.
+ *
+ * <p>
+ * The view keeps one node per source element in an implicit treap, ordered by
+ * source index. Every node knows how many source elements and how many
+ * matching elements its subtree holds, so that translating between source and
+ * view indices and splicing a range of source elements take
+ * {@code O(log n)}, and a change of {@code k} source elements is handled in
+ * {@code O(k + log n)} without scanning the rest of the source.
+ *
+ * @see ObservableList#filtered(Predicate)
+ */
+final class FilteredObservableList<E> extends ObservableListView<E, E> {
+	private static final class Node {
+		final int priority;
+		Node left;
+		Node right;
+		boolean included;
+		/**
+		 * the number of source elements in this subtree.
+		 */
+		int size;
+		/**
+		 * the number of matching elements in this subtree.
+		 */
+		int count;
+
+		Node(boolean included, int priority) {
+			this.included = included;
+			this.priority = priority;
+			size = 1;
+			count = included ? 1 : 0;
+		}
+
+		void update() {
+			size = 1 + size(left) + size(right);
+			count = (included ? 1 : 0) + count(left) + count(right);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Builds a treap over {@code flags} in linear time, keeping the nodes whose
+	 * priority is not yet exceeded on a stack of right spines.
+	 */
+	private static Node build(boolean[] flags) {
+		if (flags.length == 0) {
+			return null;
+		}
+		var random = ThreadLocalRandom.current();
+		var stack = new Node[flags.length];
+		int top = 0;
+		for (var flag : flags) {
+			var node = new Node(flag, random.nextInt());
+			Node last = null;
+			while (top > 0 && stack[top - 1].priority < node.priority) {
+				last = stack[--top];
+				last.update();
+			}
+			node.left = last;
+			if (top > 0) {
+				stack[top - 1].right = node;
+			}
+			stack[top++] = node;
+		}
+		while (top > 1) {
+			stack[--top].update();
+		}
+		stack[0].update();
+		return stack[0];
+	}
+
+	private static int count(Node node) {
+		return node == null ? 0 : node.count;
+	}
+
+	private static void flags(Node node, boolean[] flags, int offset) {
+		while (node != null) {
+			flags(node.left, flags, offset);
+			offset += size(node.left);
+			flags[offset++] = node.included;
+			node = node.right;
+		}
+	}
+
+	private static boolean[] flags(Node node) {
+		var flags = new boolean[size(node)];
+		flags(node, flags, 0);
+		return flags;
+	}
+
+	private static Node merge(Node a, Node b) {
+		if (a == null) {
+			return b;
+		}
+		if (b == null) {
+			return a;
+		}
+		if (a.priority > b.priority) {
+			a.right = merge(a.right, b);
+			a.update();
+			return a;
+		} else {
+			b.left = merge(a, b.left);
+			b.update();
+			return b;
+		}
+	}
+
+	private static int size(Node node) {
+		return node == null ? 0 : node.size;
+	}
+
+	/**
+	 * @return the first {@code k} source elements and the rest
+	 */
+	private static Node[] split(Node node, int k) {
+		if (node == null) {
+			return new Node[2];
+		}
+		if (size(node.left) >= k) {
+			var parts = split(node.left, k);
+			node.left = parts[1];
+			node.update();
+			parts[1] = node;
+			return parts;
+		} else {
+			var parts = split(node.right, k - size(node.left) - 1);
+			node.right = parts[0];
+			node.update();
+			parts[0] = node;
+			return parts;
+		}
+	}
+
+	private final Predicate<? super E> predicate;
+	private Node root;
+
+	FilteredObservableList(ObservableList<E> source, Predicate<? super E> predicate) {
+		super(source);
+		this.predicate = predicate;
+		root = build(test(0, source.size()));
+	}
+
+	@Override
+	public E get(int index) {
+		return source.get(sourceIndex(index));
+	}
+
+	/**
+	 * @return the matching source elements of {@code oldElements}, whose flags
+	 *         are in {@code removed}
+	 */
+	@SuppressWarnings("unchecked")
+	private List<E> included(List<?> oldElements, Node removed) {
+		var flags = flags(removed);
+		var elements = new Object[count(removed)];
+		int i = 0;
+		int j = 0;
+		for (var e : oldElements) {
+			if (flags[i++]) {
+				elements[j++] = e;
+			}
+		}
+		return (List<E>) Collections.unmodifiableList(Arrays.asList(elements));
+	}
+
+	private Node node(int sourceIndex) {
+		var node = root;
+		for (;;) {
+			int leftSize = size(node.left);
+			if (sourceIndex < leftSize) {
+				node = node.left;
+			} else if (sourceIndex == leftSize) {
+				return node;
+			} else {
+				sourceIndex -= leftSize + 1;
+				node = node.right;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of matching source elements before {@code sourceIndex}
+	 */
+	private int rank(int sourceIndex) {
+		int rank = 0;
+		var node = root;
+		while (node != null) {
+			int leftSize = size(node.left);
+			if (sourceIndex <= leftSize) {
+				if (sourceIndex == leftSize) {
+					return rank + count(node.left);
+				}
+				node = node.left;
+			} else {
+				rank += count(node.left) + (node.included ? 1 : 0);
+				sourceIndex -= leftSize + 1;
+				node = node.right;
+			}
+		}
+		return rank;
+	}
+
+	private void setIncluded(int sourceIndex, boolean included) {
+		int delta = included ? 1 : -1;
+		var node = root;
+		for (;;) {
+			node.count += delta;
+			int leftSize = size(node.left);
+			if (sourceIndex < leftSize) {
+				node = node.left;
+			} else if (sourceIndex == leftSize) {
+				node.included = included;
+				return;
+			} else {
+				sourceIndex -= leftSize + 1;
+				node = node.right;
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		return count(root);
+	}
+
+	@Override
+	void sourceElementPropertyChanged(int index) {
+		var element = source.get(index);
+		boolean was = node(index).included;
+		boolean now = predicate.test(element);
+		if (was != now) {
+			setIncluded(index, now);
+		}
+		if (!isObserved() || !was && !now) {
+			return;
+		}
+		int viewIndex = rank(index);
+		if (was && now) {
+			fireElementPropertyChanged(viewIndex);
+		} else if (was) {
+			fireElementsRemoved(viewIndex, Collections.singletonList(element));
+		} else {
+			fireElementsAdded(viewIndex, 1);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	void sourceElementReplaced(int index, Object oldElement) {
+		boolean was = node(index).included;
+		boolean now = predicate.test(source.get(index));
+		if (was != now) {
+			setIncluded(index, now);
+		}
+		if (!isObserved() || !was && !now) {
+			return;
+		}
+		int viewIndex = rank(index);
+		if (was && now) {
+			fireElementReplaced(viewIndex, oldElement);
+		} else if (was) {
+			fireElementsRemoved(viewIndex, Collections.singletonList((E) oldElement));
+		} else {
+			fireElementsAdded(viewIndex, 1);
+		}
+	}
+
+	@Override
+	void sourceElementsAdded(int index, int length) {
+		var added = build(test(index, length));
+		// the counts change once the parts are merged
+		int addedCount = count(added);
+		var parts = split(root, index);
+		int viewIndex = count(parts[0]);
+		root = merge(merge(parts[0], added), parts[1]);
+		if (addedCount != 0 && isObserved()) {
+			fireElementsAdded(viewIndex, addedCount);
+		}
+	}
+
+	@Override
+	void sourceElementsChanged(List<ListChange> changes) {
+		boolean observed = isObserved();
+		var viewChanges = new ArrayList<ListChange>();
+		for (var change : changes) {
+			var parts = split(root, change.from());
+			var rest = split(parts[1], change.removed().size());
+			var added = build(test(change.from(), change.addedSize()));
+			int addedCount = count(added);
+			int viewFrom = count(parts[0]);
+			int removedCount = count(rest[0]);
+			var removed = observed && removedCount != 0 ? included(change.removed(), rest[0]) : List.<E>of();
+			root = merge(merge(parts[0], added), rest[1]);
+			if (removedCount == 0 && addedCount == 0) {
+				continue;
+			}
+			var last = viewChanges.isEmpty() ? null : viewChanges.get(viewChanges.size() - 1);
+			if (last != null && last.to() == viewFrom) {
+				var joined = new ArrayList<Object>(last.removed());
+				joined.addAll(removed);
+				viewChanges.set(viewChanges.size() - 1, new ListChange(last.from(),
+						Collections.unmodifiableList(joined), last.addedSize() + addedCount));
+			} else {
+				viewChanges.add(new ListChange(viewFrom, removed, addedCount));
+			}
+		}
+		if (observed && !viewChanges.isEmpty()) {
+			fireElementsChanged(Collections.unmodifiableList(viewChanges));
+		}
+	}
+
+	@Override
+	void sourceElementsPermuted(int from, int[] permutation) {
+		final int length = permutation.length;
+		var parts = split(root, from);
+		var rest = split(parts[1], length);
+		var oldFlags = flags(rest[0]);
+		var newFlags = new boolean[length];
+		for (int i = 0; i < length; i++) {
+			newFlags[permutation[i]] = oldFlags[i];
+		}
+		var permuted = build(newFlags);
+		int permutedCount = count(permuted);
+		int viewFrom = count(parts[0]);
+		root = merge(merge(parts[0], permuted), rest[1]);
+		if (!isObserved() || permutedCount < 2) {
+			return;
+		}
+
+		// the position of each matching element among the matching elements
+		var newRank = new int[length];
+		for (int i = 0, rank = 0; i < length; i++) {
+			if (newFlags[i]) {
+				newRank[i] = rank++;
+			}
+		}
+		var viewPermutation = new int[permutedCount];
+		boolean moved = false;
+		for (int i = 0, rank = 0; i < length; i++) {
+			if (oldFlags[i]) {
+				viewPermutation[rank] = newRank[permutation[i]];
+				moved |= viewPermutation[rank] != rank;
+				rank++;
+			}
+		}
+		if (moved) {
+			fireElementsPermuted(viewFrom, viewPermutation);
+		}
+	}
+
+	@Override
+	void sourceElementsRemoved(int index, List<?> oldElements) {
+		var parts = split(root, index);
+		var rest = split(parts[1], oldElements.size());
+		int viewIndex = count(parts[0]);
+		root = merge(parts[0], rest[1]);
+		if (count(rest[0]) != 0 && isObserved()) {
+			fireElementsRemoved(viewIndex, included(oldElements, rest[0]));
+		}
+	}
+
+	/**
+	 * @return the source index of the element at {@code viewIndex}
+	 */
+	private int sourceIndex(int viewIndex) {
+		if (viewIndex < 0 || viewIndex >= size()) {
+			throw new IndexOutOfBoundsException(viewIndex);
+		}
+		int sourceIndex = 0;
+		var node = root;
+		for (;;) {
+			int leftCount = count(node.left);
+			if (viewIndex < leftCount) {
+				node = node.left;
+				continue;
+			}
+			int self = node.included ? 1 : 0;
+			if (viewIndex < leftCount + self) {
+				return sourceIndex + size(node.left);
+			}
+			viewIndex -= leftCount + self;
+			sourceIndex += size(node.left) + 1;
+			node = node.right;
+		}
+	}
+
+	/**
+	 * @return whether each of the {@code length} source elements from
+	 *         {@code index} matches
+	 */
+	private boolean[] test(int index, int length) {
+		var flags = new boolean[length];
+		var it = source.listIterator(index);
+		for (int i = 0; i < length; i++) {
+			flags[i] = predicate.test(it.next());
+		}
+		return flags;
+	}
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.Collection;
+
+/**
+ * <p>
+ * A listener adapter that times and counts the calls of the wrapped listener
+ * for {@link ObservableMetrics}. A {@link ListenerRegistry} hands these out
+ * in place of the listeners while instrumentation is enabled; they are never
+ * registered.
+ */
+interface InstrumentedListener {
+	static final class List<E> implements InstrumentedListener, ObservableListListener<E> {
+		private final ObservableListListener<? extends E> target;
+		private final ObservableMetrics metrics;
+		private final Class<?> listenerClass;
+
+		List(ObservableListListener<? extends E> listener, ObservableMetrics metrics) {
+			target = listener;
+			this.metrics = metrics;
+			listenerClass = listenerClass(listener);
+		}
+
+		@Override
+		public void listElementPropertyChanged(ObservableList<? super E> list, int index) {
+			var event = ObservableMetrics.started();
+			try {
+				target.listElementPropertyChanged(list, index);
+			} finally {
+				metrics.dispatched(event, listenerClass, "listElementPropertyChanged", 1);
+			}
+		}
+
+		@Override
+		public void listElementReplaced(ObservableList<? super E> list, int index, Object oldElement) {
+			var event = ObservableMetrics.started();
+			try {
+				target.listElementReplaced(list, index, oldElement);
+			} finally {
+				metrics.dispatched(event, listenerClass, "listElementReplaced", 1);
+			}
+		}
+
+		@Override
+		public void listElementsAdded(ObservableList<? super E> list, int index, int length) {
+			var event = ObservableMetrics.started();
+			try {
+				target.listElementsAdded(list, index, length);
+			} finally {
+				metrics.dispatched(event, listenerClass, "listElementsAdded", length);
+			}
+		}
+
+		@Override
+		public void listElementsChanged(ObservableList<? super E> list, java.util.List<ListChange> changes) {
+			var event = ObservableMetrics.started();
+			try {
+				target.listElementsChanged(list, changes);
+			} finally {
+				int elementCount = 0;
+				for (var change : changes) {
+					elementCount += change.removed().size() + change.addedSize();
+				}
+				metrics.dispatched(event, listenerClass, "listElementsChanged", elementCount);
+			}
+		}
+
+		@Override
+		public void listElementsPermuted(ObservableList<? super E> list, int from, int[] permutation) {
+			var event = ObservableMetrics.started();
+			try {
+				target.listElementsPermuted(list, from, permutation);
+			} finally {
+				metrics.dispatched(event, listenerClass, "listElementsPermuted", permutation.length);
+			}
+		}
+
+		@Override
+		public void listElementsRemoved(ObservableList<? super E> list, int index,
+				java.util.List<? super E> oldElements) {
+			var event = ObservableMetrics.started();
+			try {
+				target.listElementsRemoved(list, index, oldElements);
+			} finally {
+				metrics.dispatched(event, listenerClass, "listElementsRemoved", oldElements.size());
+			}
+		}
+	}
+
+	static final class Map<K, V> implements InstrumentedListener, ObservableMapListener<K, V> {
+		private final ObservableMapListener<? super K, ? super V> target;
+		private final ObservableMetrics metrics;
+		private final Class<?> listenerClass;
+
+		Map(ObservableMapListener<? super K, ? super V> listener, ObservableMetrics metrics) {
+			target = listener;
+			this.metrics = metrics;
+			listenerClass = listenerClass(listener);
+		}
+
+		@Override
+		public void mapCleared(ObservableMap<? extends K, ? extends V> map, java.util.Map<?, ?> oldEntries) {
+			var event = ObservableMetrics.started();
+			try {
+				target.mapCleared(map, oldEntries);
+			} finally {
+				metrics.dispatched(event, listenerClass, "mapCleared", oldEntries.size());
+			}
+		}
+
+		@Override
+		public void mapKeyAdded(ObservableMap<? extends K, ? extends V> map, Object key) {
+			var event = ObservableMetrics.started();
+			try {
+				target.mapKeyAdded(map, key);
+			} finally {
+				metrics.dispatched(event, listenerClass, "mapKeyAdded", 1);
+			}
+		}
+
+		@Override
+		public void mapKeyRemoved(ObservableMap<? extends K, ? extends V> map, Object key, Object value) {
+			var event = ObservableMetrics.started();
+			try {
+				target.mapKeyRemoved(map, key, value);
+			} finally {
+				metrics.dispatched(event, listenerClass, "mapKeyRemoved", 1);
+			}
+		}
+
+		@Override
+		public void mapKeysAdded(ObservableMap<? extends K, ? extends V> map, Collection<?> keys) {
+			var event = ObservableMetrics.started();
+			try {
+				target.mapKeysAdded(map, keys);
+			} finally {
+				metrics.dispatched(event, listenerClass, "mapKeysAdded", keys.size());
+			}
+		}
+
+		@Override
+		public void mapKeysRemoved(ObservableMap<? extends K, ? extends V> map, java.util.Map<?, ?> entries) {
+			var event = ObservableMetrics.started();
+			try {
+				target.mapKeysRemoved(map, entries);
+			} finally {
+				metrics.dispatched(event, listenerClass, "mapKeysRemoved", entries.size());
+			}
+		}
+
+		@Override
+		public void mapKeyValueChanged(ObservableMap<? extends K, ? extends V> map, Object key, Object lastValue) {
+			var event = ObservableMetrics.started();
+			try {
+				target.mapKeyValueChanged(map, key, lastValue);
+			} finally {
+				metrics.dispatched(event, listenerClass, "mapKeyValueChanged", 1);
+			}
+		}
+
+		@Override
+		public void mapValuesChanged(ObservableMap<? extends K, ? extends V> map, java.util.Map<?, ?> lastValues) {
+			var event = ObservableMetrics.started();
+			try {
+				target.mapValuesChanged(map, lastValues);
+			} finally {
+				metrics.dispatched(event, listenerClass, "mapValuesChanged", lastValues.size());
+			}
+		}
+	}
+
+	static final class Set<E> implements InstrumentedListener, ObservableSetListener<E> {
+		private final ObservableSetListener<? super E> target;
+		private final ObservableMetrics metrics;
+		private final Class<?> listenerClass;
+
+		Set(ObservableSetListener<? super E> listener, ObservableMetrics metrics) {
+			target = listener;
+			this.metrics = metrics;
+			listenerClass = listenerClass(listener);
+		}
+
+		@Override
+		public void setElementAdded(ObservableSet<? extends E> set, Object element) {
+			var event = ObservableMetrics.started();
+			try {
+				target.setElementAdded(set, element);
+			} finally {
+				metrics.dispatched(event, listenerClass, "setElementAdded", 1);
+			}
+		}
+
+		@Override
+		public void setElementRemoved(ObservableSet<? extends E> set, Object element) {
+			var event = ObservableMetrics.started();
+			try {
+				target.setElementRemoved(set, element);
+			} finally {
+				metrics.dispatched(event, listenerClass, "setElementRemoved", 1);
+			}
+		}
+	}
+
+	/**
+	 * @return the class of the listener that {@code listener} refers to
+	 *         weakly, if any, or else of {@code listener}
+	 */
+	private static Class<?> listenerClass(Object listener) {
+		var referent = ListenerRegistry.referent(listener);
+		return (referent != null ? referent : listener).getClass();
+	}
+}
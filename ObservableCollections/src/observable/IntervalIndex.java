@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * The {@link FilteredListListener}s of a list, ordered by {@link
+ * FilteredListListener#from() from} and laid out as an implicit binary search
+ * tree in which every node knows the greatest {@link FilteredListListener#to()
+ * to} below it. Finding the listeners whose range overlaps a change costs
+ * {@code O(log n)} plus the number found.
+ *
+ * <p>
+ * An index never changes; {@link #of} builds a new one when the listeners
+ * have changed.
+ *
+ * @param <E> the type of the elements
+ */
+final class IntervalIndex<E> {
+	private static final IntervalIndex<?> EMPTY = new IntervalIndex<>(new FilteredListListener<?>[0]);
+
+	@SuppressWarnings("unchecked")
+	static <E> IntervalIndex<E> empty() {
+		return (IntervalIndex<E>) EMPTY;
+	}
+
+	/**
+	 * <p>
+	 * Returns {@code index} if it was built from {@code listeners}, or a new
+	 * index of {@code listeners}.
+	 *
+	 * @param listeners the array of a {@link ListenerRegistry}, which is not
+	 *                  copied again until it changes
+	 */
+	static <E> IntervalIndex<E> of(FilteredListListener<? extends E>[] listeners, IntervalIndex<E> index) {
+		return index.source == listeners ? index : new IntervalIndex<>(listeners);
+	}
+
+	private final FilteredListListener<? extends E>[] source;
+	private final FilteredListListener<? extends E>[] listeners;
+	/**
+	 * the greatest {@code to} of the subtree at every index.
+	 */
+	private final int[] maxTo;
+
+	private IntervalIndex(FilteredListListener<? extends E>[] source) {
+		this.source = source;
+		listeners = source.clone();
+		// stable, so that listeners with the same range keep their order.
+		Arrays.sort(listeners, Comparator.comparingInt(FilteredListListener::from));
+		maxTo = new int[listeners.length];
+		build(0, listeners.length);
+	}
+
+	private int build(int lo, int hi) {
+		if (lo >= hi) {
+			return Integer.MIN_VALUE;
+		}
+		int mid = (lo + hi) >>> 1;
+		int max = Math.max(listeners[mid].to(), Math.max(build(lo, mid), build(mid + 1, hi)));
+		maxTo[mid] = max;
+		return max;
+	}
+
+	/**
+	 * <p>
+	 * Passes every listener whose range overlaps {@code from ... to - 1} to
+	 * {@code action}, ordered by {@code from}.
+	 */
+	void forEach(int from, int to, Consumer<? super FilteredListListener<? extends E>> action) {
+		forEach(0, listeners.length, from, to, action);
+	}
+
+	private void forEach(int lo, int hi, int from, int to, Consumer<? super FilteredListListener<? extends E>> action) {
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (maxTo[mid] <= from) {
+				return;
+			}
+			forEach(lo, mid, from, to, action);
+			var listener = listeners[mid];
+			if (listener.from() >= to) {
+				return;
+			}
+			if (listener.to() > from) {
+				action.accept(listener);
+			}
+			lo = mid + 1;
+		}
+	}
+
+	boolean isEmpty() {
+		return listeners.length == 0;
+	}
+}
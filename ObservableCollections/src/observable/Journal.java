@@ -0,0 +1,531 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger.Level;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * The log behind {@link ListJournal} and {@link MapJournal}. It knows nothing
+ * about the records it stores; the journals encode them, and apply and
+ * snapshot them through a {@link Target}.
+ *
+ * <p>
+ * The log is a directory of segment files named after the sequence number of
+ * their first record, and of checkpoint files named after the sequence number
+ * of the first record they do not contain. A segment is a 16 byte header
+ * followed by records of a length, a CRC-32 of the payload and the payload;
+ * the length is written last, and a zero length ends the segment. A
+ * checkpoint is a 16 byte header, the snapshot and a CRC-32 of everything
+ * before it.
+ *
+ * <p>
+ * A checkpoint starts a new segment, so that the segments before it can be
+ * deleted as a whole. Opening the journal restores the newest intact
+ * checkpoint and replays the segments after it up to the first torn record.
+ */
+final class Journal implements Closeable {
+	/**
+	 * <p>
+	 * A growable buffer for one record, or a buffer that spills a checkpoint to
+	 * a channel whenever it fills.
+	 */
+	static final class Encoder {
+		private static final int SPILL_THRESHOLD = 64 << 10;
+
+		private ByteBuffer buffer;
+		private final WritableByteChannel sink;
+		private final CRC32 crc;
+
+		Encoder(WritableByteChannel sink) {
+			buffer = ByteBuffer.allocate(sink == null ? 256 : 2 * SPILL_THRESHOLD);
+			this.sink = sink;
+			crc = new CRC32();
+		}
+
+		private void ensure(int length) {
+			if (buffer.remaining() < length) {
+				if (sink != null) {
+					spill();
+				}
+				while (buffer.remaining() < length) {
+					grow();
+				}
+			}
+		}
+
+		private void grow() {
+			var larger = ByteBuffer.allocate(buffer.capacity() * 2);
+			buffer.flip();
+			larger.put(buffer);
+			buffer = larger;
+		}
+
+		<T> void put(JournalCodec<? super T> codec, T value) {
+			for (;;) {
+				int mark = buffer.position();
+				try {
+					codec.encode(buffer, value);
+					break;
+				} catch (BufferOverflowException e) {
+					buffer.position(mark);
+					if (sink != null && mark > 0) {
+						spill();
+					} else {
+						grow();
+					}
+				}
+			}
+			if (sink != null && buffer.position() >= SPILL_THRESHOLD) {
+				spill();
+			}
+		}
+
+		void putByte(int value) {
+			ensure(Byte.BYTES);
+			buffer.put((byte) value);
+		}
+
+		void putInt(int value) {
+			ensure(Integer.BYTES);
+			buffer.putInt(value);
+		}
+
+		void putLong(long value) {
+			ensure(Long.BYTES);
+			buffer.putLong(value);
+		}
+
+		private void spill() {
+			buffer.flip();
+			crc.update(buffer.duplicate());
+			try {
+				while (buffer.hasRemaining()) {
+					sink.write(buffer);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * The collection whose changes the journal records.
+	 */
+	interface Target {
+		/**
+		 * Applies a record while the journal is replayed.
+		 */
+		void apply(ByteBuffer record);
+
+		/**
+		 * Replaces the contents with a snapshot while the journal is replayed.
+		 */
+		void restore(ByteBuffer snapshot);
+
+		/**
+		 * Writes a snapshot of the contents.
+		 */
+		void save(Encoder out);
+	}
+
+	private static final System.Logger LOGGER = System.getLogger(Journal.class.getName());
+	private static final int SEGMENT_MAGIC = 0x4f434a53;
+	private static final int CHECKPOINT_MAGIC = 0x4f434a43;
+	private static final int VERSION = 1;
+	private static final int HEADER = 16;
+	private static final int RECORD_HEADER = 8;
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+	private static TreeMap<Long, Path> files(Path directory, String suffix) throws IOException {
+		var files = new TreeMap<Long, Path>();
+		try (var stream = Files.newDirectoryStream(directory, "*" + suffix)) {
+			for (var path : stream) {
+				var name = path.getFileName().toString();
+				try {
+					files.put(Long.parseLong(name.substring(0, name.length() - suffix.length())), path);
+				} catch (NumberFormatException e) {
+					// not ours
+				}
+			}
+		}
+		return files;
+	}
+
+	private static Path name(Path directory, long sequence, String suffix) {
+		return directory.resolve(String.format("%020d%s", sequence, suffix));
+	}
+
+	private static MappedByteBuffer map(Path path, MapMode mode) throws IOException {
+		var options = mode == MapMode.READ_ONLY ? new StandardOpenOption[] { StandardOpenOption.READ }
+				: new StandardOpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE };
+		try (var channel = FileChannel.open(path, options)) {
+			return channel.map(mode, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Restores the newest intact checkpoint and replays the segments after it.
+	 */
+	static Journal open(Path directory, JournalOptions options, Target target) throws IOException {
+		Files.createDirectories(directory);
+		var journal = new Journal(directory, options, target);
+		var checkpoints = files(directory, CHECKPOINT_SUFFIX);
+		for (var checkpoint : checkpoints.descendingMap().entrySet()) {
+			if (journal.restore(checkpoint.getValue(), checkpoint.getKey())) {
+				break;
+			}
+		}
+		var segments = files(directory, SEGMENT_SUFFIX);
+		boolean torn = false;
+		for (var segment : segments.tailMap(journal.checkpointed, true).entrySet()) {
+			var path = segment.getValue();
+			if (!torn) {
+				var buffer = map(path, MapMode.READ_WRITE);
+				if (buffer.capacity() >= HEADER && buffer.getInt(0) == SEGMENT_MAGIC
+						&& buffer.getLong(8) == journal.sequence && segment.getKey() == journal.sequence) {
+					journal.segment = buffer;
+					journal.base = segment.getKey();
+					torn = journal.replay();
+					continue;
+				}
+				torn = true;
+			}
+			// the records in it cannot follow the records replayed so far
+			Files.move(path, path.resolveSibling(path.getFileName() + ".damaged"),
+					StandardCopyOption.REPLACE_EXISTING);
+		}
+		if (journal.segment == null) {
+			journal.roll(0);
+		} else {
+			journal.zeroTail();
+		}
+		journal.deleteBefore(journal.checkpointed);
+		journal.startSyncing();
+		return journal;
+	}
+
+	private final Path directory;
+	private final JournalOptions options;
+	private final Target target;
+	private final ReentrantLock lock;
+	private final ReentrantLock syncLock;
+	private final Encoder encoder;
+	private final CRC32 crc;
+	private ScheduledExecutorService syncer;
+	private MappedByteBuffer segment;
+	private long base;
+	/**
+	 * the write position in {@link #segment}.
+	 */
+	private int position;
+	/**
+	 * the position in {@link #segment} up to which it has been forced.
+	 */
+	private int synced;
+	/**
+	 * the sequence number of the next record.
+	 */
+	private long sequence;
+	private long checkpointed;
+	private boolean closed;
+
+	private Journal(Path directory, JournalOptions options, Target target) {
+		this.directory = directory;
+		this.options = options;
+		this.target = target;
+		lock = new ReentrantLock();
+		syncLock = new ReentrantLock();
+		encoder = new Encoder(null);
+		crc = new CRC32();
+	}
+
+	/**
+	 * Appends a record that {@code writer} encodes, and writes a checkpoint if
+	 * one is due.
+	 *
+	 * @throws UncheckedIOException if the log cannot be written
+	 */
+	void append(Consumer<Encoder> writer) {
+		boolean checkpoint;
+		lock.lock();
+		try {
+			if (closed) {
+				throw new IllegalStateException("journal closed");
+			}
+			encoder.buffer.clear();
+			writer.accept(encoder);
+			var payload = encoder.buffer.flip();
+			int length = payload.remaining();
+			if (segment.capacity() - position < RECORD_HEADER + length) {
+				roll(length);
+			}
+			crc.reset();
+			crc.update(payload.duplicate());
+			segment.putInt(position + 4, (int) crc.getValue());
+			segment.put(position + RECORD_HEADER, payload, 0, length);
+			segment.putInt(position, length);
+			if (options.syncInterval().isZero()) {
+				segment.force(position, RECORD_HEADER + length);
+				synced = position + RECORD_HEADER + length;
+			}
+			position += RECORD_HEADER + length;
+			sequence++;
+			long interval = options.checkpointInterval();
+			checkpoint = interval != 0 && sequence - checkpointed >= interval;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			lock.unlock();
+		}
+		if (checkpoint) {
+			try {
+				checkpoint();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Writes the contents of the target to a checkpoint, starts a new segment
+	 * and deletes the files the checkpoint makes obsolete. Must be called on
+	 * the thread that changes the collection.
+	 */
+	void checkpoint() throws IOException {
+		lock.lock();
+		try {
+			if (closed) {
+				throw new IllegalStateException("journal closed");
+			}
+			var path = name(directory, sequence, CHECKPOINT_SUFFIX);
+			var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+			try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				var out = new Encoder(channel);
+				out.putInt(CHECKPOINT_MAGIC);
+				out.putInt(VERSION);
+				out.putLong(sequence);
+				target.save(out);
+				out.spill();
+				var trailer = ByteBuffer.allocate(Integer.BYTES).putInt(0, (int) out.crc.getValue());
+				while (trailer.hasRemaining()) {
+					channel.write(trailer);
+				}
+				channel.force(true);
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			checkpointed = sequence;
+			if (base != sequence) {
+				roll(0);
+			}
+			deleteBefore(sequence);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		} finally {
+			lock.unlock();
+		}
+		if (syncer != null) {
+			syncer.shutdown();
+		}
+		force();
+	}
+
+	private void deleteBefore(long sequence) {
+		try {
+			for (var path : files(directory, SEGMENT_SUFFIX).headMap(sequence).values()) {
+				Files.deleteIfExists(path);
+			}
+			for (var path : files(directory, CHECKPOINT_SUFFIX).headMap(sequence).values()) {
+				Files.deleteIfExists(path);
+			}
+		} catch (IOException e) {
+			// a file that is still mapped may not be deletable yet; the next
+			// checkpoint tries again
+			LOGGER.log(Level.DEBUG, "cannot delete obsolete journal files", e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Forces the records appended so far. Appends are only blocked while the
+	 * range to force is taken, not while it is forced, so that records keep
+	 * accumulating for the next force.
+	 */
+	void force() {
+		syncLock.lock();
+		try {
+			MappedByteBuffer buffer;
+			int from;
+			int to;
+			lock.lock();
+			try {
+				buffer = segment;
+				from = synced;
+				to = position;
+			} finally {
+				lock.unlock();
+			}
+			if (to > from) {
+				buffer.force(from, to - from);
+				lock.lock();
+				try {
+					if (buffer == segment) {
+						synced = Math.max(synced, to);
+					}
+				} finally {
+					lock.unlock();
+				}
+			}
+		} finally {
+			syncLock.unlock();
+		}
+	}
+
+	/**
+	 * @return {@code false} if the checkpoint is damaged
+	 */
+	private boolean restore(Path path, long sequence) throws IOException {
+		var buffer = map(path, MapMode.READ_ONLY);
+		int length = buffer.capacity() - Integer.BYTES;
+		if (length < HEADER || buffer.getInt(0) != CHECKPOINT_MAGIC || buffer.getInt(4) != VERSION
+				|| buffer.getLong(8) != sequence) {
+			return false;
+		}
+		crc.reset();
+		crc.update(buffer.slice(0, length));
+		if ((int) crc.getValue() != buffer.getInt(length)) {
+			return false;
+		}
+		target.restore(buffer.slice(HEADER, length - HEADER));
+		this.sequence = sequence;
+		checkpointed = sequence;
+		return true;
+	}
+
+	/**
+	 * @return {@code true} if the segment ends in a torn record
+	 */
+	private boolean replay() {
+		int limit = segment.capacity();
+		position = HEADER;
+		while (limit - position >= RECORD_HEADER) {
+			int length = segment.getInt(position);
+			if (length == 0) {
+				return false;
+			}
+			if (length < 0 || length > limit - position - RECORD_HEADER) {
+				return true;
+			}
+			var payload = segment.slice(position + RECORD_HEADER, length);
+			crc.reset();
+			crc.update(payload.duplicate());
+			if ((int) crc.getValue() != segment.getInt(position + 4)) {
+				return true;
+			}
+			target.apply(payload);
+			position += RECORD_HEADER + length;
+			sequence++;
+		}
+		return false;
+	}
+
+	/**
+	 * Starts a new segment with room for a record of {@code length} bytes.
+	 */
+	private void roll(int length) throws IOException {
+		if (segment != null) {
+			segment.force();
+		}
+		long capacity = Math.max(options.segmentSize(), HEADER + RECORD_HEADER + (long) length);
+		if (capacity > Integer.MAX_VALUE) {
+			throw new IOException("record too large: " + length);
+		}
+		var path = name(directory, sequence, SEGMENT_SUFFIX);
+		MappedByteBuffer buffer;
+		try (var channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			buffer = channel.map(MapMode.READ_WRITE, 0, capacity);
+		}
+		buffer.putInt(0, SEGMENT_MAGIC);
+		buffer.putInt(4, VERSION);
+		buffer.putLong(8, sequence);
+		buffer.force(0, HEADER);
+		segment = buffer;
+		base = sequence;
+		position = HEADER;
+		synced = HEADER;
+	}
+
+	private void startSyncing() {
+		var interval = options.syncInterval();
+		if (interval.isZero()) {
+			return;
+		}
+		syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+			var thread = new Thread(r, "observable-journal-sync");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long nanos = interval.toNanos();
+		syncer.scheduleWithFixedDelay(() -> {
+			try {
+				force();
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.WARNING, "cannot force journal " + directory, e);
+			}
+		}, nanos, nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * <p>
+	 * Clears everything after the last intact record of the segment to append
+	 * to. Pieces of records that were torn by a crash may follow it, and the
+	 * records appended next must not run into them.
+	 */
+	private void zeroTail() {
+		var zeros = new byte[64 << 10];
+		for (int i = position; i < segment.capacity(); i += zeros.length) {
+			segment.put(i, zeros, 0, Math.min(zeros.length, segment.capacity() - i));
+		}
+		segment.force();
+		synced = position;
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>
+ * Writes values of type {@code T} to a journal and reads them back. Unlike a
+ * {@link RecordCodec} the encoded size may vary from value to value.
+ *
+ * <p>
+ * {@link #encode(ByteBuffer, Object)} may simply let the buffer throw a
+ * {@link java.nio.BufferOverflowException}; the journal then retries with a
+ * larger buffer.
+ *
+ * @param <T> value type
+ *
+ * @see ListJournal
+ * @see MapJournal
+ */
+public interface JournalCodec<T> {
+	/**
+	 * @return a codec of non-null {@code Double}s
+	 */
+	public static JournalCodec<Double> doubles() {
+		return new JournalCodec<>() {
+			@Override
+			public Double decode(ByteBuffer buffer) {
+				return buffer.getDouble();
+			}
+
+			@Override
+			public void encode(ByteBuffer buffer, Double value) {
+				buffer.putDouble(value);
+			}
+		};
+	}
+
+	/**
+	 * @return a codec of non-null {@code Integer}s
+	 */
+	public static JournalCodec<Integer> integers() {
+		return new JournalCodec<>() {
+			@Override
+			public Integer decode(ByteBuffer buffer) {
+				return buffer.getInt();
+			}
+
+			@Override
+			public void encode(ByteBuffer buffer, Integer value) {
+				buffer.putInt(value);
+			}
+		};
+	}
+
+	/**
+	 * @return a codec of non-null {@code Long}s
+	 */
+	public static JournalCodec<Long> longs() {
+		return new JournalCodec<>() {
+			@Override
+			public Long decode(ByteBuffer buffer) {
+				return buffer.getLong();
+			}
+
+			@Override
+			public void encode(ByteBuffer buffer, Long value) {
+				buffer.putLong(value);
+			}
+		};
+	}
+
+	/**
+	 * @return a codec of {@code String}s in UTF-8, including {@code null}
+	 */
+	public static JournalCodec<String> strings() {
+		return new JournalCodec<>() {
+			@Override
+			public String decode(ByteBuffer buffer) {
+				int length = buffer.getInt();
+				if (length < 0) {
+					return null;
+				}
+				var bytes = new byte[length];
+				buffer.get(bytes);
+				return new String(bytes, StandardCharsets.UTF_8);
+			}
+
+			@Override
+			public void encode(ByteBuffer buffer, String value) {
+				if (value == null) {
+					buffer.putInt(-1);
+					return;
+				}
+				var bytes = value.getBytes(StandardCharsets.UTF_8);
+				buffer.putInt(bytes.length);
+				buffer.put(bytes);
+			}
+		};
+	}
+
+	/**
+	 * Reads a value at the position of {@code buffer} and advances it.
+	 *
+	 * @param buffer the source
+	 * @return the value
+	 */
+	T decode(ByteBuffer buffer);
+
+	/**
+	 * Writes {@code value} at the position of {@code buffer} and advances it.
+	 *
+	 * @param buffer the destination
+	 * @param value  the value
+	 */
+	void encode(ByteBuffer buffer, T value);
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+/**
+ * <p>
+ * How a {@link ListJournal} or {@link MapJournal} writes its log.
+ *
+ * <p>
+ * Every change is appended to a memory-mapped segment file of
+ * {@code segmentSize} bytes, and so reaches the operating system before the
+ * mutation returns. It is forced to the storage device by a background thread
+ * every {@code syncInterval}, together with the changes appended since the
+ * last force; a crash of the machine loses at most that interval. A
+ * {@code syncInterval} of zero forces every change before the mutation
+ * returns.
+ *
+ * <p>
+ * After {@code checkpointInterval} changes the journal writes the whole
+ * collection to a checkpoint file and deletes the segments before it, so that
+ * opening the journal replays at most that many changes. A
+ * {@code checkpointInterval} of zero only writes checkpoints when asked to.
+ *
+ * @param segmentSize        the size of a segment file in bytes
+ * @param syncInterval       the longest time a change stays unforced
+ * @param checkpointInterval the number of changes between two checkpoints
+ */
+public record JournalOptions(int segmentSize, Duration syncInterval, long checkpointInterval) {
+	private static final JournalOptions DEFAULTS = new JournalOptions(64 << 20, Duration.ofMillis(10), 1_000_000);
+
+	/**
+	 * @return 64 MiB segments, forced every 10 milliseconds, and a checkpoint
+	 *         every million changes
+	 */
+	public static JournalOptions defaults() {
+		return DEFAULTS;
+	}
+
+	/**
+	 * @throws NullPointerException     if {@code syncInterval} is {@code null}
+	 * @throws IllegalArgumentException if {@code segmentSize} is less than 4 KiB,
+	 *                                  or {@code syncInterval} or
+	 *                                  {@code checkpointInterval} is negative
+	 */
+	public JournalOptions {
+		requireNonNull(syncInterval);
+		if (segmentSize < 4096) {
+			throw new IllegalArgumentException("Illegal segment size: " + segmentSize);
+		}
+		if (syncInterval.isNegative()) {
+			throw new IllegalArgumentException("Illegal sync interval: " + syncInterval);
+		}
+		if (checkpointInterval < 0) {
+			throw new IllegalArgumentException("Illegal checkpoint interval: " + checkpointInterval);
+		}
+	}
+}
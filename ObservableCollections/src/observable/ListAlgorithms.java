@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.stream.IntStream;
+
+/**
+ * <p>
+ * Algorithms that reorder the contents of an {@link ObservableListImpl} and
+ * keep track of where every element went, so that the list can report the
+ * result as a single permutation.
+ */
+final class ListAlgorithms {
+	private static final int INSERTION_SORT_THRESHOLD = 7;
+	/**
+	 * the length below which {@link #parallelSort(Object[], Comparator)} sorts
+	 * on the calling thread, as {@link java.util.Arrays#parallelSort} does.
+	 */
+	static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+	/**
+	 * the number of elements per bucket below which
+	 * {@link #parallelShuffle(Object[], SplittableGenerator)} shuffles on the
+	 * calling thread.
+	 */
+	static final int PARALLEL_SHUFFLE_THRESHOLD = 1 << 14;
+
+	/**
+	 * <p>
+	 * Sorts one range in a fork/join pool: both halves at the same time, then
+	 * their merge.
+	 */
+	private static final class SortTask<T> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final T[] src;
+		private final int[] srcOrder;
+		private final T[] dest;
+		private final int[] destOrder;
+		private final int low;
+		private final int high;
+		private final Comparator<? super T> c;
+
+		SortTask(T[] src, int[] srcOrder, T[] dest, int[] destOrder, int low, int high, Comparator<? super T> c) {
+			this.src = src;
+			this.srcOrder = srcOrder;
+			this.dest = dest;
+			this.destOrder = destOrder;
+			this.low = low;
+			this.high = high;
+			this.c = c;
+		}
+
+		@Override
+		protected void compute() {
+			if (high - low < PARALLEL_SORT_THRESHOLD) {
+				mergeSort(src, srcOrder, dest, destOrder, low, high, c);
+				return;
+			}
+			int mid = (low + high) >>> 1;
+			invokeAll(new SortTask<>(dest, destOrder, src, srcOrder, low, mid, c),
+					new SortTask<>(dest, destOrder, src, srcOrder, mid, high, c));
+			merge(src, srcOrder, dest, destOrder, low, mid, high, c);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Stable sort of {@code elements}. Returns, for every new position, the
+	 * position the element had before the sort. A {@code null} comparator sorts
+	 * in natural order, as {@link java.util.List#sort(Comparator)} does.
+	 *
+	 * @return the old index of each element, by new index
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> int[] sort(T[] elements, Comparator<? super T> c) {
+		if (c == null) {
+			c = (Comparator<? super T>) Comparator.naturalOrder();
+		}
+		var order = new int[elements.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		var elementsAux = elements.clone();
+		var orderAux = order.clone();
+		mergeSort(elementsAux, orderAux, elements, order, 0, elements.length, c);
+		return order;
+	}
+
+	/**
+	 * <p>
+	 * Like {@link #sort(Object[], Comparator)}, but sorts the halves of ranges
+	 * of at least {@link #PARALLEL_SORT_THRESHOLD} elements in the common
+	 * fork/join pool.
+	 *
+	 * @return the old index of each element, by new index
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> int[] parallelSort(T[] elements, Comparator<? super T> c) {
+		if (elements.length < PARALLEL_SORT_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() == 1) {
+			return sort(elements, c);
+		}
+		if (c == null) {
+			c = (Comparator<? super T>) Comparator.naturalOrder();
+		}
+		var order = new int[elements.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		var elementsAux = elements.clone();
+		var orderAux = order.clone();
+		ForkJoinPool.commonPool().invoke(new SortTask<>(elementsAux, orderAux, elements, order, 0, elements.length, c));
+		return order;
+	}
+
+	/**
+	 * <p>
+	 * Fisher-Yates shuffle of {@code elements}, drawing the same numbers from
+	 * {@code rng} as {@link ObservableList#shuffle} always did.
+	 *
+	 * @return the old index of each element, by new index
+	 */
+	static <T> int[] shuffle(T[] elements, RandomGenerator rng) {
+		var order = new int[elements.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		for (int i = elements.length; i > 1; i--) {
+			swap(elements, order, i - 1, rng.nextInt(i));
+		}
+		return order;
+	}
+
+	/**
+	 * <p>
+	 * Shuffles {@code elements} in the common fork/join pool, with the method
+	 * of Rao and Sandelius: every element is put into one of {@code p} buckets
+	 * at random, and the buckets are laid out one after another and shuffled
+	 * on their own. Every order is as likely as with
+	 * {@link #shuffle(Object[], RandomGenerator)}, though the numbers drawn
+	 * differ. Each part of the work draws from its own
+	 * {@link SplittableGenerator#split() split} of {@code rng}.
+	 *
+	 * @return the old index of each element, by new index
+	 */
+	static <T> int[] parallelShuffle(T[] elements, SplittableGenerator rng) {
+		final int n = elements.length;
+		final int p = Math.min(n / PARALLEL_SHUFFLE_THRESHOLD, ForkJoinPool.getCommonPoolParallelism() * 4);
+		if (p < 2) {
+			return shuffle(elements, rng);
+		}
+		var rngs = new SplittableGenerator[2 * p];
+		for (int i = 0; i < rngs.length; i++) {
+			rngs[i] = rng.split();
+		}
+		// chunk c of the old indices is [c * n / p, (c + 1) * n / p).
+		var buckets = new int[n];
+		var counts = new int[p][p];
+		IntStream.range(0, p).parallel().forEach(c -> {
+			var r = rngs[c];
+			for (int i = chunk(c, n, p), end = chunk(c + 1, n, p); i < end; i++) {
+				counts[c][buckets[i] = r.nextInt(p)]++;
+			}
+		});
+		// bucket b is [bounds[b], bounds[b + 1]); chunk c puts its elements of
+		// bucket b from counts[c][b] on.
+		var bounds = new int[p + 1];
+		for (int b = 0, at = 0; b < p; b++) {
+			bounds[b] = at;
+			for (int c = 0; c < p; c++) {
+				int count = counts[c][b];
+				counts[c][b] = at;
+				at += count;
+			}
+		}
+		bounds[p] = n;
+		var order = new int[n];
+		IntStream.range(0, p).parallel().forEach(c -> {
+			for (int i = chunk(c, n, p), end = chunk(c + 1, n, p); i < end; i++) {
+				order[counts[c][buckets[i]]++] = i;
+			}
+		});
+		IntStream.range(0, p).parallel().forEach(b -> {
+			var r = rngs[p + b];
+			for (int i = bounds[b + 1], from = bounds[b]; i > from + 1; i--) {
+				int j = from + r.nextInt(i - from);
+				int index = order[i - 1];
+				order[i - 1] = order[j];
+				order[j] = index;
+			}
+		});
+		var old = elements.clone();
+		IntStream.range(0, p).parallel().forEach(c -> {
+			for (int i = chunk(c, n, p), end = chunk(c + 1, n, p); i < end; i++) {
+				elements[i] = old[order[i]];
+			}
+		});
+		return order;
+	}
+
+	private static int chunk(int c, int n, int p) {
+		return (int) ((long) c * n / p);
+	}
+
+	/**
+	 * <p>
+	 * Turns the result of {@link #sort(Object[], Comparator)} into the old index
+	 * to new index mapping of {@link ObservableListListener#listElementsPermuted}.
+	 *
+	 * @return the permutation, or {@code null} if no element moved
+	 */
+	static int[] invert(int[] order) {
+		var permutation = new int[order.length];
+		boolean moved = false;
+		for (int i = 0; i < order.length; i++) {
+			permutation[order[i]] = i;
+			moved |= order[i] != i;
+		}
+		return moved ? permutation : null;
+	}
+
+	/**
+	 * <p>
+	 * Merge sort of {@code src} into {@code dest}, moving the indices in
+	 * {@code srcOrder}/{@code destOrder} along with the elements. On entry both
+	 * pairs of arrays hold the same contents in {@code [low, high)}.
+	 */
+	static <T> void mergeSort(T[] src, int[] srcOrder, T[] dest, int[] destOrder, int low, int high,
+			Comparator<? super T> c) {
+		int length = high - low;
+
+		if (length < INSERTION_SORT_THRESHOLD) {
+			for (int i = low + 1; i < high; i++) {
+				for (int j = i; j > low && c.compare(dest[j - 1], dest[j]) > 0; j--) {
+					swap(dest, destOrder, j, j - 1);
+				}
+			}
+			return;
+		}
+
+		int mid = (low + high) >>> 1;
+		mergeSort(dest, destOrder, src, srcOrder, low, mid, c);
+		mergeSort(dest, destOrder, src, srcOrder, mid, high, c);
+		merge(src, srcOrder, dest, destOrder, low, mid, high, c);
+	}
+
+	/**
+	 * <p>
+	 * Merges the sorted runs {@code src[low, mid)} and {@code src[mid, high)} into
+	 * {@code dest[low, high)}. Equal elements keep their order.
+	 */
+	static <T> void merge(T[] src, int[] srcOrder, T[] dest, int[] destOrder, int low, int mid, int high,
+			Comparator<? super T> c) {
+		if (c.compare(src[mid - 1], src[mid]) <= 0) {
+			System.arraycopy(src, low, dest, low, high - low);
+			System.arraycopy(srcOrder, low, destOrder, low, high - low);
+			return;
+		}
+
+		for (int i = low, p = low, q = mid; i < high; i++) {
+			if (q >= high || p < mid && c.compare(src[p], src[q]) <= 0) {
+				dest[i] = src[p];
+				destOrder[i] = srcOrder[p++];
+			} else {
+				dest[i] = src[q];
+				destOrder[i] = srcOrder[q++];
+			}
+		}
+	}
+
+	private static <T> void swap(T[] elements, int[] order, int i, int j) {
+		var element = elements[i];
+		elements[i] = elements[j];
+		elements[j] = element;
+		var index = order[i];
+		order[i] = order[j];
+		order[j] = index;
+	}
+
+	private ListAlgorithms() {
+	}
+}
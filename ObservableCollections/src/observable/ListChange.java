@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.List;
+
+/**
+ * <p>
+ * One part of a compound change of an {@link ObservableList}. At index
+ * {@code from}, the elements in {@code removed} were replaced by the
+ * {@code addedSize} elements that are now at
+ * {@code from ... from + addedSize - 1}.
+ *
+ * <p>
+ * The parts of a compound change are ordered by {@code from}, do not overlap,
+ * and their indices refer to the list after the whole change. Applying them in
+ * order to the old contents yields the new contents, so a listener can read
+ * the added elements from the list while it walks the parts.
+ *
+ * @param from      the index of the first changed element
+ * @param removed   the elements that were removed, in their old order
+ * @param addedSize the number of elements that were added at {@code from}
+ *
+ * @see ObservableListListener#listElementsChanged(ObservableList, List)
+ */
+public record ListChange(int from, List<?> removed, int addedSize) {
+	/**
+	 *
+	 * @return the index after the last added element.
+	 */
+	public int to() {
+		return from + addedSize;
+	}
+
+	/**
+	 *
+	 * @return {@code true} if elements were added.
+	 */
+	public boolean wasAdded() {
+		return addedSize != 0;
+	}
+
+	/**
+	 *
+	 * @return {@code true} if elements were removed.
+	 */
+	public boolean wasRemoved() {
+		return !removed.isEmpty();
+	}
+
+	/**
+	 *
+	 * @return {@code true} if the removed elements were replaced by the same
+	 *         number of elements.
+	 */
+	public boolean wasReplaced() {
+		return removed.size() == addedSize;
+	}
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>
+ * Coalesces a sequence of list notifications into the parts of one compound
+ * change. The parts are kept sorted, disjoint and in the coordinates of the
+ * current list, so that an add followed by a removal of the same elements
+ * cancels out and adjacent ranges merge.
+ *
+ * <p>
+ * The parts are the nodes of a treap in list order. A part does not hold its
+ * index but the number of untouched elements between the previous part and
+ * itself, and every node the length of the list its subtree spans; so a change
+ * moves the parts after it without visiting them, and finding the part of an
+ * index, adding a part or merging the parts that a removal touches costs
+ * {@code O(log n)} for {@code n} parts. The removed elements of a part grow at
+ * both ends, and parts that merge keep the elements of the largest one, so a
+ * run of removals of neighbouring elements costs {@code O(1)} each.
+ *
+ * @see ListChange
+ */
+final class ListChangeBuilder {
+	/**
+	 * <p>
+	 * The removed elements of a part: {@code front} in reverse order, then
+	 * {@code back}.
+	 */
+	private static final class Removed {
+		final ArrayList<Object> front = new ArrayList<>();
+		final ArrayList<Object> back = new ArrayList<>();
+
+		void append(Object piece) {
+			if (piece instanceof Removed removed) {
+				for (int i = removed.front.size() - 1; i >= 0; i--) {
+					back.add(removed.front.get(i));
+				}
+				back.addAll(removed.back);
+			} else {
+				back.addAll((List<?>) piece);
+			}
+		}
+
+		void prepend(Object piece) {
+			if (piece instanceof Removed removed) {
+				for (int i = removed.back.size() - 1; i >= 0; i--) {
+					front.add(removed.back.get(i));
+				}
+				front.addAll(removed.front);
+			} else {
+				var elements = (List<?>) piece;
+				for (var it = elements.listIterator(elements.size()); it.hasPrevious();) {
+					front.add(it.previous());
+				}
+			}
+		}
+
+		int size() {
+			return front.size() + back.size();
+		}
+
+		List<Object> toList() {
+			var list = new ArrayList<Object>(size());
+			for (int i = front.size() - 1; i >= 0; i--) {
+				list.add(front.get(i));
+			}
+			list.addAll(back);
+			return list;
+		}
+	}
+
+	private static final class Part {
+		/**
+		 * the number of untouched elements between the end of the previous part,
+		 * or the start of the list, and this part.
+		 */
+		int gap;
+		int added;
+		final Removed removed;
+		final int priority = ThreadLocalRandom.current().nextInt();
+		Part left;
+		Part right;
+		/**
+		 * the sum of {@code gap + added} over this subtree.
+		 */
+		int span;
+		/**
+		 * the index of this part, only while a removal merges it.
+		 */
+		int from;
+
+		Part(int gap, int added, Removed removed) {
+			this.gap = gap;
+			this.added = added;
+			this.removed = removed;
+			span = gap + added;
+		}
+	}
+
+	private Part root;
+	/**
+	 * the results of {@link #split(Part, int, int, boolean)}.
+	 */
+	private Part splitLeft;
+	private Part splitRight;
+
+	private static int span(Part part) {
+		return part == null ? 0 : part.span;
+	}
+
+	private static Part update(Part part) {
+		part.span = span(part.left) + part.gap + part.added + span(part.right);
+		return part;
+	}
+
+	private static Part merge(Part left, Part right) {
+		if (left == null) {
+			return right;
+		} else if (right == null) {
+			return left;
+		} else if (left.priority > right.priority) {
+			left.right = merge(left.right, right);
+			return update(left);
+		} else {
+			right.left = merge(left, right.left);
+			return update(right);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Splits {@code part} into the parts that start at or before {@code index},
+	 * or with {@code byEnd} the parts that end before {@code index}, and the
+	 * others.
+	 *
+	 * @param base the index where the span of {@code part} starts
+	 */
+	private void split(Part part, int base, int index, boolean byEnd) {
+		if (part == null) {
+			splitLeft = null;
+			splitRight = null;
+			return;
+		}
+		int from = base + span(part.left) + part.gap;
+		if (byEnd ? from + part.added < index : from <= index) {
+			split(part.right, from + part.added, index, byEnd);
+			part.right = splitLeft;
+			splitLeft = update(part);
+		} else {
+			split(part.left, base, index, byEnd);
+			part.left = splitRight;
+			splitRight = update(part);
+		}
+	}
+
+	private static void addToGapOfFirst(Part part, int delta) {
+		if (part.left != null) {
+			addToGapOfFirst(part.left, delta);
+		} else {
+			part.gap += delta;
+		}
+		update(part);
+	}
+
+	private static void addToLast(Part part, int length) {
+		if (part.right != null) {
+			addToLast(part.right, length);
+		} else {
+			part.added += length;
+		}
+		update(part);
+	}
+
+	/**
+	 * @param base the index where the span of {@code part} starts
+	 */
+	private static void collect(Part part, int base, List<Part> parts) {
+		if (part == null) {
+			return;
+		}
+		collect(part.left, base, parts);
+		part.from = base + span(part.left) + part.gap;
+		parts.add(part);
+		collect(part.right, part.from + part.added, parts);
+	}
+
+	void added(int index, int length) {
+		if (length == 0) {
+			return;
+		}
+		split(root, 0, index, false);
+		var before = splitLeft;
+		var after = splitRight;
+		int end = span(before);
+		if (before != null && index <= end) {
+			addToLast(before, length);
+			root = merge(before, after);
+		} else {
+			var part = new Part(index - end, length, new Removed());
+			if (after != null) {
+				addToGapOfFirst(after, -part.gap);
+			}
+			root = merge(merge(before, part), after);
+		}
+	}
+
+	void removed(int index, List<?> oldElements) {
+		final int length = oldElements.size();
+		if (length == 0) {
+			return;
+		}
+		final int end = index + length;
+
+		// the parts that touch [index, end]
+		split(root, 0, index, true);
+		var before = splitLeft;
+		int start = span(before);
+		split(splitRight, start, end, false);
+		var touched = new ArrayList<Part>();
+		collect(splitLeft, start, touched);
+		int touchedSpan = span(splitLeft);
+		var after = splitRight;
+
+		var pieces = new ArrayList<Object>();
+		int from = index;
+		int added = 0;
+		int cursor = index;
+		for (var part : touched) {
+			if (cursor < part.from) {
+				// untouched elements between the parts were in the old list
+				pieces.add(oldElements.subList(cursor - index, part.from - index));
+			}
+			pieces.add(part.removed);
+			from = Math.min(from, part.from);
+			int overlap = Math.min(part.from + part.added, end) - Math.max(part.from, index);
+			added += part.added - Math.max(overlap, 0);
+			cursor = Math.max(cursor, part.from + part.added);
+		}
+		if (cursor < end) {
+			pieces.add(oldElements.subList(cursor - index, length));
+		}
+
+		// grow the largest of the removed elements by the others
+		int largest = -1;
+		for (int i = 0; i < pieces.size(); i++) {
+			if (pieces.get(i) instanceof Removed removed
+					&& (largest < 0 || removed.size() > ((Removed) pieces.get(largest)).size())) {
+				largest = i;
+			}
+		}
+		var removed = largest < 0 ? new Removed() : (Removed) pieces.get(largest);
+		for (int i = largest - 1; i >= 0; i--) {
+			removed.prepend(pieces.get(i));
+		}
+		for (int i = largest + 1; i < pieces.size(); i++) {
+			removed.append(pieces.get(i));
+		}
+
+		Part part = null;
+		int newEnd = start;
+		if (removed.size() != 0 || added != 0) {
+			part = new Part(from - start, added, removed);
+			newEnd = from + added;
+		}
+		if (after != null) {
+			addToGapOfFirst(after, start + touchedSpan - length - newEnd);
+		}
+		root = merge(merge(before, part), after);
+	}
+
+	void replaced(int index, Object oldElement) {
+		removed(index, Collections.singletonList(oldElement));
+		added(index, 1);
+	}
+
+	/**
+	 * <p>
+	 * Records a change of a property of {@code element}. The element is reported
+	 * as replaced by itself, unless it was added during this change.
+	 */
+	void propertyChanged(int index, Object element) {
+		// the end of the last part that starts at or before index
+		int end = -1;
+		int base = 0;
+		for (var part = root; part != null;) {
+			int from = base + span(part.left) + part.gap;
+			if (from <= index) {
+				end = from + part.added;
+				base = end;
+				part = part.right;
+			} else {
+				part = part.left;
+			}
+		}
+		if (index < end) {
+			return;
+		}
+		replaced(index, element);
+	}
+
+	boolean isEmpty() {
+		return root == null;
+	}
+
+	List<ListChange> build() {
+		var parts = new ArrayList<Part>();
+		collect(root, 0, parts);
+		var changes = new ArrayList<ListChange>(parts.size());
+		for (var part : parts) {
+			changes.add(new ListChange(part.from, Collections.unmodifiableList(part.removed.toList()), part.added));
+		}
+		return Collections.unmodifiableList(changes);
+	}
+}
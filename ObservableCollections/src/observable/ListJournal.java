@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * An {@link ObservableList} whose changes are appended to a durable log as
+ * they happen, so that the list can be rebuilt after a restart or a crash
+ * without writing it out as a whole.
+ *
+ * <p>
+ * {@link #open(Path, JournalCodec, JournalOptions)} rebuilds the list from the
+ * newest checkpoint in the directory and the changes logged after it, and
+ * logs every later change of {@link #list()} in a compact binary form: the
+ * elements that a change adds or sets are encoded with the codec, removed
+ * elements are only counted. {@link JournalOptions} decides how long a change
+ * may stay unforced and how often a checkpoint is written.
+ *
+ * <pre>
+ * try (var journal = ListJournal.open(directory, JournalCodec.strings())) {
+ * 	var list = journal.list();
+ * 	list.add("survives a restart");
+ * }
+ * </pre>
+ *
+ * <p>
+ * Like the list itself, the journal is not thread-safe; it must be changed and
+ * checkpointed on one thread at a time. Only {@link #sync()} may be called
+ * from any thread.
+ *
+ * @param <E> element type
+ *
+ * @see MapJournal
+ */
+public final class ListJournal<E> implements Closeable {
+	private class Recorder implements ObservableListListener<E>, Journal.Target {
+		@Override
+		public void apply(ByteBuffer record) {
+			switch (record.get()) {
+			case ADD -> {
+				int index = record.getInt();
+				contents.addAll(index, decode(record, record.getInt()));
+			}
+			case REMOVE -> {
+				int index = record.getInt();
+				contents.subList(index, index + record.getInt()).clear();
+			}
+			case SET -> {
+				int index = record.getInt();
+				contents.set(index, codec.decode(record));
+			}
+			case PERMUTE -> {
+				int from = record.getInt();
+				var permuted = contents.subList(from, from + record.getInt());
+				var oldElements = new ArrayList<>(permuted);
+				for (var e : oldElements) {
+					permuted.set(record.getInt(), e);
+				}
+			}
+			case CHANGE -> {
+				for (int i = record.getInt(); i > 0; i--) {
+					int from = record.getInt();
+					contents.subList(from, from + record.getInt()).clear();
+					contents.addAll(from, decode(record, record.getInt()));
+				}
+			}
+			default -> throw new IllegalStateException("unknown record type");
+			}
+		}
+
+		@Override
+		public void listElementPropertyChanged(ObservableList<? super E> list, int index) {
+			set(index);
+		}
+
+		@Override
+		public void listElementReplaced(ObservableList<? super E> list, int index, Object oldElement) {
+			set(index);
+		}
+
+		@Override
+		public void listElementsAdded(ObservableList<? super E> list, int index, int length) {
+			journal.append(out -> {
+				out.putByte(ADD);
+				out.putInt(index);
+				out.putInt(length);
+				encode(out, index, length);
+			});
+		}
+
+		@Override
+		public void listElementsChanged(ObservableList<? super E> list, List<ListChange> changes) {
+			journal.append(out -> {
+				out.putByte(CHANGE);
+				out.putInt(changes.size());
+				for (var change : changes) {
+					out.putInt(change.from());
+					out.putInt(change.removed().size());
+					out.putInt(change.addedSize());
+					encode(out, change.from(), change.addedSize());
+				}
+			});
+		}
+
+		@Override
+		public void listElementsPermuted(ObservableList<? super E> list, int from, int[] permutation) {
+			journal.append(out -> {
+				out.putByte(PERMUTE);
+				out.putInt(from);
+				out.putInt(permutation.length);
+				for (var to : permutation) {
+					out.putInt(to);
+				}
+			});
+		}
+
+		@Override
+		public void listElementsRemoved(ObservableList<? super E> list, int index, List<? super E> oldElements) {
+			int length = oldElements.size();
+			journal.append(out -> {
+				out.putByte(REMOVE);
+				out.putInt(index);
+				out.putInt(length);
+			});
+		}
+
+		@Override
+		public void restore(ByteBuffer snapshot) {
+			contents.clear();
+			contents.addAll(decode(snapshot, snapshot.getInt()));
+		}
+
+		@Override
+		public void save(Journal.Encoder out) {
+			out.putInt(contents.size());
+			for (var e : contents) {
+				out.put(codec, e);
+			}
+		}
+
+		private void set(int index) {
+			journal.append(out -> {
+				out.putByte(SET);
+				out.putInt(index);
+				out.put(codec, contents.get(index));
+			});
+		}
+	}
+
+	private static final byte ADD = 1;
+	private static final byte REMOVE = 2;
+	private static final byte SET = 3;
+	private static final byte PERMUTE = 4;
+	private static final byte CHANGE = 5;
+
+	/**
+	 * Opens the journal in {@code directory} with the
+	 * {@linkplain JournalOptions#defaults() default options}.
+	 *
+	 * @param <E>       element type
+	 * @param directory the directory of the log, created if necessary
+	 * @param codec     encodes the elements
+	 * @return the journal
+	 * @throws IOException if the log cannot be read or written
+	 */
+	public static <E> ListJournal<E> open(Path directory, JournalCodec<E> codec) throws IOException {
+		return open(directory, codec, JournalOptions.defaults());
+	}
+
+	/**
+	 * Opens the journal in {@code directory} and rebuilds its list.
+	 *
+	 * @param <E>       element type
+	 * @param directory the directory of the log, created if necessary
+	 * @param codec     encodes the elements
+	 * @param options   how the log is written
+	 * @return the journal
+	 * @throws IOException if the log cannot be read or written
+	 */
+	public static <E> ListJournal<E> open(Path directory, JournalCodec<E> codec, JournalOptions options)
+			throws IOException {
+		return new ListJournal<>(requireNonNull(directory), requireNonNull(codec), requireNonNull(options));
+	}
+
+	private final JournalCodec<E> codec;
+	private final List<E> contents;
+	private final ObservableList<E> list;
+	private final Recorder recorder;
+	private final Journal journal;
+
+	private ListJournal(Path directory, JournalCodec<E> codec, JournalOptions options) throws IOException {
+		this.codec = codec;
+		contents = new ArrayList<>();
+		recorder = new Recorder();
+		journal = Journal.open(directory, options, recorder);
+		list = ObservableCollections.observableList(contents);
+		list.addObservableListListener(recorder);
+	}
+
+	/**
+	 * Writes the whole list to a checkpoint and deletes the log before it.
+	 *
+	 * @throws IOException if the checkpoint cannot be written
+	 */
+	public void checkpoint() throws IOException {
+		journal.checkpoint();
+	}
+
+	/**
+	 * Stops logging the changes of the list and forces the log.
+	 */
+	@Override
+	public void close() throws IOException {
+		list.removeObservableListListener(recorder);
+		journal.close();
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<E> decode(ByteBuffer buffer, int length) {
+		var elements = new Object[length];
+		for (int i = 0; i < length; i++) {
+			elements[i] = codec.decode(buffer);
+		}
+		return (List<E>) Arrays.asList(elements);
+	}
+
+	private void encode(Journal.Encoder out, int index, int length) {
+		var it = contents.listIterator(index);
+		for (int i = 0; i < length; i++) {
+			out.put(codec, it.next());
+		}
+	}
+
+	/**
+	 * <p>
+	 * The list whose changes are logged. A change throws
+	 * {@link java.io.UncheckedIOException} if it cannot be logged; the list has
+	 * changed nevertheless.
+	 *
+	 * @return the list
+	 */
+	public ObservableList<E> list() {
+		return list;
+	}
+
+	/**
+	 * Forces the changes logged so far to the storage device.
+	 */
+	public void sync() {
+		journal.force();
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * <p>
+ * One call of a listener of an instrumented collection. Its duration is the
+ * time the listener took.
+ *
+ * @see ObservableMetrics
+ */
+@Name("observable.ListenerDispatch")
+@Label("Observable Collection Listener Dispatch")
+@Category("Observable Collections")
+@Description("A call of a listener of an observable collection")
+final class ListenerDispatchEvent extends Event {
+	@Label("Collection Class")
+	Class<?> collectionClass;
+
+	@Label("Collection Identity")
+	@Description("The identity hash code of the collection")
+	int collectionId;
+
+	@Label("Listener Class")
+	@Description("The class of the listener, or of the listener a weak listener refers to")
+	Class<?> listenerClass;
+
+	@Label("Notification")
+	@Description("The name of the listener method")
+	String kind;
+
+	@Label("Element Count")
+	int elementCount;
+
+	/**
+	 * the {@link System#nanoTime()} of the start of the call, for
+	 * {@link ObservableMetrics}; not recorded.
+	 */
+	transient long start;
+}
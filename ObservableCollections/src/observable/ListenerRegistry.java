@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * The listeners of an observable collection. Registering and unregistering a
+ * listener costs a hash lookup instead of a copy of all the others, and
+ * {@link #array()} hands out an array of the listeners that is only rebuilt
+ * after they have changed, so that notifying them allocates nothing.
+ *
+ * <p>
+ * A {@link WeakListener} whose listener has been collected is purged together
+ * with all others collected since, as soon as the registry is used next;
+ * dispatch no longer has to reach it first.
+ *
+ * <p>
+ * Like a {@link java.util.concurrent.CopyOnWriteArrayList}, the array that a
+ * notification walks is not affected by listeners that are registered or
+ * unregistered meanwhile, and a listener may be registered more than once.
+ *
+ * <p>
+ * The registry of an instrumented collection hands out, while
+ * {@linkplain ObservableMetrics#isEnabled() instrumentation is enabled},
+ * {@link InstrumentedListener}s in place of the listeners, and counts every
+ * call of {@link #notifying()} as a mutation. {@link #find(Predicate)} looks
+ * up the registered listeners themselves.
+ *
+ * @param <L> the type of the listeners
+ */
+final class ListenerRegistry<L> {
+	/**
+	 * <p>
+	 * A registration. If the listener is a {@link WeakListener}, the slot also
+	 * refers to the listener that it wraps, and is queued when that one is
+	 * collected.
+	 */
+	private static final class Slot extends WeakReference<Object> {
+		final Object listener;
+		/**
+		 * the position in {@link ListenerRegistry#slots}, {@code -1} once it is
+		 * unregistered.
+		 */
+		int index;
+		/**
+		 * the next registration of an equal listener.
+		 */
+		Slot next;
+
+		Slot(Object listener, Object referent, ReferenceQueue<Object> queue, int index) {
+			super(referent, queue);
+			this.listener = listener;
+			this.index = index;
+		}
+	}
+
+	private final Class<? super L> type;
+	/**
+	 * the registrations in order, with {@code null} where one was unregistered.
+	 */
+	private Slot[] slots;
+	/**
+	 * the length of the used part of {@link #slots}.
+	 */
+	private int end;
+	/**
+	 * the first registration of each listener.
+	 */
+	private final HashMap<Object, Slot> index;
+	private final ReferenceQueue<Object> collected;
+	private volatile int size;
+	/**
+	 * the listeners in order, {@code null} if they have changed since it was
+	 * built.
+	 */
+	private volatile L[] array;
+	/**
+	 * the metrics of the collection, {@code null} if it is not instrumented.
+	 */
+	private final ObservableMetrics metrics;
+	/**
+	 * wraps a listener in an {@link InstrumentedListener}.
+	 */
+	private final BiFunction<L, ObservableMetrics, L> instrument;
+	/**
+	 * {@link #array} and its {@link InstrumentedListener}s, {@code null} until
+	 * they are first needed.
+	 */
+	private volatile Object[][] instrumented;
+
+	/**
+	 * @param type the type of the listeners, for {@link #array()}
+	 */
+	ListenerRegistry(Class<? super L> type) {
+		this(type, null, null);
+	}
+
+	/**
+	 * @param type       the type of the listeners, for {@link #array()}
+	 * @param metrics    the metrics of the collection
+	 * @param instrument wraps a listener in an {@link InstrumentedListener}
+	 */
+	ListenerRegistry(Class<? super L> type, ObservableMetrics metrics, BiFunction<L, ObservableMetrics, L> instrument) {
+		this.type = type;
+		slots = new Slot[4];
+		index = new HashMap<>();
+		collected = new ReferenceQueue<>();
+		array = newArray(0);
+		this.metrics = metrics;
+		this.instrument = instrument;
+	}
+
+	synchronized void add(L listener) {
+		purge();
+		if (end == slots.length) {
+			slots = end < 2 * size ? Arrays.copyOf(slots, end * 2) : compact(slots.length);
+		}
+		var slot = new Slot(listener, referent(listener), collected, end);
+		slots[end++] = slot;
+		var first = index.putIfAbsent(listener, slot);
+		if (first != null) {
+			while (first.next != null) {
+				first = first.next;
+			}
+			first.next = slot;
+		}
+		size++;
+		array = null;
+	}
+
+	/**
+	 * <p>
+	 * Returns the listeners in the order they were registered, to notify them.
+	 * The array must not be modified; it stays the same until the listeners
+	 * change. While the collection is instrumented, it holds their
+	 * {@link InstrumentedListener}s instead.
+	 */
+	L[] array() {
+		var listeners = listeners();
+		if (metrics == null || listeners.length == 0 || !ObservableMetrics.isEnabled()) {
+			return listeners;
+		}
+		var instrumented = this.instrumented;
+		if (instrumented == null || instrumented[0] != listeners) {
+			var a = newArray(listeners.length);
+			for (int i = 0; i < a.length; i++) {
+				a[i] = instrument.apply(listeners[i], metrics);
+			}
+			this.instrumented = instrumented = new Object[][] { listeners, a };
+		}
+		@SuppressWarnings("unchecked")
+		var a = (L[]) instrumented[1];
+		return a;
+	}
+
+	/**
+	 * <p>
+	 * Returns the listeners to notify of one mutation, like {@link #array()},
+	 * and counts that mutation while the collection is instrumented. A mutation
+	 * that sends several notifications calls it once and sends them all to the
+	 * array it returns.
+	 */
+	L[] notifying() {
+		var listeners = array();
+		if (metrics != null && listeners.length != 0 && ObservableMetrics.isEnabled()) {
+			metrics.mutated(listeners.length);
+		}
+		return listeners;
+	}
+
+	/**
+	 * @return the first registered listener that matches {@code predicate}, or
+	 *         {@code null}; never an {@link InstrumentedListener}
+	 */
+	L find(Predicate<? super L> predicate) {
+		for (var listener : listeners()) {
+			if (predicate.test(listener)) {
+				return listener;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the listeners, in the order they were registered
+	 */
+	private L[] listeners() {
+		var listeners = array;
+		var slot = collected.poll();
+		if (listeners != null && slot == null) {
+			return listeners;
+		}
+		synchronized (this) {
+			if (slot != null) {
+				unregister((Slot) slot);
+				purge();
+			}
+			if (array == null) {
+				var a = newArray(size);
+				for (int i = 0, j = 0; i < end; i++) {
+					if (slots[i] != null) {
+						a[j++] = listener(slots[i]);
+					}
+				}
+				array = a;
+			}
+			return array;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Moves the registrations to the front of a new array of
+	 * {@code capacity}.
+	 */
+	private Slot[] compact(int capacity) {
+		var compacted = new Slot[capacity];
+		int j = 0;
+		for (int i = 0; i < end; i++) {
+			var slot = slots[i];
+			if (slot != null) {
+				slot.index = j;
+				compacted[j++] = slot;
+			}
+		}
+		end = j;
+		return compacted;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <L> L listener(Slot slot) {
+		return (L) slot.listener;
+	}
+
+	@SuppressWarnings("unchecked")
+	private L[] newArray(int length) {
+		return (L[]) Array.newInstance(type, length);
+	}
+
+	/**
+	 * <p>
+	 * Unregisters the weak listeners whose listener has been collected.
+	 */
+	private void purge() {
+		for (Object slot; (slot = collected.poll()) != null;) {
+			unregister((Slot) slot);
+		}
+	}
+
+	/**
+	 * @return the listener that {@code listener} refers to weakly, possibly
+	 *         through the adapters of this package, or {@code null}
+	 */
+	static Object referent(Object listener) {
+		if (listener instanceof FilteredListListener<?> filtered) {
+			return referent(filtered.target);
+		} else if (listener instanceof UnmodifiableObservableListImpl<?>.Presenter presenter) {
+			return referent(presenter.target);
+		} else if (listener instanceof WeakListener.List<?> weak) {
+			return weak.ref.get();
+		} else if (listener instanceof WeakListener.Map<?, ?> weak) {
+			return weak.ref.get();
+		} else if (listener instanceof WeakListener.Set<?> weak) {
+			return weak.ref.get();
+		} else if (listener instanceof WeakListener.IntList weak) {
+			return weak.ref.get();
+		} else if (listener instanceof WeakListener.LongList weak) {
+			return weak.ref.get();
+		} else if (listener instanceof WeakListener.DoubleList weak) {
+			return weak.ref.get();
+		}
+		return null;
+	}
+
+	/**
+	 * <p>
+	 * Unregisters the first registration of {@code listener}.
+	 *
+	 * @return {@code false} if it was not registered
+	 */
+	synchronized boolean remove(Object listener) {
+		purge();
+		var slot = index.get(listener);
+		if (slot == null) {
+			return false;
+		}
+		unregister(slot);
+		return true;
+	}
+
+	private void unregister(Slot slot) {
+		if (slot.index < 0) {
+			return;
+		}
+		var first = index.get(slot.listener);
+		if (first == slot) {
+			if (slot.next == null) {
+				index.remove(slot.listener);
+			} else {
+				index.put(slot.listener, slot.next);
+			}
+		} else {
+			while (first.next != slot) {
+				first = first.next;
+			}
+			first.next = slot.next;
+		}
+		slots[slot.index] = null;
+		slot.index = -1;
+		slot.clear();
+		size--;
+		array = null;
+		if (end > 16 && size < end / 4) {
+			slots = compact(Math.max(size * 2, 4));
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Coalesces a sequence of map notifications into the net change of every key
+ * involved: a key that was added and removed again disappears, and a key whose
+ * value changed several times is reported once with the value it had before
+ * the first change.
+ *
+ * @see ListChangeBuilder
+ */
+final class MapChangeBuilder {
+	private static final Object ABSENT = new Object();
+
+	private static final class Delta {
+		/**
+		 * the value before the first recorded change, or {@link #ABSENT}.
+		 */
+		final Object before;
+		boolean present;
+
+		Delta(Object before) {
+			this.before = before;
+		}
+	}
+
+	private final LinkedHashMap<Object, Delta> deltas = new LinkedHashMap<>();
+
+	private Delta delta(Object key, Object before) {
+		var delta = deltas.get(key);
+		if (delta == null) {
+			delta = new Delta(before);
+			deltas.put(key, delta);
+		}
+		return delta;
+	}
+
+	void keyAdded(Object key) {
+		delta(key, ABSENT).present = true;
+	}
+
+	void keyRemoved(Object key, Object value) {
+		delta(key, value).present = false;
+	}
+
+	void keyValueChanged(Object key, Object lastValue) {
+		delta(key, lastValue).present = true;
+	}
+
+	void keysAdded(Collection<?> keys) {
+		for (var key : keys) {
+			keyAdded(key);
+		}
+	}
+
+	void keysRemoved(Map<?, ?> entries) {
+		for (var entry : entries.entrySet()) {
+			keyRemoved(entry.getKey(), entry.getValue());
+		}
+	}
+
+	void valuesChanged(Map<?, ?> lastValues) {
+		for (var entry : lastValues.entrySet()) {
+			keyValueChanged(entry.getKey(), entry.getValue());
+		}
+	}
+
+	boolean isEmpty() {
+		return deltas.isEmpty();
+	}
+
+	/**
+	 * <p>
+	 * Sends the net change to {@code listener} as at most one
+	 * {@link ObservableMapListener#mapKeysRemoved mapKeysRemoved}, one
+	 * {@link ObservableMapListener#mapKeysAdded mapKeysAdded} and one
+	 * {@link ObservableMapListener#mapValuesChanged mapValuesChanged}.
+	 *
+	 * @return {@code false} if the changes cancelled each other out
+	 */
+	<K, V> boolean fire(ObservableMap<? extends K, ? extends V> map, ObservableMapListener<K, V> listener) {
+		var added = new ArrayList<Object>();
+		var removed = new ArrayList<Map.Entry<Object, Object>>();
+		var changed = new ArrayList<Map.Entry<Object, Object>>();
+		for (var entry : deltas.entrySet()) {
+			var delta = entry.getValue();
+			if (delta.before == ABSENT) {
+				if (delta.present) {
+					added.add(entry.getKey());
+				}
+			} else if (delta.present) {
+				changed.add(new SimpleImmutableEntry<>(entry.getKey(), delta.before));
+			} else {
+				removed.add(new SimpleImmutableEntry<>(entry.getKey(), delta.before));
+			}
+		}
+		if (!removed.isEmpty()) {
+			listener.mapKeysRemoved(map, new EntryListMap<>(removed));
+		}
+		if (!added.isEmpty()) {
+			listener.mapKeysAdded(map, Collections.unmodifiableList(added));
+		}
+		if (!changed.isEmpty()) {
+			listener.mapValuesChanged(map, new EntryListMap<>(changed));
+		}
+		return !removed.isEmpty() || !added.isEmpty() || !changed.isEmpty();
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * An {@link ObservableMap} whose changes are appended to a durable log as they
+ * happen, so that the map can be rebuilt after a restart or a crash without
+ * writing it out as a whole.
+ *
+ * <p>
+ * {@link #open(Path, JournalCodec, JournalCodec, JournalOptions)} rebuilds the
+ * map from the newest checkpoint in the directory and the changes logged after
+ * it, and logs every later change of {@link #map()}: a key with its new value
+ * when it is added or its value changes, only the key when it is removed, and
+ * a single record when the map is cleared.
+ *
+ * <p>
+ * Like the map itself, the journal is not thread-safe; it must be changed and
+ * checkpointed on one thread at a time. Only {@link #sync()} may be called
+ * from any thread.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ *
+ * @see ListJournal
+ */
+public final class MapJournal<K, V> implements Closeable {
+	private class Recorder implements ObservableMapListener<K, V>, Journal.Target {
+		@Override
+		public void apply(ByteBuffer record) {
+			switch (record.get()) {
+			case PUT -> {
+				var key = keyCodec.decode(record);
+				contents.put(key, valueCodec.decode(record));
+			}
+			case REMOVE -> contents.remove(keyCodec.decode(record));
+			case CLEAR -> contents.clear();
+			default -> throw new IllegalStateException("unknown record type");
+			}
+		}
+
+		@Override
+		public void mapCleared(ObservableMap<? extends K, ? extends V> map, Map<?, ?> oldEntries) {
+			journal.append(out -> out.putByte(CLEAR));
+		}
+
+		@Override
+		public void mapKeyAdded(ObservableMap<? extends K, ? extends V> map, Object key) {
+			put(key);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void mapKeyRemoved(ObservableMap<? extends K, ? extends V> map, Object key, Object value) {
+			journal.append(out -> {
+				out.putByte(REMOVE);
+				out.put(keyCodec, (K) key);
+			});
+		}
+
+		@Override
+		public void mapKeyValueChanged(ObservableMap<? extends K, ? extends V> map, Object key, Object lastValue) {
+			put(key);
+		}
+
+		@SuppressWarnings("unchecked")
+		private void put(Object key) {
+			journal.append(out -> {
+				out.putByte(PUT);
+				out.put(keyCodec, (K) key);
+				out.put(valueCodec, contents.get(key));
+			});
+		}
+
+		@Override
+		public void restore(ByteBuffer snapshot) {
+			contents.clear();
+			for (int i = snapshot.getInt(); i > 0; i--) {
+				var key = keyCodec.decode(snapshot);
+				contents.put(key, valueCodec.decode(snapshot));
+			}
+		}
+
+		@Override
+		public void save(Journal.Encoder out) {
+			out.putInt(contents.size());
+			for (var entry : contents.entrySet()) {
+				out.put(keyCodec, entry.getKey());
+				out.put(valueCodec, entry.getValue());
+			}
+		}
+	}
+
+	private static final byte PUT = 1;
+	private static final byte REMOVE = 2;
+	private static final byte CLEAR = 3;
+
+	/**
+	 * Opens the journal in {@code directory} with the
+	 * {@linkplain JournalOptions#defaults() default options}.
+	 *
+	 * @param <K>        key type
+	 * @param <V>        value type
+	 * @param directory  the directory of the log, created if necessary
+	 * @param keyCodec   encodes the keys
+	 * @param valueCodec encodes the values
+	 * @return the journal
+	 * @throws IOException if the log cannot be read or written
+	 */
+	public static <K, V> MapJournal<K, V> open(Path directory, JournalCodec<K> keyCodec, JournalCodec<V> valueCodec)
+			throws IOException {
+		return open(directory, keyCodec, valueCodec, JournalOptions.defaults());
+	}
+
+	/**
+	 * Opens the journal in {@code directory} and rebuilds its map.
+	 *
+	 * @param <K>        key type
+	 * @param <V>        value type
+	 * @param directory  the directory of the log, created if necessary
+	 * @param keyCodec   encodes the keys
+	 * @param valueCodec encodes the values
+	 * @param options    how the log is written
+	 * @return the journal
+	 * @throws IOException if the log cannot be read or written
+	 */
+	public static <K, V> MapJournal<K, V> open(Path directory, JournalCodec<K> keyCodec, JournalCodec<V> valueCodec,
+			JournalOptions options) throws IOException {
+		return new MapJournal<>(requireNonNull(directory), requireNonNull(keyCodec), requireNonNull(valueCodec),
+				requireNonNull(options));
+	}
+
+	private final JournalCodec<K> keyCodec;
+	private final JournalCodec<V> valueCodec;
+	private final Map<K, V> contents;
+	private final ObservableMap<K, V> map;
+	private final Recorder recorder;
+	private final Journal journal;
+
+	private MapJournal(Path directory, JournalCodec<K> keyCodec, JournalCodec<V> valueCodec, JournalOptions options)
+			throws IOException {
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		contents = new HashMap<>();
+		recorder = new Recorder();
+		journal = Journal.open(directory, options, recorder);
+		map = ObservableCollections.observableMap(contents);
+		map.addObservableMapListener(recorder);
+	}
+
+	/**
+	 * Writes the whole map to a checkpoint and deletes the log before it.
+	 *
+	 * @throws IOException if the checkpoint cannot be written
+	 */
+	public void checkpoint() throws IOException {
+		journal.checkpoint();
+	}
+
+	/**
+	 * Stops logging the changes of the map and forces the log.
+	 */
+	@Override
+	public void close() throws IOException {
+		map.removeObservableMapListener(recorder);
+		journal.close();
+	}
+
+	/**
+	 * <p>
+	 * The map whose changes are logged. A change throws
+	 * {@link java.io.UncheckedIOException} if it cannot be logged; the map has
+	 * changed nevertheless.
+	 *
+	 * @return the map
+	 */
+	public ObservableMap<K, V> map() {
+		return map;
+	}
+
+	/**
+	 * Forces the changes logged so far to the storage device.
+	 */
+	public void sync() {
+		journal.force();
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * A read-only view that applies a function to every element of the source.
+ * Nothing is cached: {@link #get(int)} maps the source element on every call,
+ * and a notification only maps the removed or replaced elements it reports.
+ *
+ * @see ObservableList#mapped(Function)
+ */
+final class MappedObservableList<S, E> extends ObservableListView<S, E> {
+	private final Function<? super S, ? extends E> mapper;
+
+	MappedObservableList(ObservableList<S> source, Function<? super S, ? extends E> mapper) {
+		super(source);
+		this.mapper = mapper;
+	}
+
+	@Override
+	public E get(int index) {
+		return mapper.apply(source.get(index));
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<E> map(List<?> elements) {
+		var mapped = new Object[elements.size()];
+		int i = 0;
+		for (var e : elements) {
+			mapped[i++] = mapper.apply((S) e);
+		}
+		return (List<E>) Collections.unmodifiableList(Arrays.asList(mapped));
+	}
+
+	@Override
+	public int size() {
+		return source.size();
+	}
+
+	@Override
+	void sourceElementPropertyChanged(int index) {
+		if (isObserved()) {
+			fireElementPropertyChanged(index);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	void sourceElementReplaced(int index, Object oldElement) {
+		if (isObserved()) {
+			fireElementReplaced(index, mapper.apply((S) oldElement));
+		}
+	}
+
+	@Override
+	void sourceElementsAdded(int index, int length) {
+		if (isObserved()) {
+			fireElementsAdded(index, length);
+		}
+	}
+
+	@Override
+	void sourceElementsChanged(List<ListChange> changes) {
+		if (!isObserved()) {
+			return;
+		}
+		var mapped = new ArrayList<ListChange>(changes.size());
+		for (var change : changes) {
+			mapped.add(new ListChange(change.from(), map(change.removed()), change.addedSize()));
+		}
+		fireElementsChanged(Collections.unmodifiableList(mapped));
+	}
+
+	@Override
+	void sourceElementsPermuted(int from, int[] permutation) {
+		if (isObserved()) {
+			fireElementsPermuted(from, permutation);
+		}
+	}
+
+	@Override
+	void sourceElementsRemoved(int index, List<?> oldElements) {
+		if (isObserved()) {
+			fireElementsRemoved(index, map(oldElements));
+		}
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * <p>
+ * A change of an instrumented collection that is about to be reported to its
+ * listeners.
+ *
+ * @see ObservableMetrics
+ */
+@Name("observable.Mutation")
+@Label("Observable Collection Mutation")
+@Category("Observable Collections")
+@Description("A change of an observable collection that is reported to its listeners")
+final class MutationEvent extends Event {
+	@Label("Collection Class")
+	Class<?> collectionClass;
+
+	@Label("Collection Identity")
+	@Description("The identity hash code of the collection")
+	int collectionId;
+
+	@Label("Listeners")
+	int listenerCount;
+}
@@ -7,15 +7,19 @@ package observable;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.AbstractCollection;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
 
@@ -27,7 +31,8 @@ import java.util.stream.Collector;
  * @author sky
  */
 public final class ObservableCollections {
-	private static final class ObservableMapImpl<K, V> extends AbstractMap<K, V> implements ObservableMap<K, V> {
+	private static final class ObservableMapImpl<K, V> extends AbstractMap<K, V>
+			implements ObservableMap<K, V>, ObservableMetrics.Instrumented {
 		private class EntryIterator implements Iterator<Map.Entry<K, V>> {
 			private Iterator<Map.Entry<K, V>> realIterator;
 			private Map.Entry<K, V> last;
@@ -83,13 +88,154 @@ public final class ObservableCollections {
 				if (o instanceof Map.Entry<?, ?> e) {
 					var key = e.getKey();
 					if (containsKey(key)) {
-						remove(key);
+						ObservableMapImpl.this.remove(key);
 						return true;
 					}
 				}
 				return false;
 			}
 
+			@Override
+			public boolean removeAll(Collection<?> c) {
+				requireNonNull(c);
+				return removeEntriesIf(c::contains);
+			}
+
+			@Override
+			public boolean removeIf(Predicate<? super Map.Entry<K, V>> filter) {
+				requireNonNull(filter);
+				return removeEntriesIf(filter);
+			}
+
+			@Override
+			public boolean retainAll(Collection<?> c) {
+				requireNonNull(c);
+				return removeEntriesIf(e -> !c.contains(e));
+			}
+
+			@Override
+			public int size() {
+				return ObservableMapImpl.this.size();
+			}
+		}
+
+		private class KeySet extends AbstractSet<K> {
+			@Override
+			public void clear() {
+				ObservableMapImpl.this.clear();
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				return containsKey(o);
+			}
+
+			@Override
+			public Iterator<K> iterator() {
+				return new Iterator<>() {
+					private final EntryIterator it = new EntryIterator();
+
+					@Override
+					public boolean hasNext() {
+						return it.hasNext();
+					}
+
+					@Override
+					public K next() {
+						return it.next().getKey();
+					}
+
+					@Override
+					public void remove() {
+						it.remove();
+					}
+				};
+			}
+
+			@Override
+			public boolean remove(Object o) {
+				if (containsKey(o)) {
+					ObservableMapImpl.this.remove(o);
+					return true;
+				}
+				return false;
+			}
+
+			@Override
+			public boolean removeAll(Collection<?> c) {
+				requireNonNull(c);
+				return removeEntriesIf(e -> c.contains(e.getKey()));
+			}
+
+			@Override
+			public boolean removeIf(Predicate<? super K> filter) {
+				requireNonNull(filter);
+				return removeEntriesIf(e -> filter.test(e.getKey()));
+			}
+
+			@Override
+			public boolean retainAll(Collection<?> c) {
+				requireNonNull(c);
+				return removeEntriesIf(e -> !c.contains(e.getKey()));
+			}
+
+			@Override
+			public int size() {
+				return ObservableMapImpl.this.size();
+			}
+		}
+
+		private class Values extends AbstractCollection<V> {
+			@Override
+			public void clear() {
+				ObservableMapImpl.this.clear();
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				return containsValue(o);
+			}
+
+			@Override
+			public Iterator<V> iterator() {
+				return new Iterator<>() {
+					private final EntryIterator it = new EntryIterator();
+
+					@Override
+					public boolean hasNext() {
+						return it.hasNext();
+					}
+
+					@Override
+					public V next() {
+						return it.next().getValue();
+					}
+
+					@Override
+					public void remove() {
+						it.remove();
+					}
+				};
+			}
+
+			@Override
+			public boolean removeAll(Collection<?> c) {
+				requireNonNull(c);
+				return removeEntriesIf(e -> c.contains(e.getValue()));
+			}
+
+			@Override
+			public boolean removeIf(Predicate<? super V> filter) {
+				requireNonNull(filter);
+				return removeEntriesIf(e -> filter.test(e.getValue()));
+			}
+
+			@Override
+			public boolean retainAll(Collection<?> c) {
+				requireNonNull(c);
+				return removeEntriesIf(e -> !c.contains(e.getValue()));
+			}
+
 			@Override
 			public int size() {
 				return ObservableMapImpl.this.size();
@@ -98,27 +244,52 @@ public final class ObservableCollections {
 
 		private Map<K, V> map;
 
-		private List<ObservableMapListener<? super K, ? super V>> listeners;
+		private final ListenerRegistry<ObservableMapListener<? super K, ? super V>> listeners;
 
 		private Set<Map.Entry<K, V>> entrySet;
 
-		ObservableMapImpl(Map<K, V> map) {
+		private Set<K> keySet;
+
+		private Collection<V> values;
+
+		private final AsyncDispatch dispatch;
+
+		private final ObservableMetrics metrics;
+
+		ObservableMapImpl(Map<K, V> map, AsyncDispatch dispatch) {
 			this.map = map;
-			listeners = new CopyOnWriteArrayList<>();
+			metrics = new ObservableMetrics(this);
+			listeners = new ListenerRegistry<>(ObservableMapListener.class, metrics, InstrumentedListener.Map::new);
+			this.dispatch = dispatch;
 		}
 
 		@Override
 		public void addObservableMapListener(ObservableMapListener<? super K, ? super V> listener) {
-			listeners.add(listener);
+			listeners.add(dispatch == null ? listener : new AsyncListener.Map<>(this, listener, dispatch));
 		}
 
+		/**
+		 * <p>
+		 * Clears the backing map at once and sends a single
+		 * {@link ObservableMapListener#mapCleared mapCleared}.
+		 */
 		@Override
 		public void clear() {
-			// Remove all elements via iterator to trigger notification
-			var iterator = keySet().iterator();
-			while (iterator.hasNext()) {
-				iterator.next();
-				iterator.remove();
+			if (map.isEmpty()) {
+				return;
+			}
+			if (listeners.isEmpty()) {
+				map.clear();
+				return;
+			}
+			var oldEntries = new ArrayList<Map.Entry<K, V>>(map.size());
+			for (var entry : map.entrySet()) {
+				oldEntries.add(new SimpleImmutableEntry<>(entry));
+			}
+			map.clear();
+			var entries = new EntryListMap<>(oldEntries);
+			for (var listener : listeners.notifying()) {
+				listener.mapCleared(this, entries);
 			}
 		}
 
@@ -150,54 +321,154 @@ public final class ObservableCollections {
 			return map.isEmpty();
 		}
 
+		@Override
+		public Set<K> keySet() {
+			if (keySet == null) {
+				keySet = new KeySet();
+			}
+			return keySet;
+		}
+
+		@Override
+		public ObservableMetrics metrics() {
+			return metrics;
+		}
+
 		@Override
 		public V put(K key, V value) {
-			V lastValue;
-			if (containsKey(key)) {
-				lastValue = map.put(key, value);
-				for (var listener : listeners) {
-					listener.mapKeyValueChanged(this, key, lastValue);
+			if (listeners.isEmpty()) {
+				return map.put(key, value);
+			}
+			// not the size, which an evicting or weak map may keep or shrink on put
+			boolean added = !map.containsKey(key);
+			var lastValue = map.put(key, value);
+			if (added) {
+				for (var listener : listeners.notifying()) {
+					listener.mapKeyAdded(this, key);
 				}
 			} else {
-				lastValue = map.put(key, value);
-				for (var listener : listeners) {
-					listener.mapKeyAdded(this, key);
+				for (var listener : listeners.notifying()) {
+					listener.mapKeyValueChanged(this, key, lastValue);
 				}
 			}
 			return lastValue;
 		}
 
+		/**
+		 * <p>
+		 * Puts every mapping, telling additions from changes with
+		 * {@link Map#containsKey containsKey} as {@link #put put} does, then
+		 * sends at most one {@link ObservableMapListener#mapKeysAdded
+		 * mapKeysAdded} and one {@link ObservableMapListener#mapValuesChanged
+		 * mapValuesChanged}.
+		 */
 		@Override
 		public void putAll(Map<? extends K, ? extends V> m) {
-			for (var key : m.keySet()) {
-				put(key, m.get(key));
+			if (listeners.isEmpty()) {
+				map.putAll(m);
+				return;
+			}
+			var added = new ArrayList<K>();
+			var changed = new ArrayList<Map.Entry<K, V>>();
+			for (var entry : m.entrySet()) {
+				var key = entry.getKey();
+				boolean isNew = !map.containsKey(key);
+				var lastValue = map.put(key, entry.getValue());
+				if (isNew) {
+					added.add(key);
+				} else {
+					changed.add(new SimpleImmutableEntry<>(key, lastValue));
+				}
+			}
+			if (added.isEmpty() && changed.isEmpty()) {
+				return;
+			}
+			// one mutation, however many notifications it sends
+			var notified = listeners.notifying();
+			if (!added.isEmpty()) {
+				var keys = Collections.unmodifiableList(added);
+				for (var listener : notified) {
+					listener.mapKeysAdded(this, keys);
+				}
+			}
+			if (!changed.isEmpty()) {
+				var lastValues = new EntryListMap<>(changed);
+				for (var listener : notified) {
+					listener.mapValuesChanged(this, lastValues);
+				}
 			}
 		}
 
 		@Override
 		public V remove(Object key) {
-			if (containsKey(key)) {
-				var value = map.remove(key);
-				for (var listener : listeners) {
-					listener.mapKeyRemoved(this, key, value);
+			if (listeners.isEmpty()) {
+				return map.remove(key);
+			}
+			if (!map.containsKey(key)) {
+				return null;
+			}
+			var value = map.remove(key);
+			for (var listener : listeners.notifying()) {
+				listener.mapKeyRemoved(this, key, value);
+			}
+			return value;
+		}
+
+		/**
+		 * <p>
+		 * Removes the matching entries in one pass over the backing map and sends a
+		 * single {@link ObservableMapListener#mapKeysRemoved mapKeysRemoved}. Backs
+		 * the bulk removals of {@link #entrySet()}, {@link #keySet()} and
+		 * {@link #values()}.
+		 */
+		private boolean removeEntriesIf(Predicate<? super Map.Entry<K, V>> filter) {
+			if (listeners.isEmpty()) {
+				return map.entrySet().removeIf(filter);
+			}
+			var removed = new ArrayList<Map.Entry<K, V>>();
+			var it = map.entrySet().iterator();
+			while (it.hasNext()) {
+				var entry = it.next();
+				if (filter.test(entry)) {
+					removed.add(new SimpleImmutableEntry<>(entry));
+					it.remove();
 				}
-				return value;
 			}
-			return null;
+			if (removed.isEmpty()) {
+				return false;
+			}
+			var entries = new EntryListMap<>(removed);
+			for (var listener : listeners.notifying()) {
+				listener.mapKeysRemoved(this, entries);
+			}
+			return true;
 		}
 
 		@Override
 		public void removeObservableMapListener(ObservableMapListener<? super K, ? super V> listener) {
-			listeners.remove(listener);
+			if (dispatch == null) {
+				listeners.remove(listener);
+			} else {
+				AsyncListener.remove(listeners, listener);
+			}
 		}
 
 		@Override
 		public int size() {
 			return map.size();
 		}
+
+		@Override
+		public Collection<V> values() {
+			if (values == null) {
+				values = new Values();
+			}
+			return values;
+		}
 	}
 
-	private static final class ObservableSetImpl<E> extends AbstractSet<E> implements ObservableSet<E> {
+	private static final class ObservableSetImpl<E> extends AbstractSet<E>
+			implements ObservableSet<E>, ObservableMetrics.Instrumented {
 		private class SetIterator implements Iterator<E> {
 			private Iterator<E> realIterator;
 			private E last;
@@ -229,18 +500,24 @@ public final class ObservableCollections {
 		}
 
 		private Set<E> set;
-		private List<ObservableSetListener<? super E>> listeners;
+		private final ListenerRegistry<ObservableSetListener<? super E>> listeners;
+
+		private final AsyncDispatch dispatch;
+
+		private final ObservableMetrics metrics;
 
-		ObservableSetImpl(Set<E> set) {
+		ObservableSetImpl(Set<E> set, AsyncDispatch dispatch) {
 			this.set = set;
-			listeners = new CopyOnWriteArrayList<>();
+			metrics = new ObservableMetrics(this);
+			listeners = new ListenerRegistry<>(ObservableSetListener.class, metrics, InstrumentedListener.Set::new);
+			this.dispatch = dispatch;
 		}
 
 		@Override
 		public boolean add(E e) {
 			boolean result = set.add(e);
-			if (result) {
-				for (var listener : listeners) {
+			if (result && !listeners.isEmpty()) {
+				for (var listener : listeners.notifying()) {
 					listener.setElementAdded(this, e);
 				}
 			}
@@ -249,6 +526,9 @@ public final class ObservableCollections {
 
 		@Override
 		public boolean addAll(Collection<? extends E> c) {
+			if (listeners.isEmpty()) {
+				return set.addAll(c);
+			}
 			boolean modified = false;
 			for (var e : c) {
 				modified |= add(e);
@@ -258,11 +538,15 @@ public final class ObservableCollections {
 
 		@Override
 		public void addObservableSetListener(ObservableSetListener<? super E> listener) {
-			listeners.add(listener);
+			listeners.add(dispatch == null ? listener : new AsyncListener.Set<>(this, listener, dispatch));
 		}
 
 		@Override
 		public void clear() {
+			if (listeners.isEmpty()) {
+				set.clear();
+				return;
+			}
 			var iterator = iterator();
 			while (iterator.hasNext()) {
 				iterator.next();
@@ -290,11 +574,16 @@ public final class ObservableCollections {
 			return new SetIterator();
 		}
 
+		@Override
+		public ObservableMetrics metrics() {
+			return metrics;
+		}
+
 		@Override
 		public boolean remove(Object o) {
 			boolean result = set.remove(o);
-			if (result) {
-				for (var listener : listeners) {
+			if (result && !listeners.isEmpty()) {
+				for (var listener : listeners.notifying()) {
 					listener.setElementRemoved(this, o);
 				}
 			}
@@ -303,6 +592,9 @@ public final class ObservableCollections {
 
 		@Override
 		public boolean removeAll(Collection<?> c) {
+			if (listeners.isEmpty()) {
+				return set.removeAll(c);
+			}
 			boolean modified = false;
 			for (var e : c) {
 				modified |= remove(e);
@@ -312,7 +604,11 @@ public final class ObservableCollections {
 
 		@Override
 		public void removeObservableSetListener(ObservableSetListener<? super E> listener) {
-			listeners.remove(listener);
+			if (dispatch == null) {
+				listeners.remove(listener);
+			} else {
+				AsyncListener.remove(listeners, listener);
+			}
 		}
 
 		@Override
@@ -335,6 +631,78 @@ public final class ObservableCollections {
 		return observableList(new ArrayList<>());
 	}
 
+	/**
+	 * <p>
+	 * Creates and returns an empty {@link ObservableIntList}.
+	 *
+	 * @return an {@linkplain ObservableIntList}
+	 */
+	public static ObservableIntList observableIntList() {
+		return new ObservableIntListImpl(new int[0]);
+	}
+
+	/**
+	 * <p>
+	 * Creates and returns an {@link ObservableIntList} holding a copy of the
+	 * supplied values.
+	 *
+	 * @param values the initial values
+	 * @return an {@linkplain ObservableIntList}
+	 * @throws NullPointerException if {@code values} is {@code null}
+	 */
+	public static ObservableIntList observableIntList(int[] values) {
+		requireNonNull(values);
+		return new ObservableIntListImpl(values);
+	}
+
+	/**
+	 * <p>
+	 * Creates and returns an empty {@link ObservableLongList}.
+	 *
+	 * @return an {@linkplain ObservableLongList}
+	 */
+	public static ObservableLongList observableLongList() {
+		return new ObservableLongListImpl(new long[0]);
+	}
+
+	/**
+	 * <p>
+	 * Creates and returns an {@link ObservableLongList} holding a copy of the
+	 * supplied values.
+	 *
+	 * @param values the initial values
+	 * @return an {@linkplain ObservableLongList}
+	 * @throws NullPointerException if {@code values} is {@code null}
+	 */
+	public static ObservableLongList observableLongList(long[] values) {
+		requireNonNull(values);
+		return new ObservableLongListImpl(values);
+	}
+
+	/**
+	 * <p>
+	 * Creates and returns an empty {@link ObservableDoubleList}.
+	 *
+	 * @return an {@linkplain ObservableDoubleList}
+	 */
+	public static ObservableDoubleList observableDoubleList() {
+		return new ObservableDoubleListImpl(new double[0]);
+	}
+
+	/**
+	 * <p>
+	 * Creates and returns an {@link ObservableDoubleList} holding a copy of the
+	 * supplied values.
+	 *
+	 * @param values the initial values
+	 * @return an {@linkplain ObservableDoubleList}
+	 * @throws NullPointerException if {@code values} is {@code null}
+	 */
+	public static ObservableDoubleList observableDoubleList(double[] values) {
+		requireNonNull(values);
+		return new ObservableDoubleListImpl(values);
+	}
+
 	/**
 	 * <p>
 	 * Creates and returns an {@link ObservableList} wrapping the supplied
@@ -350,6 +718,27 @@ public final class ObservableCollections {
 		return new ObservableListImpl<>(list, false);
 	}
 
+	/**
+	 * <p>
+	 * Creates and returns an {@link ObservableList} wrapping the supplied
+	 * {@link List} that notifies its listeners through {@code dispatch} instead of
+	 * on the mutating thread.
+	 *
+	 * @param <E>      list element type
+	 * @param list     the {@code List} to wrap
+	 * @param dispatch how to deliver the notifications
+	 * @return an {@linkplain ObservableList}
+	 * @throws NullPointerException if {@code list} or {@code dispatch} is
+	 *                              {@code null}
+	 *
+	 * @see AsyncDispatch
+	 */
+	public static <E> ObservableList<E> observableList(List<E> list, AsyncDispatch dispatch) {
+		requireNonNull(list);
+		requireNonNull(dispatch);
+		return new ObservableListImpl<>(list, false, dispatch);
+	}
+
 	/**
 	 * <p>
 	 * Creates and returns an {@link ObservableListHelper} wrapping the supplied
@@ -368,6 +757,46 @@ public final class ObservableCollections {
 		return new ObservableListHelper<>(oList);
 	}
 
+	/**
+	 * <p>
+	 * Creates and returns an {@link ObservableConcurrentMap} wrapping the supplied
+	 * {@link ConcurrentMap}, for example a {@link ConcurrentHashMap}. The backing
+	 * map must not be modified directly afterwards.
+	 *
+	 * @param <K> map key type
+	 * @param <V> map value type
+	 * @param map the {@linkplain ConcurrentMap} to wrap
+	 * @return an {@linkplain ObservableConcurrentMap}
+	 * @throws NullPointerException if {@code map} is {@code null}
+	 */
+	public static <K, V> ObservableConcurrentMap<K, V> observableConcurrentMap(ConcurrentMap<K, V> map) {
+		requireNonNull(map);
+		return new ObservableConcurrentMapImpl<>(map, null);
+	}
+
+	/**
+	 * <p>
+	 * Creates and returns an {@link ObservableConcurrentMap} wrapping the supplied
+	 * {@link ConcurrentMap} that notifies its listeners through {@code dispatch}
+	 * instead of on the mutating threads.
+	 *
+	 * @param <K>      map key type
+	 * @param <V>      map value type
+	 * @param map      the {@linkplain ConcurrentMap} to wrap
+	 * @param dispatch how to deliver the notifications
+	 * @return an {@linkplain ObservableConcurrentMap}
+	 * @throws NullPointerException if {@code map} or {@code dispatch} is
+	 *                              {@code null}
+	 *
+	 * @see AsyncDispatch
+	 */
+	public static <K, V> ObservableConcurrentMap<K, V> observableConcurrentMap(ConcurrentMap<K, V> map,
+			AsyncDispatch dispatch) {
+		requireNonNull(map);
+		requireNonNull(dispatch);
+		return new ObservableConcurrentMapImpl<>(map, dispatch);
+	}
+
 	/**
 	 * <p>
 	 * Creates and returns an {@link ObservableMap} wrapping the supplied
@@ -381,7 +810,75 @@ public final class ObservableCollections {
 	 */
 	public static <K, V> ObservableMap<K, V> observableMap(Map<K, V> map) {
 		requireNonNull(map);
-		return new ObservableMapImpl<>(map);
+		return new ObservableMapImpl<>(map, null);
+	}
+
+	/**
+	 * <p>
+	 * Creates and returns an {@link ObservableMap} wrapping the supplied
+	 * {@link Map} that notifies its listeners through {@code dispatch} instead of
+	 * on the mutating thread.
+	 *
+	 * @param <K>      map key type
+	 * @param <V>      map value type
+	 * @param map      the {@linkplain Map} to wrap
+	 * @param dispatch how to deliver the notifications
+	 * @return an {@linkplain ObservableMap}
+	 * @throws NullPointerException if {@code map} or {@code dispatch} is
+	 *                              {@code null}
+	 *
+	 * @see AsyncDispatch
+	 */
+	public static <K, V> ObservableMap<K, V> observableMap(Map<K, V> map, AsyncDispatch dispatch) {
+		requireNonNull(map);
+		requireNonNull(dispatch);
+		return new ObservableMapImpl<>(map, dispatch);
+	}
+
+	/**
+	 * <p>
+	 * Creates and returns an empty {@link ObservableList} that stores its
+	 * elements off the heap, as records encoded by {@code codec} in direct
+	 * {@link java.nio.ByteBuffer}s. Every {@code get} decodes a new element, so
+	 * the elements should be values such as records; changing an element that
+	 * was read does not change the list. The list does not accept {@code null}.
+	 *
+	 * @param <E>   list element type
+	 * @param codec encodes and decodes the elements
+	 * @return an {@linkplain ObservableList}
+	 * @throws NullPointerException     if {@code codec} is {@code null}
+	 * @throws IllegalArgumentException if {@code codec.byteSize() <= 0}
+	 */
+	public static <E> ObservableList<E> observableOffHeapList(RecordCodec<E> codec) {
+		requireNonNull(codec);
+		return new ObservableListImpl<>(new OffHeapList<>(codec), false);
+	}
+
+	/**
+	 * <p>
+	 * Creates and returns an empty {@link ObservablePersistentList}.
+	 *
+	 * @param <E> list element type
+	 * @return an {@linkplain ObservablePersistentList}
+	 */
+	public static <E> ObservablePersistentList<E> observablePersistentList() {
+		return new ObservablePersistentListImpl<>(new PersistentVector<>());
+	}
+
+	/**
+	 * <p>
+	 * Creates and returns an {@link ObservablePersistentList} holding the
+	 * elements of the supplied {@link Collection}, built in {@code O(n)}.
+	 *
+	 * @param <E>      list element type
+	 * @param elements the initial elements
+	 * @return an {@linkplain ObservablePersistentList}
+	 * @throws NullPointerException if {@code elements} is {@code null}
+	 */
+	public static <E> ObservablePersistentList<E> observablePersistentList(Collection<? extends E> elements) {
+		var vector = new PersistentVector<E>();
+		vector.addAll(requireNonNull(elements));
+		return new ObservablePersistentListImpl<>(vector);
 	}
 
 	/**
@@ -396,24 +893,79 @@ public final class ObservableCollections {
 	 */
 	public static <E> ObservableSet<E> observableMap(Set<E> set) {
 		requireNonNull(set);
-		return new ObservableSetImpl<>(set);
+		return new ObservableSetImpl<>(set, null);
+	}
+
+	/**
+	 * <p>
+	 * Creates and returns an {@link ObservableSet} wrapping the supplied
+	 * {@link Set} that notifies its listeners through {@code dispatch} instead of
+	 * on the mutating thread.
+	 *
+	 * @param <E>      set element type.
+	 * @param set      the {@linkplain Set} to wrap
+	 * @param dispatch how to deliver the notifications
+	 * @return an {@linkplain ObservableSet}
+	 * @throws NullPointerException if {@code set} or {@code dispatch} is
+	 *                              {@code null}
+	 *
+	 * @see AsyncDispatch
+	 */
+	public static <E> ObservableSet<E> observableMap(Set<E> set, AsyncDispatch dispatch) {
+		requireNonNull(set);
+		requireNonNull(dispatch);
+		return new ObservableSetImpl<>(set, dispatch);
 	}
 
-	@SuppressWarnings("unchecked")
-	public static <E> Collector<E, ObservableList<E>, ObservableList<E>> toObservableList(Supplier<List<E>> supplier) {
-		return Collector.of(ObservableList.species(supplier), List::add, ObservableList::concat);
+	/**
+	 * <p>
+	 * Returns a {@link Collector} that collects the elements into a list
+	 * created by {@code supplier} and wraps it in an {@link ObservableList}.
+	 *
+	 * <p>
+	 * The elements are collected into plain lists, so no listener is notified
+	 * while collecting. A parallel stream merges its partial results by
+	 * chaining them instead of copying the elements at every level; they are
+	 * copied once, into a single list, and only if there was more than one.
+	 *
+	 * @param <E>      list element type.
+	 * @param supplier creates the list to wrap
+	 * @return a {@linkplain Collector} of an {@linkplain ObservableList}
+	 */
+	public static <E> Collector<E, ?, ObservableList<E>> toObservableList(Supplier<List<E>> supplier) {
+		requireNonNull(supplier);
+		return Collector.<E, ArrayList<List<E>>, ObservableList<E>>of(ArrayList::new, (chunks, element) -> {
+			if (chunks.isEmpty()) {
+				chunks.add(supplier.get());
+			}
+			chunks.get(chunks.size() - 1).add(element);
+		}, (left, right) -> {
+			left.addAll(right);
+			return left;
+		}, chunks -> {
+			if (chunks.size() == 1) {
+				return observableList(chunks.get(0));
+			}
+			var list = supplier.get();
+			for (var chunk : chunks) {
+				list.addAll(chunk);
+			}
+			return observableList(list);
+		});
 	}
 
 	/**
 	 * <p>
 	 * Creates and returns an unmodifiable {@link ObservableList} wrapping the
-	 * supplied {@linkplain ObservableList}.
+	 * supplied {@linkplain ObservableList}. The listeners of the view are
+	 * registered on {@code list} itself, so the view adds no dispatch of its
+	 * own; {@code list} is returned as is if it already is such a view.
 	 *
 	 * @param <E>
 	 * @param list
 	 * @return
 	 */
 	public static <E> ObservableList<E> unmodifiableObservableList(ObservableList<E> list) {
-		return new UnmodifiableObservableListImpl<>(list);
+		return UnmodifiableObservableListImpl.of(list);
 	}
 }
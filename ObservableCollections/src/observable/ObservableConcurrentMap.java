@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * An {@link ObservableMap} that many threads may update at once. Every
+ * mutation is a single atomic operation of the backing {@link ConcurrentMap},
+ * and its notification describes exactly the transition that operation made:
+ * a {@code compute} that inserts reports
+ * {@link ObservableMapListener#mapKeyAdded mapKeyAdded}, a
+ * {@code putIfAbsent} that finds a value reports nothing.
+ *
+ * <p>
+ * Listeners are called on the mutating thread after the operation completed,
+ * without any lock held. Notifications of different threads may therefore
+ * arrive in a different order than the operations took effect, and a listener
+ * may be called by several threads at once.
+ *
+ * @param <K> map key type
+ * @param <V> map value type
+ *
+ * @see ObservableCollections#observableConcurrentMap(ConcurrentMap)
+ */
+public interface ObservableConcurrentMap<K, V> extends ObservableMap<K, V>, ConcurrentMap<K, V> {
+}
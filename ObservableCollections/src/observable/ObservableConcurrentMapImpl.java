@@ -0,0 +1,436 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Observes a {@link ConcurrentMap}. Each mutation calls exactly one atomic
+ * operation of the backing map and learns what it did from its result, or, for
+ * the {@code compute} family, from inside the remapping function, so that no
+ * second lookup can observe another thread's update.
+ */
+final class ObservableConcurrentMapImpl<K, V> extends AbstractMap<K, V> implements ObservableConcurrentMap<K, V> {
+	/**
+	 * <p>
+	 * What the last call of a remapping function saw and returned. A backing map
+	 * may call the function again when it loses a race, so only the last call
+	 * counts.
+	 */
+	private static final class Transition<V> {
+		V oldValue;
+		V newValue;
+	}
+
+	private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+		private final Iterator<Map.Entry<K, V>> realIterator = map.entrySet().iterator();
+		private Map.Entry<K, V> last;
+
+		@Override
+		public boolean hasNext() {
+			return realIterator.hasNext();
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			last = realIterator.next();
+			return new WriteThroughEntry(last.getKey(), last.getValue());
+		}
+
+		@Override
+		public void remove() {
+			if (last == null) {
+				throw new IllegalStateException();
+			}
+			var toRemove = last;
+			last = null;
+			ObservableConcurrentMapImpl.this.remove(toRemove.getKey(), toRemove.getValue());
+		}
+	}
+
+	private class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+		@Override
+		public void clear() {
+			ObservableConcurrentMapImpl.this.clear();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (o instanceof Map.Entry<?, ?> e) {
+				var value = map.get(e.getKey());
+				return value != null && value.equals(e.getValue());
+			}
+			return false;
+		}
+
+		@Override
+		public Iterator<Map.Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (o instanceof Map.Entry<?, ?> e) {
+				return ObservableConcurrentMapImpl.this.remove(e.getKey(), e.getValue());
+			}
+			return false;
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+	}
+
+	/**
+	 * <p>
+	 * An entry handed out by the iterators. {@code setValue} goes through
+	 * {@link ObservableConcurrentMapImpl#put}, like the entries of
+	 * {@link java.util.concurrent.ConcurrentHashMap}.
+	 */
+	private class WriteThroughEntry extends SimpleEntry<K, V> {
+		private static final long serialVersionUID = 1L;
+
+		WriteThroughEntry(K key, V value) {
+			super(key, value);
+		}
+
+		@Override
+		public V setValue(V value) {
+			requireNonNull(value);
+			var oldValue = super.setValue(value);
+			put(getKey(), value);
+			return oldValue;
+		}
+	}
+
+	private final ConcurrentMap<K, V> map;
+	private final ListenerRegistry<ObservableMapListener<? super K, ? super V>> listeners;
+	private final AsyncDispatch dispatch;
+	private Set<Map.Entry<K, V>> entrySet;
+
+	ObservableConcurrentMapImpl(ConcurrentMap<K, V> map, AsyncDispatch dispatch) {
+		this.map = map;
+		listeners = new ListenerRegistry<>(ObservableMapListener.class);
+		this.dispatch = dispatch;
+	}
+
+	@Override
+	public void addObservableMapListener(ObservableMapListener<? super K, ? super V> listener) {
+		listeners.add(dispatch == null ? listener : new AsyncListener.Map<>(this, listener, dispatch));
+	}
+
+	/**
+	 * <p>
+	 * Removes the entries one at a time with {@code remove(key, value)} and sends
+	 * a single {@link ObservableMapListener#mapCleared mapCleared} with those
+	 * that this call removed. Entries added meanwhile by other threads may
+	 * survive.
+	 */
+	@Override
+	public void clear() {
+		if (listeners.isEmpty()) {
+			map.clear();
+			return;
+		}
+		var removed = new ArrayList<Map.Entry<K, V>>();
+		for (var entry : map.entrySet()) {
+			var key = entry.getKey();
+			var value = entry.getValue();
+			if (map.remove(key, value)) {
+				removed.add(new SimpleImmutableEntry<>(key, value));
+			}
+		}
+		if (removed.isEmpty()) {
+			return;
+		}
+		var entries = new EntryListMap<>(removed);
+		for (var listener : listeners.array()) {
+			listener.mapCleared(this, entries);
+		}
+	}
+
+	@Override
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		requireNonNull(remappingFunction);
+		if (listeners.isEmpty()) {
+			return map.compute(key, remappingFunction);
+		}
+		var transition = new Transition<V>();
+		var value = map.compute(key, (k, oldValue) -> {
+			transition.oldValue = oldValue;
+			return transition.newValue = remappingFunction.apply(k, oldValue);
+		});
+		fireTransition(key, transition, value);
+		return value;
+	}
+
+	@Override
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		requireNonNull(mappingFunction);
+		if (listeners.isEmpty()) {
+			return map.computeIfAbsent(key, mappingFunction);
+		}
+		var transition = new Transition<V>();
+		var value = map.computeIfAbsent(key, k -> {
+			transition.oldValue = null;
+			return transition.newValue = mappingFunction.apply(k);
+		});
+		fireTransition(key, transition, value);
+		return value;
+	}
+
+	@Override
+	public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		requireNonNull(remappingFunction);
+		if (listeners.isEmpty()) {
+			return map.computeIfPresent(key, remappingFunction);
+		}
+		var transition = new Transition<V>();
+		var value = map.computeIfPresent(key, (k, oldValue) -> {
+			transition.oldValue = oldValue;
+			return transition.newValue = remappingFunction.apply(k, oldValue);
+		});
+		fireTransition(key, transition, value);
+		return value;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return map.containsKey(key);
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return map.containsValue(value);
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	private void fireKeyAdded(Object key) {
+		for (var listener : listeners.array()) {
+			listener.mapKeyAdded(this, key);
+		}
+	}
+
+	private void fireKeyRemoved(Object key, Object value) {
+		for (var listener : listeners.array()) {
+			listener.mapKeyRemoved(this, key, value);
+		}
+	}
+
+	private void fireKeyValueChanged(Object key, Object lastValue) {
+		for (var listener : listeners.array()) {
+			listener.mapKeyValueChanged(this, key, lastValue);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Reports what the last call of the remapping function of a {@code compute}
+	 * did. A function that returned the value it was given left the map as it
+	 * was. A backing map other than
+	 * {@link java.util.concurrent.ConcurrentHashMap} may call the function and
+	 * then retry or return without storing its result, so nothing is reported
+	 * unless {@code result}, the value the compute method returned, is the one
+	 * that call produced.
+	 */
+	private void fireTransition(Object key, Transition<V> transition, V result) {
+		var oldValue = transition.oldValue;
+		var newValue = transition.newValue;
+		if (oldValue == newValue || result != newValue) {
+			return;
+		}
+		if (oldValue == null) {
+			fireKeyAdded(key);
+		} else if (newValue == null) {
+			fireKeyRemoved(key, oldValue);
+		} else {
+			fireKeyValueChanged(key, oldValue);
+		}
+	}
+
+	@Override
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		map.forEach(action);
+	}
+
+	@Override
+	public V get(Object key) {
+		return map.get(key);
+	}
+
+	@Override
+	public V getOrDefault(Object key, V defaultValue) {
+		return map.getOrDefault(key, defaultValue);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return map.isEmpty();
+	}
+
+	@Override
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		requireNonNull(value);
+		requireNonNull(remappingFunction);
+		if (listeners.isEmpty()) {
+			return map.merge(key, value, remappingFunction);
+		}
+		// merge does not call the function for an absent key, so go through compute
+		var transition = new Transition<V>();
+		var result = map.compute(key, (k, oldValue) -> {
+			transition.oldValue = oldValue;
+			return transition.newValue = oldValue == null ? value : remappingFunction.apply(oldValue, value);
+		});
+		fireTransition(key, transition, result);
+		return result;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		var lastValue = map.put(key, value);
+		if (!listeners.isEmpty()) {
+			if (lastValue == null) {
+				fireKeyAdded(key);
+			} else {
+				fireKeyValueChanged(key, lastValue);
+			}
+		}
+		return lastValue;
+	}
+
+	/**
+	 * <p>
+	 * Puts every mapping atomically, then sends at most one
+	 * {@link ObservableMapListener#mapKeysAdded mapKeysAdded} and one
+	 * {@link ObservableMapListener#mapValuesChanged mapValuesChanged}. The
+	 * mappings are not put as a whole atomically.
+	 */
+	@Override
+	public void putAll(Map<? extends K, ? extends V> m) {
+		if (listeners.isEmpty()) {
+			map.putAll(m);
+			return;
+		}
+		var added = new ArrayList<K>();
+		var changed = new ArrayList<Map.Entry<K, V>>();
+		for (var entry : m.entrySet()) {
+			var key = entry.getKey();
+			var lastValue = map.put(key, entry.getValue());
+			if (lastValue == null) {
+				added.add(key);
+			} else {
+				changed.add(new SimpleImmutableEntry<>(key, lastValue));
+			}
+		}
+		if (!added.isEmpty()) {
+			var keys = Collections.unmodifiableList(added);
+			for (var listener : listeners.array()) {
+				listener.mapKeysAdded(this, keys);
+			}
+		}
+		if (!changed.isEmpty()) {
+			var lastValues = new EntryListMap<>(changed);
+			for (var listener : listeners.array()) {
+				listener.mapValuesChanged(this, lastValues);
+			}
+		}
+	}
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		var lastValue = map.putIfAbsent(key, value);
+		if (lastValue == null && !listeners.isEmpty()) {
+			fireKeyAdded(key);
+		}
+		return lastValue;
+	}
+
+	@Override
+	public V remove(Object key) {
+		var value = map.remove(key);
+		if (value != null && !listeners.isEmpty()) {
+			fireKeyRemoved(key, value);
+		}
+		return value;
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		if (map.remove(key, value)) {
+			if (!listeners.isEmpty()) {
+				fireKeyRemoved(key, value);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void removeObservableMapListener(ObservableMapListener<? super K, ? super V> listener) {
+		if (dispatch == null) {
+			listeners.remove(listener);
+		} else {
+			AsyncListener.remove(listeners, listener);
+		}
+	}
+
+	@Override
+	public V replace(K key, V value) {
+		var lastValue = map.replace(key, value);
+		if (lastValue != null && !listeners.isEmpty()) {
+			fireKeyValueChanged(key, lastValue);
+		}
+		return lastValue;
+	}
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		if (map.replace(key, oldValue, newValue)) {
+			if (!listeners.isEmpty()) {
+				fireKeyValueChanged(key, oldValue);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+		requireNonNull(function);
+		if (listeners.isEmpty()) {
+			map.replaceAll(function);
+			return;
+		}
+		for (var key : map.keySet()) {
+			computeIfPresent(key, (k, v) -> requireNonNull(function.apply(k, v)));
+		}
+	}
+
+	@Override
+	public int size() {
+		return map.size();
+	}
+}
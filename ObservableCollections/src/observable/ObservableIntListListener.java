@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.EventListener;
+
+/**
+ * <p>
+ * Notification types from an {@link ObservableIntList}. Old values are passed
+ * as {@code int}s, never boxed.
+ *
+ * @see ObservableListListener
+ */
+public interface ObservableIntListListener extends EventListener {
+	/**
+	 * Notification that a value has been replaced by another in the list.
+	 *
+	 * @param list     the {@code ObservableIntList} that has changed
+	 * @param index    the index of the value that was replaced
+	 * @param oldValue the value at the index before the change
+	 */
+	void listElementReplaced(ObservableIntList list, int index, int oldValue);
+
+	/**
+	 * Notification that values have been added to the list.
+	 *
+	 * @param list   the {@code ObservableIntList} that has changed
+	 * @param index  the index the values were added to
+	 * @param length the number of values that were added
+	 */
+	void listElementsAdded(ObservableIntList list, int index, int length);
+
+	/**
+	 * Notification that values have been removed from the list.
+	 *
+	 * @param list      the {@code ObservableIntList} that has changed
+	 * @param index     the starting index the values were removed from
+	 * @param oldValues the values that were removed, which the listener must not
+	 *                  modify
+	 */
+	void listElementsRemoved(ObservableIntList list, int index, int[] oldValues);
+}
@@ -7,11 +7,17 @@ package observable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.List;
-import java.util.function.BiFunction;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
 
 /**
  * A {@code List} that notifies listeners of changes.
@@ -19,32 +25,40 @@ import java.util.random.RandomGenerator;
  * @author sky
  */
 public interface ObservableList<E> extends List<E> {
+	/**
+	 * <p>
+	 * Returns a live view of {@code lists} one after another. The view copies
+	 * nothing, follows every change of the lists and notifies its own listeners
+	 * at its own indices; finding the list of an index costs {@code O(log k)}
+	 * for {@code k} lists. Elements can be replaced and removed through the
+	 * view, but not added; the algorithms of this interface replace elements
+	 * in place, so they work on the view too.
+	 *
+	 * <p>
+	 * The lists refer to the view only weakly, so the view stops following them
+	 * once it is no longer referenced.
+	 *
+	 * @param <E>   list element type
+	 * @param lists the lists to concatenate
+	 * @return a concatenated view of {@code lists}
+	 * @throws NullPointerException if one of {@code lists} is {@code null}
+	 */
 	public static <E> ObservableList<E> concat(ObservableList<E>... lists) {
-		if (lists.length == 0) {
-			return ObservableCollections.observableArrayList();
-		}
-
-		if (lists.length == 1) {
-			return ObservableCollections.observableList(lists[0]);
-		}
-
-		var backingList = new ArrayList<E>();
-		for (var s : lists) {
-			backingList.addAll(s);
-		}
-		return ObservableCollections.observableList(backingList);
+		return new ConcatenatedObservableList<>(lists.clone());
 	}
 
 	public static <T> void copy(ObservableList<? super T> dest, List<? extends T> src) {
+		if (dest instanceof ObservableListImpl<? super T> impl) {
+			impl.copy(src);
+			return;
+		}
+
 		final int srcSize = src.size();
 		if (srcSize > dest.size()) {
 			throw new IndexOutOfBoundsException("Source does not fit in dest");
 		}
 
-		@SuppressWarnings("unchecked")
-		var destArray = (T[]) dest.toArray();
-		System.arraycopy(src.toArray(), 0, destArray, 0, srcSize);
-		dest.addAll(new Accessor<>(destArray));
+		overwrite(dest, src.toArray());
 	}
 
 	/**
@@ -63,7 +77,7 @@ public interface ObservableList<E> extends List<E> {
 	 * @param <E>  list element type as {@linkplain Comparable}
 	 * @param list
 	 *
-	 * @see #dedupBy(ObservableList, BiFunction)
+	 * @see #dedupBy(ObservableList, BiPredicate)
 	 */
 	public static <E extends Comparable<E>> void dedup(ObservableList<E> list) {
 		dedupBy(list, (a, b) -> a.compareTo(b) == 0);
@@ -71,36 +85,131 @@ public interface ObservableList<E> extends List<E> {
 
 	/**
 	 * <p>
-	 * Remove consecutive duplicates that satisfy the {@code predicate}.
+	 * Remove consecutive duplicates that satisfy the {@code predicate}: every
+	 * element for which {@code predicate.test(element, elementBefore)} holds,
+	 * comparing each element with the one before it in the list as it was.
+	 *
+	 * <p>
+	 * A list of this library tests every element before it removes any, in one
+	 * pass if it is backed by an {@link ArrayList}, and the removed runs are
+	 * reported as the parts of one
+	 * {@link ObservableListListener#listElementsChanged listElementsChanged}.
 	 *
 	 * @param <E>       list element type
 	 * @param list
 	 * @param predicate
 	 */
-	public static <E> void dedupBy(ObservableList<E> list, BiFunction<? super E, ? super E, Boolean> predicate) {
+	public static <E> void dedupBy(ObservableList<E> list, BiPredicate<? super E, ? super E> predicate) {
+		Objects.requireNonNull(predicate);
+		if (list instanceof ObservableListImpl<E> impl) {
+			impl.dedupBy(predicate);
+			return;
+		}
+
 		final int size = list.size();
 		if (size <= 1) {
 			return;
 		}
 
-		for (int current = size - 1; current != 0; current--) {
-			E a = list.get(current);
-			E b = list.get(current - 1);
-			if (predicate.apply(a, b)) {
-				list.remove(current);
+		// test everything first, so that a throwing predicate leaves the list intact
+		@SuppressWarnings("unchecked")
+		var content = (E[]) list.toArray();
+		var matched = new BitSet(size);
+		for (int current = 1; current < size; current++) {
+			if (predicate.test(content[current], content[current - 1])) {
+				matched.set(current);
 			}
 		}
+		for (int current = matched.length() - 1; current >= 0; current = matched.previousSetBit(current - 1)) {
+			list.remove(current);
+		}
 	}
 
 	public static <T> void fill(ObservableList<? super T> list, T obj) {
+		if (list instanceof ObservableListImpl<? super T> impl) {
+			impl.fill(obj);
+			return;
+		}
+
 		@SuppressWarnings("unchecked")
 		var newContent = (T[]) new Object[list.size()];
 		Arrays.fill(newContent, obj);
-		list.clear();
-		list.addAll(new Accessor<>(newContent));
+		overwrite(list, newContent);
+	}
+
+	/**
+	 * <p>
+	 * Replaces the first {@code content.length} elements of {@code list} with
+	 * {@code content} through its list iterator, skipping the elements that are
+	 * already in place. Unlike {@code clear} and {@code addAll}, this works on
+	 * views that cannot grow, such as {@link #concat(ObservableList...)}, and
+	 * leaves a list that cannot be changed at all untouched.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> void overwrite(List<T> list, Object[] content) {
+		var it = list.listIterator();
+		for (var element : content) {
+			if (it.next() != element) {
+				it.set((T) element);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Shuffles {@code list} like {@link #shuffle(ObservableList, RandomGenerator)},
+	 * but shuffles large lists on several threads of the common fork/join pool,
+	 * each drawing from its own {@linkplain SplittableGenerator#split() split}
+	 * of {@code rng}. Every order is equally likely, but a given {@code rng}
+	 * does not produce the same order as it does with
+	 * {@link #shuffle(ObservableList, RandomGenerator) shuffle}.
+	 *
+	 * @param <E>  list element type
+	 * @param list the list to shuffle
+	 * @param rng  the source of randomness
+	 */
+	public static <E> void parallelShuffle(ObservableList<E> list, SplittableGenerator rng) {
+		if (list instanceof ObservableListImpl<E> impl) {
+			impl.parallelShuffle(rng);
+			return;
+		}
+
+		@SuppressWarnings("unchecked")
+		var newContent = (E[]) list.toArray();
+		ListAlgorithms.parallelShuffle(newContent, rng);
+		overwrite(list, newContent);
+	}
+
+	/**
+	 * <p>
+	 * Sorts {@code list} like {@link #sort(ObservableList, Comparator)}, but
+	 * sorts large lists on several threads of the common fork/join pool, as
+	 * {@link Arrays#parallelSort(Object[], Comparator)} does. The sort is
+	 * stable. A list of this library writes the sorted elements back over its
+	 * backing list, or refills a backing list that cannot replace elements, and
+	 * reports the result as one permutation.
+	 *
+	 * @param <T>        list element type
+	 * @param list       the list to sort
+	 * @param comparator the order, or {@code null} for the natural order
+	 */
+	public static <T> void parallelSort(ObservableList<T> list, Comparator<? super T> comparator) {
+		if (list instanceof ObservableListImpl<T> impl) {
+			impl.parallelSort(comparator);
+			return;
+		}
+
+		@SuppressWarnings("unchecked")
+		var newContent = (T[]) list.toArray();
+		ListAlgorithms.parallelSort(newContent, comparator);
+		overwrite(list, newContent);
 	}
 
 	public static <T> boolean replaceAll(ObservableList<T> list, T oldVal, T newVal) {
+		if (list instanceof ObservableListImpl<T> impl) {
+			return impl.replaceAll(oldVal, newVal);
+		}
+
 		@SuppressWarnings("unchecked")
 		var newContent = (T[]) list.toArray();
 		boolean modified = false;
@@ -111,13 +220,17 @@ public interface ObservableList<E> extends List<E> {
 			}
 		}
 		if (modified) {
-			list.clear();
-			list.addAll(new Accessor<>(newContent));
+			overwrite(list, newContent);
 		}
 		return modified;
 	}
 
 	public static <T> void reverse(ObservableList<T> list) {
+		if (list instanceof ObservableListImpl<T> impl) {
+			impl.reverse();
+			return;
+		}
+
 		@SuppressWarnings("unchecked")
 		var newContent = (T[]) list.toArray();
 		for (int i = 0; i < newContent.length / 2; ++i) {
@@ -125,11 +238,15 @@ public interface ObservableList<E> extends List<E> {
 			newContent[i] = newContent[newContent.length - i - 1];
 			newContent[newContent.length - i - 1] = tmp;
 		}
-		list.clear();
-		list.addAll(new Accessor<>(newContent));
+		overwrite(list, newContent);
 	}
 
 	public static <T> void rotate(ObservableList<T> list, int distance) {
+		if (list instanceof ObservableListImpl<T> impl) {
+			impl.rotate(distance);
+			return;
+		}
+
 		@SuppressWarnings("unchecked")
 		var newContent = (T[]) list.toArray();
 
@@ -158,19 +275,30 @@ public interface ObservableList<E> extends List<E> {
 				nMoved++;
 			} while (i != cycleStart);
 		}
-		list.clear();
-		list.addAll(new Accessor<>(newContent));
+		overwrite(list, newContent);
 	}
 
+	/**
+	 * <p>
+	 * Shuffles {@code list} with the Fisher-Yates algorithm. A list of this
+	 * library shuffles a copy of its elements, writes it back over its backing
+	 * list, or refills a backing list that cannot replace elements, and reports
+	 * the result as one permutation.
+	 *
+	 * @param <E>  list element type
+	 * @param list the list to shuffle
+	 * @param rng  the source of randomness
+	 */
 	public static <E> void shuffle(ObservableList<E> list, RandomGenerator rng) {
-		for (int i = list.size(); i > 1; i--) {
-			int from = i - 1;
-			int to = rng.nextInt(i);
-			// from <-> to
-			E tmp = list.get(from);
-			list.set(from, list.get(to));
-			list.set(to, tmp);
+		if (list instanceof ObservableListImpl<E> impl) {
+			impl.shuffle(rng);
+			return;
 		}
+
+		@SuppressWarnings("unchecked")
+		var newContent = (E[]) list.toArray();
+		ListAlgorithms.shuffle(newContent, rng);
+		overwrite(list, newContent);
 	}
 
 	public static <T extends Comparable<? super T>> void sort(ObservableList<T> list) {
@@ -178,10 +306,15 @@ public interface ObservableList<E> extends List<E> {
 	}
 
 	public static <T> void sort(ObservableList<T> list, Comparator<? super T> comparator) {
-		var newContent = new ArrayList<>(list);
-		newContent.sort(comparator);
-		list.clear();
-		list.addAll(newContent);
+		if (list instanceof ObservableListImpl<T> impl) {
+			impl.sort(comparator);
+			return;
+		}
+
+		@SuppressWarnings("unchecked")
+		var newContent = (T[]) list.toArray();
+		Arrays.sort(newContent, comparator);
+		overwrite(list, newContent);
 	}
 
 	/**
@@ -201,6 +334,63 @@ public interface ObservableList<E> extends List<E> {
 	 */
 	public void addObservableListListener(ObservableListListener<? extends E> listener);
 
+	/**
+	 * <p>
+	 * Applies {@code changes} to this list as one batch. Listeners are notified
+	 * once, with {@link ObservableListListener#listElementsChanged
+	 * listElementsChanged}, after {@code changes} returns, instead of once for
+	 * every mutation. Batches may be nested; the outermost one notifies.
+	 *
+	 * <p>
+	 * The default implementation does not coalesce, it simply passes this list to
+	 * {@code changes}.
+	 *
+	 * @param changes mutates the list it is given
+	 */
+	public default void batch(Consumer<? super ObservableList<E>> changes) {
+		changes.accept(this);
+	}
+
+	/**
+	 * <p>
+	 * Returns a read-only live view of the elements of this list that match
+	 * {@code predicate}, in the same order. The view follows every change of this
+	 * list and notifies its own listeners in its own indices; a change of
+	 * {@code k} elements costs {@code O(k log n)}. The predicate is evaluated
+	 * again for an element when it is replaced or reports a property change.
+	 *
+	 * <p>
+	 * This list refers to the view only weakly, so the view stops following this
+	 * list once it is no longer referenced.
+	 *
+	 * @param predicate selects the elements of the view
+	 * @return a filtered view of this list
+	 * @throws NullPointerException if {@code predicate} is {@code null}
+	 */
+	public default ObservableList<E> filtered(Predicate<? super E> predicate) {
+		return new FilteredObservableList<>(this, Objects.requireNonNull(predicate));
+	}
+
+	/**
+	 * <p>
+	 * Returns a read-only live view that holds {@code mapper} applied to each
+	 * element of this list. Elements are mapped on every access and are not
+	 * cached; the view reports the changes of this list at the same indices, with
+	 * the removed and replaced elements mapped.
+	 *
+	 * <p>
+	 * This list refers to the view only weakly, so the view stops following this
+	 * list once it is no longer referenced.
+	 *
+	 * @param <R>    view element type
+	 * @param mapper maps the elements of this list
+	 * @return a mapped view of this list
+	 * @throws NullPointerException if {@code mapper} is {@code null}
+	 */
+	public default <R> ObservableList<R> mapped(Function<? super E, ? extends R> mapper) {
+		return new MappedObservableList<>(this, Objects.requireNonNull(mapper));
+	}
+
 	/**
 	 * Removes a listener.
 	 *
@@ -208,6 +398,18 @@ public interface ObservableList<E> extends List<E> {
 	 */
 	public void removeObservableListListener(ObservableListListener<? extends E> listener);
 
+	/**
+	 * Returns a view of the portion of this list between {@code fromIndex},
+	 * inclusive, and {@code toIndex}, exclusive. The lists created by
+	 * {@link ObservableCollections} return a live window that shares their
+	 * storage: its changes are made through this list and notify the listeners
+	 * of both, and it follows the structural changes of this list instead of
+	 * becoming invalid.
+	 *
+	 * @param fromIndex low endpoint (inclusive) of the subList
+	 * @param toIndex   high endpoint (exclusive) of the subList
+	 * @return a view of the specified range within this list
+	 */
 	@Override
 	public ObservableList<E> subList(int fromIndex, int toIndex);
 
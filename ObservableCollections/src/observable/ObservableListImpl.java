@@ -2,27 +2,61 @@ package observable;
 
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
 
-final class ObservableListImpl<E> extends AbstractList<E> implements ObservableList<E> {
+class ObservableListImpl<E> extends AbstractList<E> implements ObservableList<E>, ObservableMetrics.Instrumented {
 	private final boolean supportsElementPropertyChanged;
-	private List<E> list;
-	private List<ObservableListListener<? extends E>> listeners;
+	/**
+	 * delivers the notifications through an executor if not {@code null}.
+	 */
+	private final AsyncDispatch dispatch;
+	private final List<E> list;
+	private final ListenerRegistry<ObservableListListener<? extends E>> listeners;
+	private final ObservableMetrics metrics;
+	/**
+	 * the {@link FilteredListListener}s, which are only notified of the changes
+	 * that reach their range.
+	 */
+	private final ListenerRegistry<FilteredListListener<? extends E>> ranged;
+	private IntervalIndex<E> rangedIndex;
+	private int batchDepth;
+	/**
+	 * collects the changes while a batch is in progress, {@code null} otherwise.
+	 */
+	private ListChangeBuilder pending;
 
 	ObservableListImpl(List<E> list, boolean supportsElementPropertyChanged) {
+		this(list, supportsElementPropertyChanged, null);
+	}
+
+	ObservableListImpl(List<E> list, boolean supportsElementPropertyChanged, AsyncDispatch dispatch) {
 		this.list = list;
-		listeners = new CopyOnWriteArrayList<>();
+		metrics = new ObservableMetrics(this);
+		listeners = new ListenerRegistry<>(ObservableListListener.class, metrics, InstrumentedListener.List::new);
+		ranged = new ListenerRegistry<>(FilteredListListener.class);
+		rangedIndex = IntervalIndex.empty();
 		this.supportsElementPropertyChanged = supportsElementPropertyChanged;
+		this.dispatch = dispatch;
 	}
 
 	@Override
 	public void add(int index, E element) {
 		list.add(index, element);
 		modCount++;
-		for (var listener : listeners) {
-			listener.listElementsAdded(this, index, 1);
+		if (isObserved()) {
+			fireElementsAdded(index, 1);
 		}
 	}
 
@@ -35,27 +69,54 @@ final class ObservableListImpl<E> extends AbstractList<E> implements ObservableL
 	public boolean addAll(int index, Collection<? extends E> c) {
 		if (list.addAll(index, c)) {
 			modCount++;
-			for (var listener : listeners) {
-				listener.listElementsAdded(this, index, c.size());
+			if (isObserved()) {
+				fireElementsAdded(index, c.size());
 			}
+			return true;
 		}
 		return false;
 	}
 
 	@Override
 	public void addObservableListListener(ObservableListListener<? extends E> listener) {
-		listeners.add(listener);
+		if (dispatch == null && listener instanceof FilteredListListener<? extends E> filtered) {
+			ranged.add(filtered);
+			return;
+		}
+		listeners.add(dispatch == null || SynchronousListener.isSynchronous(listener) ? listener
+				: new AsyncListener.List<>(this, listener, dispatch));
+	}
+
+	@Override
+	public void batch(Consumer<? super ObservableList<E>> changes) {
+		if (batchDepth++ == 0) {
+			pending = new ListChangeBuilder();
+		}
+		try {
+			changes.accept(this);
+		} finally {
+			if (--batchDepth == 0) {
+				var builder = pending;
+				pending = null;
+				if (!builder.isEmpty()) {
+					fireElementsChanged(builder.build());
+				}
+			}
+		}
 	}
 
 	@Override
 	public void clear() {
-		var dup = new ArrayList<>(list);
+		if (!isObserved()) {
+			list.clear();
+			modCount++;
+			return;
+		}
+		var oldElements = copyOf(0, list.size());
 		list.clear();
 		modCount++;
-		if (dup.size() != 0) {
-			for (var listener : listeners) {
-				listener.listElementsRemoved(this, 0, dup);
-			}
+		if (!oldElements.isEmpty()) {
+			fireElementsRemoved(0, oldElements);
 		}
 	}
 
@@ -64,10 +125,195 @@ final class ObservableListImpl<E> extends AbstractList<E> implements ObservableL
 		return list.containsAll(c);
 	}
 
+	/**
+	 * <p>
+	 * Overwrites the first {@code src.size()} elements in place.
+	 *
+	 * @see ObservableList#copy(ObservableList, List)
+	 */
+	void copy(List<? extends E> src) {
+		final int srcSize = src.size();
+		if (srcSize > size()) {
+			throw new IndexOutOfBoundsException("Source does not fit in dest");
+		}
+		if (srcSize == 0) {
+			return;
+		}
+		var oldElements = isObserved() ? copyOf(0, srcSize) : null;
+		store(src.toArray());
+		if (oldElements != null) {
+			fireElementsChanged(List.of(new ListChange(0, oldElements, srcSize)));
+		}
+	}
+
+	/**
+	 * <p>
+	 * Copies the elements from {@code from} to {@code to} for listeners before
+	 * they are overwritten or removed. The copy of a {@link PersistentVector}
+	 * is a range of a snapshot and takes {@code O(1)}.
+	 */
+	private List<E> copyOf(int from, int to) {
+		if (list instanceof PersistentVector<E> vector) {
+			return vector.snapshot().subList(from, to);
+		}
+		return readOnly(list.subList(from, to).toArray());
+	}
+
+	/**
+	 * <p>
+	 * Removes every element that {@code predicate} matches with the element
+	 * before it, as {@link #removeIf(Predicate)} removes matched elements, and
+	 * reports the removed runs as one change.
+	 *
+	 * @return whether any element was removed
+	 */
+	boolean dedupBy(BiPredicate<? super E, ? super E> predicate) {
+		final int size = size();
+		// test everything first, so that a throwing predicate leaves the list intact
+		var matched = new BitSet(size);
+		E previous = null;
+		int i = 0;
+		for (var e : list) {
+			if (i != 0 && predicate.test(e, previous)) {
+				matched.set(i);
+			}
+			previous = e;
+			i++;
+		}
+		if (matched.isEmpty()) {
+			return false;
+		}
+		removeMatched(matched, size);
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Replaces every element with {@code obj} in place.
+	 *
+	 * @see ObservableList#fill(ObservableList, Object)
+	 */
+	void fill(E obj) {
+		final int size = size();
+		if (size == 0) {
+			return;
+		}
+		var oldElements = isObserved() ? copyOf(0, size) : null;
+		Collections.fill(list, obj);
+		if (oldElements != null) {
+			fireElementsChanged(List.of(new ListChange(0, oldElements, size)));
+		}
+	}
+
 	void fireElementChanged(int index) {
-		for (var listener : listeners) {
+		if (!isObserved()) {
+			return;
+		}
+		if (pending != null) {
+			pending.propertyChanged(index, list.get(index));
+			return;
+		}
+		for (var listener : listeners.notifying()) {
 			listener.listElementPropertyChanged(this, index);
 		}
+		if (!ranged.isEmpty()) {
+			fireRanged(index, index + 1, l -> l.listElementPropertyChanged(this, index));
+		}
+	}
+
+	private void fireElementReplaced(int index, E oldElement) {
+		if (pending != null) {
+			pending.replaced(index, oldElement);
+			return;
+		}
+		for (var listener : listeners.notifying()) {
+			listener.listElementReplaced(this, index, oldElement);
+		}
+		if (!ranged.isEmpty()) {
+			fireRanged(index, index + 1, l -> l.listElementReplaced(this, index, oldElement));
+		}
+	}
+
+	private void fireElementsAdded(int index, int length) {
+		if (pending != null) {
+			pending.added(index, length);
+			return;
+		}
+		for (var listener : listeners.notifying()) {
+			listener.listElementsAdded(this, index, length);
+		}
+		if (!ranged.isEmpty()) {
+			fireRanged(index, Integer.MAX_VALUE, l -> l.listElementsAdded(this, index, length));
+		}
+	}
+
+	private void fireElementsChanged(List<ListChange> changes) {
+		if (pending != null) {
+			for (var change : changes) {
+				pending.removed(change.from(), change.removed());
+				pending.added(change.from(), change.addedSize());
+			}
+			return;
+		}
+		for (var listener : listeners.notifying()) {
+			listener.listElementsChanged(this, changes);
+		}
+		if (!ranged.isEmpty() && !changes.isEmpty()) {
+			var last = changes.get(changes.size() - 1);
+			int to = last.to();
+			for (var change : changes) {
+				if (!change.wasReplaced()) {
+					to = Integer.MAX_VALUE;
+					break;
+				}
+			}
+			fireRanged(changes.get(0).from(), to, l -> l.listElementsChanged(this, changes));
+		}
+	}
+
+	/**
+	 * @param permutation the element that was at {@code from + i} is now at
+	 *                    {@code from + permutation[i]}
+	 */
+	private void fireElementsPermuted(int from, int[] permutation) {
+		if (pending != null) {
+			var oldElements = new Object[permutation.length];
+			for (int i = 0; i < permutation.length; i++) {
+				oldElements[i] = list.get(from + permutation[i]);
+			}
+			pending.removed(from, readOnly(oldElements));
+			pending.added(from, permutation.length);
+			return;
+		}
+		for (var listener : listeners.notifying()) {
+			listener.listElementsPermuted(this, from, permutation);
+		}
+		if (!ranged.isEmpty()) {
+			fireRanged(from, from + permutation.length, l -> l.listElementsPermuted(this, from, permutation));
+		}
+	}
+
+	private void fireElementsRemoved(int index, List<E> oldElements) {
+		if (pending != null) {
+			pending.removed(index, oldElements);
+			return;
+		}
+		for (var listener : listeners.notifying()) {
+			listener.listElementsRemoved(this, index, oldElements);
+		}
+		if (!ranged.isEmpty()) {
+			fireRanged(index, Integer.MAX_VALUE, l -> l.listElementsRemoved(this, index, oldElements));
+		}
+	}
+
+	/**
+	 * <p>
+	 * Notifies the {@link FilteredListListener}s whose range overlaps
+	 * {@code from ... to - 1}; they filter the notification further themselves.
+	 */
+	private void fireRanged(int from, int to, Consumer<? super FilteredListListener<? extends E>> notification) {
+		rangedIndex = IntervalIndex.of(ranged.array(), rangedIndex);
+		rangedIndex.forEach(from, to, notification);
 	}
 
 	@Override
@@ -75,26 +321,317 @@ final class ObservableListImpl<E> extends AbstractList<E> implements ObservableL
 		return list.get(index);
 	}
 
+	/**
+	 * <p>
+	 * Mutations check this before they prepare a notification, so that a list
+	 * nobody observes costs the same as its backing list and allocates nothing.
+	 *
+	 * @return {@code true} if a notification would reach anyone.
+	 */
+	private boolean isObserved() {
+		return pending != null || !listeners.isEmpty() || !ranged.isEmpty();
+	}
+
+	@Override
+	public ObservableMetrics metrics() {
+		return metrics;
+	}
+
+	/**
+	 * <p>
+	 * Like {@link #sort(Comparator)}, but sorts large lists in the common
+	 * fork/join pool.
+	 */
+	void parallelSort(Comparator<? super E> c) {
+		@SuppressWarnings("unchecked")
+		var elements = (E[]) list.toArray();
+		var order = ListAlgorithms.parallelSort(elements, c);
+		if (isObserved()) {
+			permuted(elements, order);
+		} else {
+			store(elements);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Stores {@code elements}, the contents reordered by {@code order}, and
+	 * reports the permutation.
+	 *
+	 * @param order the old index of each element, by new index
+	 */
+	private void permuted(E[] elements, int[] order) {
+		var permutation = ListAlgorithms.invert(order);
+		if (permutation == null) {
+			return;
+		}
+		store(elements);
+		fireElementsPermuted(0, permutation);
+	}
+
+	/**
+	 * <p>
+	 * Shuffles the elements like {@link #shuffle(RandomGenerator)},
+	 * in the common fork/join pool.
+	 */
+	void parallelShuffle(SplittableGenerator rng) {
+		@SuppressWarnings("unchecked")
+		var elements = (E[]) list.toArray();
+		shuffled(elements, ListAlgorithms.parallelShuffle(elements, rng));
+	}
+
 	@Override
 	public E remove(int index) {
 		var oldValue = list.remove(index);
 		modCount++;
-		for (var listener : listeners) {
-			listener.listElementsRemoved(this, index, java.util.Collections.singletonList(oldValue));
+		if (isObserved()) {
+			fireElementsRemoved(index, Collections.singletonList(oldValue));
 		}
 		return oldValue;
 	}
 
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		Objects.requireNonNull(c);
+		return removeIf(c::contains);
+	}
+
+	/**
+	 * <p>
+	 * Tests every element before it removes any, removes the matching ones in
+	 * one pass if the backing list is an {@link ArrayList}, and reports every
+	 * run of consecutive removed elements as one part of a single
+	 * {@link ObservableListListener#listElementsChanged listElementsChanged}.
+	 */
+	@Override
+	public boolean removeIf(Predicate<? super E> filter) {
+		Objects.requireNonNull(filter);
+		if (!isObserved()) {
+			if (list.removeIf(filter)) {
+				modCount++;
+				return true;
+			}
+			return false;
+		}
+
+		// test everything first, so that a throwing filter leaves the list intact
+		final int size = size();
+		var matched = new BitSet(size);
+		int i = 0;
+		for (var e : list) {
+			if (filter.test(e)) {
+				matched.set(i);
+			}
+			i++;
+		}
+		if (matched.isEmpty()) {
+			return false;
+		}
+
+		removeMatched(matched, size);
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Removes the elements whose index is set in {@code matched}, and reports
+	 * each run of them as one part of a single change. Nothing is written to
+	 * the backing list before the last step that can fail:
+	 * <ul>
+	 * <li>an {@link ArrayList} removes them in one pass with
+	 * {@link ArrayList#removeIf removeIf}, which tests every element once, in
+	 * order, before it moves any;</li>
+	 * <li>a {@link PersistentVector} is compacted in one pass, moving the kept
+	 * elements down over the removed ones;</li>
+	 * <li>any other list removes the runs as ranges, from the last one, so that
+	 * a list that cannot remove fails on the first run.</li>
+	 * </ul>
+	 */
+	private void removeMatched(BitSet matched, int size) {
+		List<ListChange> changes = null;
+		if (isObserved()) {
+			var elements = list.toArray();
+			var parts = new ArrayList<ListChange>();
+			int removed = 0;
+			for (int start = matched.nextSetBit(0); start >= 0; start = matched.nextSetBit(start)) {
+				int end = matched.nextClearBit(start);
+				parts.add(new ListChange(start - removed, readOnly(Arrays.copyOfRange(elements, start, end)), 0));
+				removed += end - start;
+				start = end;
+			}
+			changes = Collections.unmodifiableList(parts);
+		}
+		if (list instanceof ArrayList<E> arrayList) {
+			var index = new int[1];
+			arrayList.removeIf(e -> matched.get(index[0]++));
+		} else if (list instanceof PersistentVector<E> vector) {
+			compact(vector, matched, size);
+		} else {
+			int end = matched.length();
+			while (end > 0) {
+				int start = matched.previousClearBit(end - 1) + 1;
+				list.subList(start, end).clear();
+				end = start > 0 ? matched.previousSetBit(start - 1) + 1 : 0;
+			}
+		}
+		modCount++;
+		if (changes != null) {
+			fireElementsChanged(changes);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Moves the elements of {@code vector} that are not set in {@code matched}
+	 * down over the ones that are, then cuts off the end.
+	 */
+	private static <E> void compact(PersistentVector<E> vector, BitSet matched, int size) {
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			if (!matched.get(i)) {
+				if (kept != i) {
+					vector.set(kept, vector.get(i));
+				}
+				kept++;
+			}
+		}
+		vector.subList(kept, size).clear();
+	}
+
+	/**
+	 * <p>
+	 * Wraps elements taken out of the backing list for listeners. One view is
+	 * shared by all listeners of a notification.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <E> List<E> readOnly(Object[] elements) {
+		return (List<E>) Collections.unmodifiableList(Arrays.asList(elements));
+	}
+
 	@Override
 	public void removeObservableListListener(ObservableListListener<? extends E> listener) {
-		listeners.remove(listener);
+		if (dispatch == null) {
+			if (!(listener instanceof FilteredListListener<?>) || !ranged.remove(listener)) {
+				listeners.remove(listener);
+			}
+		} else if (SynchronousListener.isSynchronous(listener)) {
+			listeners.remove(listener);
+		} else {
+			AsyncListener.remove(listeners, listener);
+		}
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		if (fromIndex >= toIndex) {
+			return;
+		}
+		var oldElements = isObserved() ? copyOf(fromIndex, toIndex) : null;
+		list.subList(fromIndex, toIndex).clear();
+		modCount++;
+		if (oldElements != null) {
+			fireElementsRemoved(fromIndex, oldElements);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Replaces every occurrence of {@code oldVal} with {@code newVal} in place.
+	 * Runs of replaced elements are reported as one part each.
+	 *
+	 * @see ObservableList#replaceAll(ObservableList, Object, Object)
+	 */
+	boolean replaceAll(E oldVal, E newVal) {
+		var elements = list.toArray();
+		var changes = isObserved() ? new ArrayList<ListChange>() : null;
+		boolean modified = false;
+		for (int start = 0; start < elements.length; start++) {
+			if (!Objects.equals(elements[start], oldVal)) {
+				continue;
+			}
+			int end = start + 1;
+			while (end < elements.length && Objects.equals(elements[end], oldVal)) {
+				end++;
+			}
+			if (changes != null) {
+				changes.add(new ListChange(start, readOnly(Arrays.copyOfRange(elements, start, end)), end - start));
+			}
+			Arrays.fill(elements, start, end, newVal);
+			modified = true;
+			start = end;
+		}
+		if (!modified) {
+			return false;
+		}
+		store(elements);
+		if (changes != null) {
+			fireElementsChanged(Collections.unmodifiableList(changes));
+		}
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Reverses the elements in place.
+	 *
+	 * @see ObservableList#reverse(ObservableList)
+	 */
+	void reverse() {
+		final int size = size();
+		if (size <= 1) {
+			return;
+		}
+		Collections.reverse(list);
+		modCount++;
+		if (isObserved()) {
+			var permutation = new int[size];
+			for (int i = 0; i < size; i++) {
+				permutation[i] = size - 1 - i;
+			}
+			fireElementsPermuted(0, permutation);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Rotates the elements in place.
+	 *
+	 * @see ObservableList#rotate(ObservableList, int)
+	 */
+	void rotate(int distance) {
+		final int size = size();
+		if (size == 0) {
+			return;
+		}
+		distance = distance % size;
+		if (distance < 0) {
+			distance += size;
+		}
+		if (distance == 0) {
+			return;
+		}
+		Collections.rotate(list, distance);
+		modCount++;
+		if (isObserved()) {
+			var permutation = new int[size];
+			for (int i = 0; i < size; i++) {
+				permutation[i] = i + distance < size ? i + distance : i + distance - size;
+			}
+			fireElementsPermuted(0, permutation);
+		}
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		Objects.requireNonNull(c);
+		return removeIf(e -> !c.contains(e));
 	}
 
 	@Override
 	public E set(int index, E element) {
 		var oldValue = list.set(index, element);
-		for (var listener : listeners) {
-			listener.listElementReplaced(this, index, oldValue);
+		if (isObserved()) {
+			fireElementReplaced(index, oldValue);
 		}
 		return oldValue;
 	}
@@ -104,10 +641,78 @@ final class ObservableListImpl<E> extends AbstractList<E> implements ObservableL
 		return list.size();
 	}
 
+	/**
+	 * <p>
+	 * Shuffles a copy of the elements, stores it and reports the result as one
+	 * permutation.
+	 */
+	void shuffle(RandomGenerator rng) {
+		@SuppressWarnings("unchecked")
+		var elements = (E[]) list.toArray();
+		shuffled(elements, ListAlgorithms.shuffle(elements, rng));
+	}
+
+	private void shuffled(E[] elements, int[] order) {
+		if (isObserved()) {
+			permuted(elements, order);
+		} else if (elements.length > 1) {
+			store(elements);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Sorts the backing list in place and reports the result as one permutation.
+	 */
+	@Override
+	public void sort(Comparator<? super E> c) {
+		if (!isObserved()) {
+			list.sort(c);
+			modCount++;
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		var elements = (E[]) list.toArray();
+		permuted(elements, ListAlgorithms.sort(elements, c));
+	}
+
+	/**
+	 * <p>
+	 * Returns the spliterator of the wrapped list, which reads its storage
+	 * directly instead of through {@link #get(int)}. For an {@link ArrayList}
+	 * it is {@link Spliterator#SIZED SIZED} and {@link Spliterator#SUBSIZED
+	 * SUBSIZED}, and splits in halves.
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		return list.spliterator();
+	}
+
+	/**
+	 * <p>
+	 * Overwrites the first {@code elements.length} elements of the backing list
+	 * with {@code elements}, without notifying the listeners. They are written
+	 * with {@link List#replaceAll}, which needs no list iterator and is one copy
+	 * for a {@link java.util.concurrent.CopyOnWriteArrayList}; a list that
+	 * cannot replace its elements is cleared and refilled instead.
+	 */
+	@SuppressWarnings("unchecked")
+	private void store(Object[] elements) {
+		var target = elements.length == list.size() ? list : list.subList(0, elements.length);
+		var next = new int[1];
+		try {
+			target.replaceAll(e -> (E) elements[next[0]++]);
+		} catch (UnsupportedOperationException e) {
+			// a list that cannot replace its elements may still be refilled
+			target.clear();
+			target.addAll((List<E>) Arrays.asList(elements));
+		}
+		modCount++;
+	}
+
 	@Override
 	public ObservableList<E> subList(int fromIndex, int toIndex) {
-		var sublist = super.subList(fromIndex, toIndex);
-		return ObservableCollections.observableList(sublist);
+		return new ObservableSubList<>(this, fromIndex, toIndex);
 	}
 
 	@Override
@@ -124,4 +729,4 @@ final class ObservableListImpl<E> extends AbstractList<E> implements ObservableL
 	public <T> T[] toArray(T[] a) {
 		return list.toArray(a);
 	}
-}
\ No newline at end of file
+}
@@ -5,6 +5,7 @@
 
 package observable;
 
+import java.util.Arrays;
 import java.util.EventListener;
 import java.util.List;
 
@@ -51,4 +52,51 @@ public interface ObservableListListener<E> extends EventListener {
 	 * @param oldElements a list containing the elements that were removed.
 	 */
 	void listElementsRemoved(ObservableList<? super E> list, int index, List<? super E> oldElements);
+
+	/**
+	 * Notification that elements of the list have been reordered in place, for
+	 * example by {@link ObservableList#sort(ObservableList, java.util.Comparator)
+	 * sort}. The element that was at {@code from + i} is now at
+	 * {@code from + permutation[i]}. The default implementation reports the range
+	 * as removed and added again.
+	 *
+	 * @param list        the {@code ObservableList} that has changed
+	 * @param from        the index of the first reordered element
+	 * @param permutation the new position of each element, relative to
+	 *                    {@code from}
+	 */
+	@SuppressWarnings("unchecked")
+	default void listElementsPermuted(ObservableList<? super E> list, int from, int[] permutation) {
+		var oldElements = new Object[permutation.length];
+		for (int i = 0; i < permutation.length; i++) {
+			oldElements[i] = list.get(from + permutation[i]);
+		}
+		listElementsRemoved(list, from, (List<? super E>) Arrays.asList(oldElements));
+		listElementsAdded(list, from, permutation.length);
+	}
+
+	/**
+	 * Notification that the list has changed in several places at once, for
+	 * example at the end of {@link ObservableList#batch(java.util.function.Consumer)
+	 * batch}. The default implementation walks {@code changes} in order and
+	 * reports each part to the other methods of this listener.
+	 *
+	 * @param list    the {@code ObservableList} that has changed
+	 * @param changes the parts of the change, ordered by index
+	 */
+	@SuppressWarnings("unchecked")
+	default void listElementsChanged(ObservableList<? super E> list, List<ListChange> changes) {
+		for (var change : changes) {
+			if (change.removed().size() == 1 && change.addedSize() == 1) {
+				listElementReplaced(list, change.from(), change.removed().get(0));
+				continue;
+			}
+			if (change.wasRemoved()) {
+				listElementsRemoved(list, change.from(), (List<? super E>) change.removed());
+			}
+			if (change.wasAdded()) {
+				listElementsAdded(list, change.from(), change.addedSize());
+			}
+		}
+	}
 }
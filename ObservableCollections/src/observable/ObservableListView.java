@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * <p>
+ * Base of the views that derive their contents from another
+ * {@link ObservableList} and translate its notifications into their own index
+ * space. They are read-only unless they override the mutators of
+ * {@link AbstractList}.
+ *
+ * <p>
+ * The view listens to the source through a {@link WeakListener.List} and holds
+ * the real listener itself, so that the source does not keep an unused view
+ * alive and a view that is in use keeps receiving notifications.
+ *
+ * <p>
+ * The view follows the source on the thread that changes it, even if the
+ * source was created with an {@link AsyncDispatch}, so that it is consistent
+ * with the source as soon as a change returns; its own listeners are notified
+ * on that thread as well.
+ *
+ * @param <S> source element type
+ * @param <E> view element type
+ */
+abstract class ObservableListView<S, E> extends AbstractList<E> implements ObservableList<E> {
+	private class Delegator implements ObservableListListener<S>, SynchronousListener {
+		@Override
+		public void listElementPropertyChanged(ObservableList<? super S> list, int index) {
+			sourceElementPropertyChanged(index);
+		}
+
+		@Override
+		public void listElementReplaced(ObservableList<? super S> list, int index, Object oldElement) {
+			sourceElementReplaced(index, oldElement);
+		}
+
+		@Override
+		public void listElementsAdded(ObservableList<? super S> list, int index, int length) {
+			sourceElementsAdded(index, length);
+		}
+
+		@Override
+		public void listElementsChanged(ObservableList<? super S> list, List<ListChange> changes) {
+			sourceElementsChanged(changes);
+		}
+
+		@Override
+		public void listElementsPermuted(ObservableList<? super S> list, int from, int[] permutation) {
+			sourceElementsPermuted(from, permutation);
+		}
+
+		@Override
+		public void listElementsRemoved(ObservableList<? super S> list, int index, List<? super S> oldElements) {
+			sourceElementsRemoved(index, oldElements);
+		}
+	}
+
+	final ObservableList<S> source;
+	private final ListenerRegistry<ObservableListListener<? extends E>> listeners;
+	/**
+	 * the source only refers to this weakly.
+	 */
+	private final Delegator delegator;
+
+	ObservableListView(ObservableList<S> source) {
+		this.source = source;
+		listeners = new ListenerRegistry<>(ObservableListListener.class);
+		delegator = new Delegator();
+		source.addObservableListListener(new WeakListener.List<>(delegator));
+	}
+
+	@Override
+	public void addObservableListListener(ObservableListListener<? extends E> listener) {
+		listeners.add(listener);
+	}
+
+	final void fireElementPropertyChanged(int index) {
+		for (var listener : listeners.array()) {
+			listener.listElementPropertyChanged(this, index);
+		}
+	}
+
+	final void fireElementReplaced(int index, Object oldElement) {
+		for (var listener : listeners.array()) {
+			listener.listElementReplaced(this, index, oldElement);
+		}
+	}
+
+	final void fireElementsAdded(int index, int length) {
+		for (var listener : listeners.array()) {
+			listener.listElementsAdded(this, index, length);
+		}
+	}
+
+	final void fireElementsChanged(List<ListChange> changes) {
+		for (var listener : listeners.array()) {
+			listener.listElementsChanged(this, changes);
+		}
+	}
+
+	final void fireElementsPermuted(int from, int[] permutation) {
+		for (var listener : listeners.array()) {
+			listener.listElementsPermuted(this, from, permutation);
+		}
+	}
+
+	final void fireElementsRemoved(int index, List<E> oldElements) {
+		for (var listener : listeners.array()) {
+			listener.listElementsRemoved(this, index, oldElements);
+		}
+	}
+
+	/**
+	 * @return {@code true} if a notification of this view would reach anyone.
+	 */
+	final boolean isObserved() {
+		return !listeners.isEmpty();
+	}
+
+	@Override
+	public void removeObservableListListener(ObservableListListener<? extends E> listener) {
+		listeners.remove(listener);
+	}
+
+	abstract void sourceElementPropertyChanged(int index);
+
+	abstract void sourceElementReplaced(int index, Object oldElement);
+
+	abstract void sourceElementsAdded(int index, int length);
+
+	/**
+	 * <p>
+	 * The parts are in the coordinates of the source after the whole change;
+	 * handling them in order keeps the view consistent with the source.
+	 */
+	abstract void sourceElementsChanged(List<ListChange> changes);
+
+	abstract void sourceElementsPermuted(int from, int[] permutation);
+
+	abstract void sourceElementsRemoved(int index, List<?> oldElements);
+
+	@Override
+	public ObservableList<E> subList(int fromIndex, int toIndex) {
+		return new ObservableSubList<>(this, fromIndex, toIndex);
+	}
+
+	@Override
+	public boolean supportsElementPropertyChanged() {
+		return source.supportsElementPropertyChanged();
+	}
+}
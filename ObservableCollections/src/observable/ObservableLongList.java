@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.stream.LongStream;
+
+/**
+ * <p>
+ * A growable list of {@code long} values that notifies listeners of changes.
+ * The values are kept in an {@code long[]}, so neither the list nor its
+ * notifications box them.
+ *
+ * @see ObservableCollections#observableLongList()
+ * @see ObservableList
+ */
+public interface ObservableLongList {
+	/**
+	 * Appends {@code value} to the end of this list.
+	 *
+	 * @param value the value to append
+	 */
+	public void add(long value);
+
+	/**
+	 * Inserts {@code value} at {@code index}.
+	 *
+	 * @param index the index to insert at
+	 * @param value the value to insert
+	 * @throws IndexOutOfBoundsException if {@code index < 0 || index > size()}
+	 */
+	public void add(int index, long value);
+
+	/**
+	 * Appends all of {@code values} to the end of this list.
+	 *
+	 * @param values the values to append
+	 */
+	public void addAll(long[] values);
+
+	/**
+	 * Inserts all of {@code values} at {@code index}.
+	 *
+	 * @param index  the index to insert at
+	 * @param values the values to insert
+	 * @throws IndexOutOfBoundsException if {@code index < 0 || index > size()}
+	 */
+	public void addAll(int index, long[] values);
+
+	/**
+	 * Adds a listener to this observable list.
+	 *
+	 * @param listener the listener to add
+	 */
+	public void addObservableLongListListener(ObservableLongListListener listener);
+
+	/**
+	 * Removes all values from this list.
+	 */
+	public void clear();
+
+	/**
+	 * @param value the value to look for
+	 * @return {@code true} if this list contains {@code value}
+	 */
+	public default boolean contains(long value) {
+		return indexOf(value) >= 0;
+	}
+
+	/**
+	 * @param index the index of the value
+	 * @return the value at {@code index}
+	 * @throws IndexOutOfBoundsException if {@code index < 0 || index >= size()}
+	 */
+	public long get(int index);
+
+	/**
+	 * @param value the value to look for
+	 * @return the index of the first occurrence of {@code value}, or {@code -1}
+	 */
+	public int indexOf(long value);
+
+	/**
+	 * @return {@code true} if this list is empty
+	 */
+	public default boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Removes the value at {@code index}.
+	 *
+	 * @param index the index of the value to remove
+	 * @return the removed value
+	 * @throws IndexOutOfBoundsException if {@code index < 0 || index >= size()}
+	 */
+	public long removeAt(int index);
+
+	/**
+	 * Removes a listener from this observable list.
+	 *
+	 * @param listener the listener to remove
+	 */
+	public void removeObservableLongListListener(ObservableLongListListener listener);
+
+	/**
+	 * Removes the values from {@code fromIndex}, inclusive, to {@code toIndex},
+	 * exclusive.
+	 *
+	 * @param fromIndex the index of the first value to remove
+	 * @param toIndex   the index after the last value to remove
+	 * @throws IndexOutOfBoundsException if the range is out of bounds
+	 */
+	public void removeRange(int fromIndex, int toIndex);
+
+	/**
+	 * Replaces the value at {@code index}.
+	 *
+	 * @param index the index of the value to replace
+	 * @param value the new value
+	 * @return the old value
+	 * @throws IndexOutOfBoundsException if {@code index < 0 || index >= size()}
+	 */
+	public long set(int index, long value);
+
+	/**
+	 * @return the number of values in this list
+	 */
+	public int size();
+
+	/**
+	 * @return a sequential stream of the values, which must not be modified while
+	 *         the stream is used
+	 */
+	public LongStream stream();
+
+	/**
+	 * @return a copy of the values
+	 */
+	public long[] toArray();
+
+	/**
+	 * Shrinks the backing array to the size of this list.
+	 */
+	public void trimToSize();
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.LongStream;
+
+final class ObservableLongListImpl implements ObservableLongList {
+	private static final long[] EMPTY = {};
+	private static final int DEFAULT_CAPACITY = 10;
+
+	private long[] elements;
+	private int size;
+	private final ListenerRegistry<ObservableLongListListener> listeners;
+
+	ObservableLongListImpl(long[] elements) {
+		this.elements = elements.length == 0 ? EMPTY : elements.clone();
+		size = elements.length;
+		listeners = new ListenerRegistry<>(ObservableLongListListener.class);
+	}
+
+	@Override
+	public void add(long value) {
+		add(size, value);
+	}
+
+	@Override
+	public void add(int index, long value) {
+		Objects.checkIndex(index, size + 1);
+		grow(1);
+		System.arraycopy(elements, index, elements, index + 1, size - index);
+		elements[index] = value;
+		size++;
+		if (!listeners.isEmpty()) {
+			fireElementsAdded(index, 1);
+		}
+	}
+
+	@Override
+	public void addAll(long[] values) {
+		addAll(size, values);
+	}
+
+	@Override
+	public void addAll(int index, long[] values) {
+		Objects.checkIndex(index, size + 1);
+		final int length = values.length;
+		if (length == 0) {
+			return;
+		}
+		grow(length);
+		System.arraycopy(elements, index, elements, index + length, size - index);
+		System.arraycopy(values, 0, elements, index, length);
+		size += length;
+		if (!listeners.isEmpty()) {
+			fireElementsAdded(index, length);
+		}
+	}
+
+	@Override
+	public void addObservableLongListListener(ObservableLongListListener listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public void clear() {
+		removeRange(0, size);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		return obj instanceof ObservableLongListImpl other
+				&& Arrays.equals(elements, 0, size, other.elements, 0, other.size);
+	}
+
+	private void fireElementReplaced(int index, long oldValue) {
+		for (var listener : listeners.array()) {
+			listener.listElementReplaced(this, index, oldValue);
+		}
+	}
+
+	private void fireElementsAdded(int index, int length) {
+		for (var listener : listeners.array()) {
+			listener.listElementsAdded(this, index, length);
+		}
+	}
+
+	private void fireElementsRemoved(int index, long[] oldValues) {
+		for (var listener : listeners.array()) {
+			listener.listElementsRemoved(this, index, oldValues);
+		}
+	}
+
+	@Override
+	public long get(int index) {
+		Objects.checkIndex(index, size);
+		return elements[index];
+	}
+
+	/**
+	 * <p>
+	 * Makes room for {@code length} more values, growing the array by half.
+	 */
+	private void grow(int length) {
+		final int minCapacity = size + length;
+		if (minCapacity < 0) {
+			throw new OutOfMemoryError("Required array length too large");
+		}
+		if (minCapacity <= elements.length) {
+			return;
+		}
+		int capacity = Math.max(elements.length + (elements.length >> 1), DEFAULT_CAPACITY);
+		if (capacity - minCapacity < 0 || capacity < 0) {
+			capacity = minCapacity;
+		}
+		elements = Arrays.copyOf(elements, capacity);
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 1;
+		for (int i = 0; i < size; i++) {
+			hash = 31 * hash + Long.hashCode(elements[i]);
+		}
+		return hash;
+	}
+
+	@Override
+	public int indexOf(long value) {
+		for (int i = 0; i < size; i++) {
+			if (elements[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public long removeAt(int index) {
+		Objects.checkIndex(index, size);
+		var oldValue = elements[index];
+		System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+		size--;
+		if (!listeners.isEmpty()) {
+			fireElementsRemoved(index, new long[] { oldValue });
+		}
+		return oldValue;
+	}
+
+	@Override
+	public void removeObservableLongListListener(ObservableLongListListener listener) {
+		listeners.remove(listener);
+	}
+
+	@Override
+	public void removeRange(int fromIndex, int toIndex) {
+		Objects.checkFromToIndex(fromIndex, toIndex, size);
+		if (fromIndex == toIndex) {
+			return;
+		}
+		var oldValues = listeners.isEmpty() ? null : Arrays.copyOfRange(elements, fromIndex, toIndex);
+		System.arraycopy(elements, toIndex, elements, fromIndex, size - toIndex);
+		size -= toIndex - fromIndex;
+		if (oldValues != null) {
+			fireElementsRemoved(fromIndex, oldValues);
+		}
+	}
+
+	@Override
+	public long set(int index, long value) {
+		Objects.checkIndex(index, size);
+		var oldValue = elements[index];
+		elements[index] = value;
+		if (!listeners.isEmpty()) {
+			fireElementReplaced(index, oldValue);
+		}
+		return oldValue;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public LongStream stream() {
+		return Arrays.stream(elements, 0, size);
+	}
+
+	@Override
+	public long[] toArray() {
+		return Arrays.copyOf(elements, size);
+	}
+
+	@Override
+	public String toString() {
+		var sb = new StringBuilder().append('[');
+		for (int i = 0; i < size; i++) {
+			if (i != 0) {
+				sb.append(", ");
+			}
+			sb.append(elements[i]);
+		}
+		return sb.append(']').toString();
+	}
+
+	@Override
+	public void trimToSize() {
+		if (size < elements.length) {
+			elements = size == 0 ? EMPTY : Arrays.copyOf(elements, size);
+		}
+	}
+}
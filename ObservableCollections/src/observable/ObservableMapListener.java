@@ -5,6 +5,9 @@
 
 package observable;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Notification types from an {@code ObservableMap}.
  *
@@ -37,5 +40,56 @@ public interface ObservableMapListener<K, V> {
 	 */
 	void mapKeyValueChanged(ObservableMap<? extends K, ? extends V> map, Object key, Object lastValue);
 
-	// PENDING: should we special case clear?
+	/**
+	 * Notification that all keys have been removed. The default implementation
+	 * calls {@link #mapKeysRemoved(ObservableMap, Map)}.
+	 *
+	 * @param map        the {@code ObservableMap} that changed
+	 * @param oldEntries the entries of the map before it was cleared
+	 */
+	default void mapCleared(ObservableMap<? extends K, ? extends V> map, Map<?, ?> oldEntries) {
+		mapKeysRemoved(map, oldEntries);
+	}
+
+	/**
+	 * Notification that several keys have been added, for example by
+	 * {@code putAll}. The default implementation calls
+	 * {@link #mapKeyAdded(ObservableMap, Object)} for each key.
+	 *
+	 * @param map  the {@code ObservableMap} that changed
+	 * @param keys the keys
+	 */
+	default void mapKeysAdded(ObservableMap<? extends K, ? extends V> map, Collection<?> keys) {
+		for (var key : keys) {
+			mapKeyAdded(map, key);
+		}
+	}
+
+	/**
+	 * Notification that several keys have been removed, for example through
+	 * {@code keySet().removeAll}. The default implementation calls
+	 * {@link #mapKeyRemoved(ObservableMap, Object, Object)} for each entry.
+	 *
+	 * @param map     the {@code ObservableMap} that changed
+	 * @param entries the removed keys and the values they had
+	 */
+	default void mapKeysRemoved(ObservableMap<? extends K, ? extends V> map, Map<?, ?> entries) {
+		for (var entry : entries.entrySet()) {
+			mapKeyRemoved(map, entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Notification that the values of several existing keys have changed, for
+	 * example by {@code putAll}. The default implementation calls
+	 * {@link #mapKeyValueChanged(ObservableMap, Object, Object)} for each entry.
+	 *
+	 * @param map        the {@code ObservableMap} that changed
+	 * @param lastValues the keys and their previous values
+	 */
+	default void mapValuesChanged(ObservableMap<? extends K, ? extends V> map, Map<?, ?> lastValues) {
+		for (var entry : lastValues.entrySet()) {
+			mapKeyValueChanged(map, entry.getKey(), entry.getValue());
+		}
+	}
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import static java.util.Objects.requireNonNull;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * <p>
+ * The dispatch counters of one {@link ObservableList}, {@link ObservableMap} or
+ * {@link ObservableSet} created by {@link ObservableCollections}, to find the
+ * collections and the listeners that take up the time of the threads that
+ * mutate them.
+ *
+ * <p>
+ * Instrumentation is off by default, and then costs a volatile read per
+ * notification. While it is {@linkplain #setEnabled(boolean) enabled}, or if
+ * the system property {@code observable.instrumentation} is {@code true} at
+ * startup, every notification and every call of a listener is counted here and
+ * the calls are timed. They are also reported to JDK Flight Recorder as
+ * {@code observable.Mutation} and {@code observable.ListenerDispatch} events,
+ * if a recording enables them; the {@code threshold} setting of the latter
+ * keeps only the slow calls.
+ *
+ * <p>
+ * A mutation of a collection without listeners costs no dispatch and is not
+ * counted. For a collection with an {@link AsyncDispatch}, a call is the time
+ * the mutating thread takes to queue the notification. The
+ * {@link FilteredListListener}s of a list are not instrumented.
+ *
+ * <pre>
+ * ObservableMetrics.setEnabled(true);
+ * ...
+ * ObservableMetrics.of(list).ifPresent(metrics -&gt; log.info(list + ": " + metrics));
+ * </pre>
+ */
+public final class ObservableMetrics {
+	/**
+	 * <p>
+	 * A collection that keeps metrics.
+	 */
+	interface Instrumented {
+		ObservableMetrics metrics();
+	}
+
+	private static final VarHandle MUTATIONS;
+	private static final VarHandle EVENTS_FIRED;
+	private static final VarHandle SLOW_LISTENER_CALLS;
+	private static final VarHandle DISPATCH_NANOS;
+
+	static {
+		try {
+			var lookup = MethodHandles.lookup();
+			MUTATIONS = lookup.findVarHandle(ObservableMetrics.class, "mutations", long.class);
+			EVENTS_FIRED = lookup.findVarHandle(ObservableMetrics.class, "eventsFired", long.class);
+			SLOW_LISTENER_CALLS = lookup.findVarHandle(ObservableMetrics.class, "slowListenerCalls", long.class);
+			DISPATCH_NANOS = lookup.findVarHandle(ObservableMetrics.class, "dispatchNanos", long.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private static volatile boolean enabled = Boolean.getBoolean("observable.instrumentation");
+	private static volatile long slowListenerNanos = Duration.ofMillis(1).toNanos();
+
+	private final Class<?> collectionClass;
+	private final int collectionId;
+	private volatile long mutations;
+	private volatile long eventsFired;
+	private volatile long slowListenerCalls;
+	private volatile long dispatchNanos;
+
+	ObservableMetrics(Object collection) {
+		collectionClass = collection.getClass();
+		collectionId = System.identityHashCode(collection);
+	}
+
+	/**
+	 * <p>
+	 * Returns the metrics of {@code collection}, or an empty {@link Optional} if
+	 * it does not keep any.
+	 *
+	 * @param collection an observable collection
+	 * @return the metrics of {@code collection}
+	 */
+	public static Optional<ObservableMetrics> of(Object collection) {
+		if (collection instanceof Instrumented instrumented) {
+			return Optional.of(instrumented.metrics());
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * @return whether the collections are instrumented
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * <p>
+	 * Turns the instrumentation of all collections on or off. The counters keep
+	 * their values while it is off.
+	 *
+	 * @param enabled whether to instrument the collections
+	 */
+	public static void setEnabled(boolean enabled) {
+		ObservableMetrics.enabled = enabled;
+	}
+
+	/**
+	 * @return the duration from which a listener call counts as slow
+	 */
+	public static Duration getSlowListenerThreshold() {
+		return Duration.ofNanos(slowListenerNanos);
+	}
+
+	/**
+	 * @param threshold the duration from which a listener call counts as slow,
+	 *                  one millisecond by default
+	 * @throws NullPointerException     if {@code threshold} is {@code null}
+	 * @throws IllegalArgumentException if {@code threshold} is negative
+	 */
+	public static void setSlowListenerThreshold(Duration threshold) {
+		requireNonNull(threshold);
+		if (threshold.isNegative()) {
+			throw new IllegalArgumentException("Illegal threshold: " + threshold);
+		}
+		slowListenerNanos = threshold.toNanos();
+	}
+
+	/**
+	 * @return the time spent in listener calls
+	 */
+	public Duration dispatchTime() {
+		return Duration.ofNanos(dispatchNanos);
+	}
+
+	/**
+	 * @return the number of listener calls
+	 */
+	public long eventsFired() {
+		return eventsFired;
+	}
+
+	/**
+	 * @return the number of mutations reported to the listeners, each counted
+	 *         once however many listeners it reached
+	 */
+	public long mutations() {
+		return mutations;
+	}
+
+	/**
+	 * <p>
+	 * Sets all counters to zero.
+	 */
+	public void reset() {
+		mutations = 0;
+		eventsFired = 0;
+		slowListenerCalls = 0;
+		dispatchNanos = 0;
+	}
+
+	/**
+	 * @return the number of listener calls that took at least the
+	 *         {@linkplain #getSlowListenerThreshold() threshold}
+	 */
+	public long slowListenerCalls() {
+		return slowListenerCalls;
+	}
+
+	@Override
+	public String toString() {
+		return "ObservableMetrics[mutations=" + mutations + ", eventsFired=" + eventsFired + ", slowListenerCalls="
+				+ slowListenerCalls + ", dispatchTime=" + dispatchTime() + "]";
+	}
+
+	/**
+	 * <p>
+	 * Counts a notification of {@code listenerCount} listeners.
+	 */
+	void mutated(int listenerCount) {
+		MUTATIONS.getAndAdd(this, 1L);
+		var event = new MutationEvent();
+		if (event.shouldCommit()) {
+			event.collectionClass = collectionClass;
+			event.collectionId = collectionId;
+			event.listenerCount = listenerCount;
+			event.commit();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Starts timing a listener call.
+	 */
+	static ListenerDispatchEvent started() {
+		var event = new ListenerDispatchEvent();
+		event.begin();
+		event.start = System.nanoTime();
+		return event;
+	}
+
+	/**
+	 * <p>
+	 * Counts the listener call that {@code event} was {@linkplain #started()
+	 * started} for.
+	 *
+	 * @param listenerClass the class of the listener
+	 * @param kind          the name of the listener method
+	 * @param elementCount  the number of elements the notification is about
+	 */
+	void dispatched(ListenerDispatchEvent event, Class<?> listenerClass, String kind, int elementCount) {
+		long nanos = System.nanoTime() - event.start;
+		event.end();
+		EVENTS_FIRED.getAndAdd(this, 1L);
+		DISPATCH_NANOS.getAndAdd(this, nanos);
+		if (nanos >= slowListenerNanos) {
+			SLOW_LISTENER_CALLS.getAndAdd(this, 1L);
+		}
+		if (event.shouldCommit()) {
+			event.collectionClass = collectionClass;
+			event.collectionId = collectionId;
+			event.listenerClass = listenerClass;
+			event.kind = kind;
+			event.elementCount = elementCount;
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.List;
+
+/**
+ * <p>
+ * An {@link ObservableList} that shares its structure with immutable
+ * snapshots of itself.
+ *
+ * <p>
+ * {@link #snapshot()} takes {@code O(1)} regardless of the size of the list.
+ * A snapshot never changes, so other threads can read and iterate it without
+ * locks while this list keeps changing on its own thread. After a snapshot,
+ * the first change of each part of the list copies that part, in
+ * {@code O(log n)}.
+ *
+ * @param <E> element type
+ *
+ * @see ObservableCollections#observablePersistentList()
+ */
+public interface ObservablePersistentList<E> extends ObservableList<E> {
+	/**
+	 * Returns an immutable copy of the current contents. Taking a snapshot does
+	 * not copy anything, and a snapshot taken again before the next change is
+	 * the same object.
+	 *
+	 * @return an unmodifiable, random-access list
+	 */
+	public List<E> snapshot();
+}
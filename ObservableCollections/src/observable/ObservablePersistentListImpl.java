@@ -0,0 +1,20 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.List;
+
+final class ObservablePersistentListImpl<E> extends ObservableListImpl<E> implements ObservablePersistentList<E> {
+	private final PersistentVector<E> vector;
+
+	ObservablePersistentListImpl(PersistentVector<E> vector) {
+		super(vector, false);
+		this.vector = vector;
+	}
+
+	@Override
+	public List<E> snapshot() {
+		return vector.snapshot();
+	}
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>
+ * A live window {@code offset ... offset + size - 1} of the source. It shares
+ * the storage of the source, makes its own changes through the source so that
+ * the listeners of both are notified, and follows the changes of the source
+ * instead of becoming invalid:
+ * <ul>
+ * <li>elements added or removed before the window move it;</li>
+ * <li>elements added strictly inside the window, or removed from it, grow or
+ * shrink it, and are reported by it;</li>
+ * <li>elements added at either end of the window by the source stay outside
+ * it, unless they replace elements of the window in the same part of a
+ * compound change; elements added at either end by the window itself are in
+ * it.</li>
+ * </ul>
+ *
+ * <p>
+ * Like the other views, a window is not consistent with the source while a
+ * {@link ObservableList#batch batch} of the source is in progress, and must
+ * not be changed then.
+ *
+ * @see ObservableList#subList(int, int)
+ */
+final class ObservableSubList<E> extends ObservableListView<E, E> {
+	private int offset;
+	private int size;
+	/**
+	 * whether the next notification of the source is about a change made
+	 * through this window.
+	 */
+	private boolean changing;
+
+	ObservableSubList(ObservableList<E> source, int fromIndex, int toIndex) {
+		super(source);
+		Objects.checkFromToIndex(fromIndex, toIndex, source.size());
+		offset = fromIndex;
+		size = toIndex - fromIndex;
+	}
+
+	@Override
+	public void add(int index, E element) {
+		Objects.checkIndex(index, size + 1);
+		changing = true;
+		try {
+			source.add(offset + index, element);
+		} finally {
+			changing = false;
+		}
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends E> c) {
+		Objects.checkIndex(index, size + 1);
+		changing = true;
+		try {
+			return source.addAll(offset + index, c);
+		} finally {
+			changing = false;
+		}
+	}
+
+	@Override
+	public E get(int index) {
+		Objects.checkIndex(index, size);
+		return source.get(offset + index);
+	}
+
+	/**
+	 * <p>
+	 * Applies the insertion of {@code length} source elements at
+	 * {@code index} to the window.
+	 *
+	 * @param inside whether an insertion at either end of the window is in it
+	 * @return the index in the window the elements were added to, or
+	 *         {@code -1} if they are outside it
+	 */
+	private int inserted(int index, int length, boolean inside) {
+		if (offset < index && index < offset + size || inside && offset <= index && index <= offset + size) {
+			size += length;
+			modCount++;
+			return index - offset;
+		}
+		if (index <= offset) {
+			offset += length;
+		}
+		return -1;
+	}
+
+	@Override
+	public E remove(int index) {
+		Objects.checkIndex(index, size);
+		return source.remove(offset + index);
+	}
+
+	/**
+	 * <p>
+	 * Applies the removal of {@code oldElements} at {@code index} of the
+	 * source to the window.
+	 *
+	 * @return the number of elements removed from the window
+	 */
+	private int removed(int index, List<?> oldElements, ListChangeBuilder changes) {
+		final int end = index + oldElements.size();
+		final int from = Math.max(index, offset);
+		final int to = Math.min(end, offset + size);
+		final int before = Math.max(Math.min(end, offset) - index, 0);
+		if (from >= to) {
+			offset -= before;
+			return 0;
+		}
+		if (changes != null) {
+			changes.removed(from - offset, oldElements.subList(from - index, to - index));
+		}
+		size -= to - from;
+		offset -= before;
+		modCount++;
+		return to - from;
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		Objects.checkFromToIndex(fromIndex, toIndex, size);
+		if (source instanceof ObservableListImpl<E> impl) {
+			impl.removeRange(offset + fromIndex, offset + toIndex);
+			return;
+		}
+		for (int i = toIndex - 1; i >= fromIndex; i--) {
+			source.remove(offset + i);
+		}
+	}
+
+	@Override
+	public E set(int index, E element) {
+		Objects.checkIndex(index, size);
+		return source.set(offset + index, element);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	void sourceElementPropertyChanged(int index) {
+		if (offset <= index && index < offset + size && isObserved()) {
+			fireElementPropertyChanged(index - offset);
+		}
+	}
+
+	@Override
+	void sourceElementReplaced(int index, Object oldElement) {
+		if (offset <= index && index < offset + size && isObserved()) {
+			fireElementReplaced(index - offset, oldElement);
+		}
+	}
+
+	@Override
+	void sourceElementsAdded(int index, int length) {
+		boolean own = changing;
+		changing = false;
+		int at = inserted(index, length, own);
+		if (at >= 0 && isObserved()) {
+			fireElementsAdded(at, length);
+		}
+	}
+
+	/**
+	 * <p>
+	 * A part that replaces as many elements as it removes leaves the window in
+	 * place; any other part is a removal followed by an insertion, which is in
+	 * the window if the removal took elements from it.
+	 */
+	@Override
+	void sourceElementsChanged(List<ListChange> changes) {
+		var builder = isObserved() ? new ListChangeBuilder() : null;
+		for (var change : changes) {
+			if (change.wasReplaced()) {
+				final int from = Math.max(change.from(), offset);
+				final int to = Math.min(change.to(), offset + size);
+				if (from < to && builder != null) {
+					builder.removed(from - offset, change.removed().subList(from - change.from(), to - change.from()));
+					builder.added(from - offset, to - from);
+				}
+				continue;
+			}
+			int removed = removed(change.from(), change.removed(), builder);
+			int at = inserted(change.from(), change.addedSize(), removed != 0);
+			if (at >= 0 && builder != null) {
+				builder.added(at, change.addedSize());
+			}
+		}
+		if (builder != null && !builder.isEmpty()) {
+			fireElementsChanged(builder.build());
+		}
+	}
+
+	/**
+	 * <p>
+	 * Reports the reordered elements of the window as reordered if they stay
+	 * in it, and as replaced otherwise.
+	 */
+	@Override
+	void sourceElementsPermuted(int from, int[] permutation) {
+		final int lo = Math.max(from, offset);
+		final int hi = Math.min(from + permutation.length, offset + size);
+		if (lo >= hi || !isObserved()) {
+			return;
+		}
+		var local = new int[hi - lo];
+		for (int i = lo; i < hi; i++) {
+			int to = from + permutation[i - from];
+			if (to < lo || to >= hi) {
+				local = null;
+				break;
+			}
+			local[i - lo] = to - lo;
+		}
+		if (local != null) {
+			fireElementsPermuted(lo - offset, local);
+			return;
+		}
+		var oldElements = new Object[hi - lo];
+		for (int i = lo; i < hi; i++) {
+			oldElements[i - lo] = source.get(from + permutation[i - from]);
+		}
+		var removed = Collections.unmodifiableList(Arrays.asList(oldElements));
+		fireElementsChanged(List.of(new ListChange(lo - offset, removed, hi - lo)));
+	}
+
+	@Override
+	void sourceElementsRemoved(int index, List<?> oldElements) {
+		changing = false;
+		final int from = Math.max(index, offset);
+		final int at = from - offset;
+		final int length = removed(index, oldElements, null);
+		if (length != 0 && isObserved()) {
+			fireElementsRemoved(at, cast(oldElements.subList(from - index, from - index + length)));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> List<E> cast(List<?> elements) {
+		return (List<E>) elements;
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+/**
+ * <p>
+ * A single value that notifies listeners when it changes.
+ *
+ * @param <T> value type
+ *
+ * @see Aggregates
+ */
+public interface ObservableValue<T> {
+	/**
+	 * Adds a listener to this observable value.
+	 *
+	 * @param listener the listener to add
+	 */
+	public void addObservableValueListener(ObservableValueListener<? super T> listener);
+
+	/**
+	 * @return the current value
+	 */
+	public T get();
+
+	/**
+	 * Removes a listener from this observable value.
+	 *
+	 * @param listener the listener to remove
+	 */
+	public void removeObservableValueListener(ObservableValueListener<? super T> listener);
+}
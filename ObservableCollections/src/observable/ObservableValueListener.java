@@ -0,0 +1,22 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.EventListener;
+
+/**
+ * <p>
+ * Notification types from an {@link ObservableValue}.
+ *
+ * @param <T> value type
+ */
+public interface ObservableValueListener<T> extends EventListener {
+	/**
+	 * Notification that the value has changed.
+	 *
+	 * @param value    the {@code ObservableValue} that has changed
+	 * @param oldValue the value before the change
+	 */
+	void valueChanged(ObservableValue<? extends T> value, Object oldValue);
+}
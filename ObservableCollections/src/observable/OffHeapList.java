@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ * A list that keeps its elements as fixed-size records in direct
+ * {@link ByteBuffer}s instead of on the heap, and decodes them on every access.
+ * The records are spread over chunks of about 16 MiB, so that the list is not
+ * limited to the 2 GiB of a single buffer and grows without copying.
+ *
+ * <p>
+ * Direct memory counts against {@code -XX:MaxDirectMemorySize} and is
+ * returned when a chunk becomes unreachable; {@link #clear()} drops all chunks
+ * but the first.
+ */
+final class OffHeapList<E> extends AbstractList<E> implements RandomAccess {
+	private static final int CHUNK_BYTES = 1 << 24;
+	private static final int SCRATCH_BYTES = 1 << 16;
+
+	private final RecordCodec<E> codec;
+	private final int recordSize;
+	/**
+	 * every chunk holds {@code 1 << chunkShift} records.
+	 */
+	private final int chunkShift;
+	private final int chunkMask;
+	private final ArrayList<ByteBuffer> chunks = new ArrayList<>();
+	/**
+	 * stages records while {@link #move(int, int, int)} shifts them.
+	 */
+	private ByteBuffer scratch;
+	private int size;
+
+	OffHeapList(RecordCodec<E> codec) {
+		this.codec = codec;
+		recordSize = codec.byteSize();
+		if (recordSize <= 0) {
+			throw new IllegalArgumentException("Illegal record size: " + recordSize);
+		}
+		int records = Integer.highestOneBit(Math.max(1, CHUNK_BYTES / recordSize));
+		chunkShift = Integer.numberOfTrailingZeros(records);
+		chunkMask = records - 1;
+	}
+
+	@Override
+	public void add(int index, E element) {
+		requireNonNull(element);
+		Objects.checkIndex(index, size + 1);
+		ensureCapacity(size + 1);
+		move(index, index + 1, size - index);
+		write(index, element);
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * <p>
+	 * Shifts the following records once for the whole collection.
+	 */
+	@Override
+	public boolean addAll(int index, Collection<? extends E> c) {
+		Objects.checkIndex(index, size + 1);
+		var elements = c.toArray();
+		if (elements.length == 0) {
+			return false;
+		}
+		for (var e : elements) {
+			requireNonNull(e);
+		}
+		ensureCapacity(size + elements.length);
+		move(index, index + elements.length, size - index);
+		for (int i = 0; i < elements.length; i++) {
+			@SuppressWarnings("unchecked")
+			var e = (E) elements[i];
+			write(index + i, e);
+		}
+		size += elements.length;
+		modCount++;
+		return true;
+	}
+
+	private ByteBuffer chunk(int index) {
+		return chunks.get(index >>> chunkShift);
+	}
+
+	@Override
+	public void clear() {
+		size = 0;
+		modCount++;
+		if (chunks.size() > 1) {
+			chunks.subList(1, chunks.size()).clear();
+		}
+		scratch = null;
+	}
+
+	private void ensureCapacity(int capacity) {
+		while ((long) chunks.size() << chunkShift < capacity) {
+			chunks.add(ByteBuffer.allocateDirect((chunkMask + 1) * recordSize).order(ByteOrder.nativeOrder()));
+		}
+	}
+
+	@Override
+	public E get(int index) {
+		Objects.checkIndex(index, size);
+		return codec.decode(chunk(index), offset(index));
+	}
+
+	/**
+	 * <p>
+	 * Copies {@code count} records from {@code from} to {@code to}. The ranges
+	 * may overlap; the records are staged through {@link #scratch} in pieces that
+	 * do not cross a chunk boundary.
+	 */
+	private void move(int from, int to, int count) {
+		if (count == 0 || from == to) {
+			return;
+		}
+		if (scratch == null) {
+			scratch = ByteBuffer.allocateDirect(Math.max(1, SCRATCH_BYTES / recordSize) * recordSize);
+		}
+		final int scratchRecords = scratch.capacity() / recordSize;
+		final boolean backwards = to > from;
+		int remaining = count;
+		while (remaining > 0) {
+			int src;
+			int dst;
+			int length;
+			if (backwards) {
+				int srcEnd = from + remaining;
+				int dstEnd = to + remaining;
+				length = Math.min(Math.min(remaining, scratchRecords),
+						Math.min(((srcEnd - 1) & chunkMask) + 1, ((dstEnd - 1) & chunkMask) + 1));
+				src = srcEnd - length;
+				dst = dstEnd - length;
+			} else {
+				src = from + count - remaining;
+				dst = to + count - remaining;
+				length = Math.min(Math.min(remaining, scratchRecords),
+						Math.min(chunkMask + 1 - (src & chunkMask), chunkMask + 1 - (dst & chunkMask)));
+			}
+			int bytes = length * recordSize;
+			scratch.put(0, chunk(src), offset(src), bytes);
+			chunk(dst).put(offset(dst), scratch, 0, bytes);
+			remaining -= length;
+		}
+	}
+
+	private int offset(int index) {
+		return (index & chunkMask) * recordSize;
+	}
+
+	@Override
+	public E remove(int index) {
+		var oldValue = get(index);
+		move(index + 1, index, size - index - 1);
+		size--;
+		modCount++;
+		return oldValue;
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		Objects.checkFromToIndex(fromIndex, toIndex, size);
+		move(toIndex, fromIndex, size - toIndex);
+		size -= toIndex - fromIndex;
+		modCount++;
+	}
+
+	@Override
+	public E set(int index, E element) {
+		requireNonNull(element);
+		var oldValue = get(index);
+		write(index, element);
+		return oldValue;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	private void write(int index, E element) {
+		codec.encode(chunk(index), offset(index), element);
+	}
+}
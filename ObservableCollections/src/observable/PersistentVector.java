@@ -0,0 +1,605 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * A list stored in a counted B-tree whose nodes are shared with the snapshots
+ * taken of it. The leaves hold up to {@value #LEAF_MAX} elements, the
+ * branches up to {@value #BRANCH_MAX} children and the number of elements
+ * under each of them, so that reading, setting, inserting and removing by
+ * index take {@code O(log n)}.
+ *
+ * <p>
+ * Every node belongs to the generation in which it was created, and the list
+ * only changes the nodes of its current generation in place. Any other node
+ * is copied first, together with the path to it. {@link #snapshot()} starts a
+ * new generation, which makes every existing node immutable in {@code O(1)}.
+ */
+final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+	private abstract static class Node {
+		final long generation;
+
+		Node(long generation) {
+			this.generation = generation;
+		}
+
+		abstract int size();
+	}
+
+	private static final class Leaf extends Node {
+		final Object[] elements;
+		int size;
+
+		Leaf(long generation, Object[] elements, int size) {
+			super(generation);
+			this.elements = elements;
+			this.size = size;
+		}
+
+		@Override
+		int size() {
+			return size;
+		}
+	}
+
+	private static final class Branch extends Node {
+		final Node[] children;
+		/**
+		 * {@code ends[i]} is the number of elements in the children up to
+		 * {@code i}.
+		 */
+		final int[] ends;
+		int count;
+
+		Branch(long generation, Node[] children, int[] ends, int count) {
+			super(generation);
+			this.children = children;
+			this.ends = ends;
+			this.count = count;
+		}
+
+		/**
+		 * @return the child that holds {@code index}; the last child for the
+		 *         size of this branch
+		 */
+		int child(int index) {
+			int low = 0;
+			int high = count - 1;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (ends[mid] > index) {
+					high = mid;
+				} else {
+					low = mid + 1;
+				}
+			}
+			return low;
+		}
+
+		void recount(int from) {
+			for (int i = from; i < count; i++) {
+				ends[i] = (i == 0 ? 0 : ends[i - 1]) + children[i].size();
+			}
+		}
+
+		@Override
+		int size() {
+			return count == 0 ? 0 : ends[count - 1];
+		}
+
+		int start(int child) {
+			return child == 0 ? 0 : ends[child - 1];
+		}
+	}
+
+	/**
+	 * <p>
+	 * An immutable list that shares the nodes of the {@link PersistentVector} it
+	 * was taken from. Any number of threads can read it while the vector keeps
+	 * changing.
+	 */
+	static final class Snapshot<E> extends AbstractList<E> implements RandomAccess {
+		private final Node root;
+		private final int size;
+
+		Snapshot(Node root, int size) {
+			this.root = root;
+			this.size = size;
+		}
+
+		@Override
+		public void forEach(Consumer<? super E> action) {
+			PersistentVector.forEach(root, action);
+		}
+
+		@Override
+		public E get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException(index);
+			}
+			return PersistentVector.get(root, index);
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			return new LeafIterator<>(root, size);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public Object[] toArray() {
+			return PersistentVector.toArray(root, size);
+		}
+	}
+
+	/**
+	 * Walks the leaves instead of descending from the root for every element.
+	 */
+	private static final class LeafIterator<E> implements Iterator<E> {
+		private final Branch[] path;
+		private final int[] positions;
+		private Leaf leaf;
+		private int index;
+		private int remaining;
+
+		LeafIterator(Node root, int size) {
+			int depth = 0;
+			for (var node = root; node instanceof Branch branch; node = branch.children[0]) {
+				depth++;
+			}
+			path = new Branch[depth];
+			positions = new int[depth];
+			remaining = size;
+			if (size != 0) {
+				descend(root, 0);
+			}
+		}
+
+		private void descend(Node node, int level) {
+			while (node instanceof Branch branch) {
+				path[level] = branch;
+				positions[level] = 0;
+				node = branch.children[0];
+				level++;
+			}
+			leaf = (Leaf) node;
+			index = 0;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return remaining != 0;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public E next() {
+			if (remaining == 0) {
+				throw new NoSuchElementException();
+			}
+			while (index == leaf.size) {
+				int level = path.length - 1;
+				while (positions[level] == path[level].count - 1) {
+					level--;
+				}
+				positions[level]++;
+				var branch = path[level];
+				descend(branch.children[positions[level]], level + 1);
+			}
+			remaining--;
+			return (E) leaf.elements[index++];
+		}
+	}
+
+	static final int LEAF_MAX = 64;
+	static final int BRANCH_MAX = 32;
+
+	@SuppressWarnings("unchecked")
+	private static <E> void forEach(Node node, Consumer<? super E> action) {
+		if (node instanceof Branch branch) {
+			for (int i = 0; i < branch.count; i++) {
+				forEach(branch.children[i], action);
+			}
+		} else {
+			var leaf = (Leaf) node;
+			for (int i = 0; i < leaf.size; i++) {
+				action.accept((E) leaf.elements[i]);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> E get(Node node, int index) {
+		while (node instanceof Branch branch) {
+			int child = branch.child(index);
+			index -= branch.start(child);
+			node = branch.children[child];
+		}
+		return (E) ((Leaf) node).elements[index];
+	}
+
+	private static void removeChild(Branch parent, int child) {
+		System.arraycopy(parent.children, child + 1, parent.children, child, parent.count - child - 1);
+		parent.children[--parent.count] = null;
+	}
+
+	private static Object[] toArray(Node node, int size) {
+		var array = new Object[size];
+		forEach(node, new Consumer<Object>() {
+			private int i;
+
+			@Override
+			public void accept(Object e) {
+				array[i++] = e;
+			}
+		});
+		return array;
+	}
+
+	private static boolean underfull(Node node) {
+		return node instanceof Branch branch ? branch.count < BRANCH_MAX / 2 : node.size() < LEAF_MAX / 2;
+	}
+
+	private Node root;
+	private int size;
+	private long generation;
+	/**
+	 * the snapshot of the current contents, {@code null} after a change.
+	 */
+	private Snapshot<E> snapshot;
+	/**
+	 * the node split off by the last {@link #insert(Node, int, Object)}.
+	 */
+	private Node split;
+	/**
+	 * the element replaced or removed by the last change.
+	 */
+	private Object previous;
+
+	PersistentVector() {
+		root = new Leaf(generation, new Object[LEAF_MAX], 0);
+	}
+
+	@Override
+	public void add(int index, E element) {
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		changed();
+		var node = insert(root, index, element);
+		if (split != null) {
+			var children = new Node[BRANCH_MAX + 1];
+			children[0] = node;
+			children[1] = split;
+			var branch = new Branch(generation, children, new int[BRANCH_MAX + 1], 2);
+			branch.recount(0);
+			node = branch;
+			split = null;
+		}
+		root = node;
+		size++;
+		modCount++;
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends E> c) {
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		if (size != 0) {
+			return super.addAll(index, c);
+		}
+		var elements = c.toArray();
+		if (elements.length == 0) {
+			return false;
+		}
+		changed();
+		root = build(elements);
+		size = elements.length;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Builds the tree bottom-up, spreading the elements and children evenly so
+	 * that no node starts out underfull.
+	 */
+	private Node build(Object[] elements) {
+		int leaves = (elements.length + LEAF_MAX - 1) / LEAF_MAX;
+		var level = new Node[leaves];
+		for (int i = 0; i < leaves; i++) {
+			var chunk = new Object[LEAF_MAX];
+			int from = (int) ((long) elements.length * i / leaves);
+			int length = (int) ((long) elements.length * (i + 1) / leaves) - from;
+			System.arraycopy(elements, from, chunk, 0, length);
+			level[i] = new Leaf(generation, chunk, length);
+		}
+		while (level.length > 1) {
+			var parents = new Node[(level.length + BRANCH_MAX - 1) / BRANCH_MAX];
+			for (int i = 0; i < parents.length; i++) {
+				int from = level.length * i / parents.length;
+				int count = level.length * (i + 1) / parents.length - from;
+				var children = new Node[BRANCH_MAX + 1];
+				System.arraycopy(level, from, children, 0, count);
+				var branch = new Branch(generation, children, new int[BRANCH_MAX + 1], count);
+				branch.recount(0);
+				parents[i] = branch;
+			}
+			level = parents;
+		}
+		return level[0];
+	}
+
+	private void changed() {
+		snapshot = null;
+	}
+
+	@Override
+	public void clear() {
+		changed();
+		root = new Leaf(generation, new Object[LEAF_MAX], 0);
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * @return {@code node} itself if it belongs to the current generation,
+	 *         otherwise a copy that does
+	 */
+	private Branch editable(Branch node) {
+		if (node.generation == generation) {
+			return node;
+		}
+		return new Branch(generation, node.children.clone(), node.ends.clone(), node.count);
+	}
+
+	private Leaf editable(Leaf node) {
+		if (node.generation == generation) {
+			return node;
+		}
+		return new Leaf(generation, node.elements.clone(), node.size);
+	}
+
+	private Node editable(Node node) {
+		return node instanceof Branch branch ? editable(branch) : editable((Leaf) node);
+	}
+
+	@Override
+	public void forEach(Consumer<? super E> action) {
+		forEach(root, action);
+	}
+
+	@Override
+	public E get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		return get(root, index);
+	}
+
+	private Node insert(Node node, int index, Object element) {
+		if (node instanceof Branch branch) {
+			var edit = editable(branch);
+			int child = edit.child(index);
+			edit.children[child] = insert(edit.children[child], index - edit.start(child), element);
+			var right = split;
+			split = null;
+			if (right != null) {
+				System.arraycopy(edit.children, child + 1, edit.children, child + 2, edit.count - child - 1);
+				edit.children[child + 1] = right;
+				edit.count++;
+			}
+			edit.recount(child);
+			if (edit.count > BRANCH_MAX) {
+				int half = edit.count / 2;
+				var children = new Node[BRANCH_MAX + 1];
+				System.arraycopy(edit.children, half, children, 0, edit.count - half);
+				Arrays.fill(edit.children, half, edit.count, null);
+				var sibling = new Branch(generation, children, new int[BRANCH_MAX + 1], edit.count - half);
+				sibling.recount(0);
+				edit.count = half;
+				split = sibling;
+			}
+			return edit;
+		}
+		var edit = editable((Leaf) node);
+		if (edit.size == LEAF_MAX) {
+			int half = LEAF_MAX / 2;
+			var elements = new Object[LEAF_MAX];
+			System.arraycopy(edit.elements, half, elements, 0, LEAF_MAX - half);
+			Arrays.fill(edit.elements, half, LEAF_MAX, null);
+			var sibling = new Leaf(generation, elements, LEAF_MAX - half);
+			edit.size = half;
+			split = sibling;
+			if (index > half) {
+				insert(sibling, index - half, element);
+				split = sibling;
+				return edit;
+			}
+		}
+		System.arraycopy(edit.elements, index, edit.elements, index + 1, edit.size - index);
+		edit.elements[index] = element;
+		edit.size++;
+		return edit;
+	}
+
+	/**
+	 * Joins or evens out the children {@code left} and {@code left + 1} of
+	 * {@code parent}.
+	 */
+	private void rebalance(Branch parent, int left) {
+		var a = editable(parent.children[left]);
+		var b = editable(parent.children[left + 1]);
+		parent.children[left] = a;
+		parent.children[left + 1] = b;
+		if (a instanceof Leaf x) {
+			var y = (Leaf) b;
+			int total = x.size + y.size;
+			if (total <= LEAF_MAX) {
+				System.arraycopy(y.elements, 0, x.elements, x.size, y.size);
+				x.size = total;
+				removeChild(parent, left + 1);
+			} else {
+				int target = total / 2;
+				if (x.size < target) {
+					int moved = target - x.size;
+					System.arraycopy(y.elements, 0, x.elements, x.size, moved);
+					System.arraycopy(y.elements, moved, y.elements, 0, y.size - moved);
+					Arrays.fill(y.elements, y.size - moved, y.size, null);
+					x.size += moved;
+					y.size -= moved;
+				} else {
+					int moved = x.size - target;
+					System.arraycopy(y.elements, 0, y.elements, moved, y.size);
+					System.arraycopy(x.elements, target, y.elements, 0, moved);
+					Arrays.fill(x.elements, target, x.size, null);
+					x.size -= moved;
+					y.size += moved;
+				}
+			}
+		} else {
+			var x = (Branch) a;
+			var y = (Branch) b;
+			int total = x.count + y.count;
+			if (total <= BRANCH_MAX) {
+				System.arraycopy(y.children, 0, x.children, x.count, y.count);
+				int from = x.count;
+				x.count = total;
+				x.recount(from);
+				removeChild(parent, left + 1);
+			} else {
+				int target = total / 2;
+				if (x.count < target) {
+					int moved = target - x.count;
+					System.arraycopy(y.children, 0, x.children, x.count, moved);
+					System.arraycopy(y.children, moved, y.children, 0, y.count - moved);
+					Arrays.fill(y.children, y.count - moved, y.count, null);
+					int from = x.count;
+					x.count += moved;
+					y.count -= moved;
+					x.recount(from);
+				} else {
+					int moved = x.count - target;
+					System.arraycopy(y.children, 0, y.children, moved, y.count);
+					System.arraycopy(x.children, target, y.children, 0, moved);
+					Arrays.fill(x.children, target, x.count, null);
+					x.count -= moved;
+					y.count += moved;
+				}
+				y.recount(0);
+			}
+		}
+		parent.recount(left);
+	}
+
+	@Override
+	public E remove(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		changed();
+		var node = remove(root, index);
+		while (node instanceof Branch branch && branch.count == 1) {
+			node = branch.children[0];
+		}
+		root = node;
+		size--;
+		modCount++;
+		@SuppressWarnings("unchecked")
+		var oldValue = (E) previous;
+		previous = null;
+		return oldValue;
+	}
+
+	private Node remove(Node node, int index) {
+		if (node instanceof Branch branch) {
+			var edit = editable(branch);
+			int child = edit.child(index);
+			var result = remove(edit.children[child], index - edit.start(child));
+			edit.children[child] = result;
+			if (underfull(result) && edit.count > 1) {
+				rebalance(edit, child == edit.count - 1 ? child - 1 : child);
+			} else {
+				edit.recount(child);
+			}
+			return edit;
+		}
+		var edit = editable((Leaf) node);
+		previous = edit.elements[index];
+		System.arraycopy(edit.elements, index + 1, edit.elements, index, edit.size - index - 1);
+		edit.elements[--edit.size] = null;
+		return edit;
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		if (fromIndex == 0 && toIndex == size) {
+			clear();
+			return;
+		}
+		for (int i = fromIndex; i < toIndex; i++) {
+			remove(fromIndex);
+		}
+	}
+
+	@Override
+	public E set(int index, E element) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		changed();
+		root = set(root, index, element);
+		@SuppressWarnings("unchecked")
+		var oldValue = (E) previous;
+		previous = null;
+		return oldValue;
+	}
+
+	private Node set(Node node, int index, Object element) {
+		var edit = editable(node);
+		if (edit instanceof Branch branch) {
+			int child = branch.child(index);
+			branch.children[child] = set(branch.children[child], index - branch.start(child), element);
+		} else {
+			var leaf = (Leaf) edit;
+			previous = leaf.elements[index];
+			leaf.elements[index] = element;
+		}
+		return edit;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return an immutable copy of the current contents, in {@code O(1)}
+	 */
+	Snapshot<E> snapshot() {
+		if (snapshot == null) {
+			snapshot = new Snapshot<>(root, size);
+			generation++;
+		}
+		return snapshot;
+	}
+
+	@Override
+	public Object[] toArray() {
+		return toArray(root, size);
+	}
+}
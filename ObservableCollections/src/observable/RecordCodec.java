@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * Encodes elements of an off-heap list as records of {@link #byteSize()}
+ * bytes. Both methods must only use the absolute {@code get} and {@code put}
+ * methods of the buffer, at {@code offset} to {@code offset + byteSize() - 1},
+ * and must not change its position, limit or byte order.
+ *
+ * <pre>
+ * record Trade(long id, double price, int quantity) {
+ * }
+ *
+ * RecordCodec&lt;Trade&gt; codec = new RecordCodec&lt;&gt;() {
+ * 	public int byteSize() {
+ * 		return 20;
+ * 	}
+ *
+ * 	public Trade decode(ByteBuffer buffer, int offset) {
+ * 		return new Trade(buffer.getLong(offset), buffer.getDouble(offset + 8), buffer.getInt(offset + 16));
+ * 	}
+ *
+ * 	public void encode(ByteBuffer buffer, int offset, Trade trade) {
+ * 		buffer.putLong(offset, trade.id()).putDouble(offset + 8, trade.price()).putInt(offset + 16, trade.quantity());
+ * 	}
+ * };
+ * </pre>
+ *
+ * @param <E> the element type
+ *
+ * @see ObservableCollections#observableOffHeapList(RecordCodec)
+ */
+public interface RecordCodec<E> {
+	/**
+	 * @return the size of a record in bytes, greater than zero
+	 */
+	int byteSize();
+
+	/**
+	 * Creates the element stored at {@code offset}.
+	 *
+	 * @param buffer the buffer holding the record
+	 * @param offset the index of the first byte of the record
+	 * @return the element
+	 */
+	E decode(ByteBuffer buffer, int offset);
+
+	/**
+	 * Stores {@code element} at {@code offset}.
+	 *
+	 * @param buffer  the buffer to hold the record
+	 * @param offset  the index of the first byte of the record
+	 * @param element the element, never {@code null}
+	 */
+	void encode(ByteBuffer buffer, int offset, E element);
+}
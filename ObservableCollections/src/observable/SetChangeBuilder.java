@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+import java.util.LinkedHashMap;
+
+/**
+ * <p>
+ * Coalesces a sequence of set notifications into the net change of every
+ * element involved, so that an element added and removed again is not
+ * reported at all.
+ *
+ * @see MapChangeBuilder
+ */
+final class SetChangeBuilder {
+	private static final class Delta {
+		final boolean before;
+		boolean present;
+
+		Delta(boolean before) {
+			this.before = before;
+		}
+	}
+
+	private final LinkedHashMap<Object, Delta> deltas = new LinkedHashMap<>();
+
+	private Delta delta(Object element, boolean before) {
+		var delta = deltas.get(element);
+		if (delta == null) {
+			delta = new Delta(before);
+			deltas.put(element, delta);
+		}
+		return delta;
+	}
+
+	void elementAdded(Object element) {
+		delta(element, false).present = true;
+	}
+
+	void elementRemoved(Object element) {
+		delta(element, true).present = false;
+	}
+
+	boolean isEmpty() {
+		return deltas.isEmpty();
+	}
+
+	/**
+	 * @return {@code false} if the changes cancelled each other out
+	 */
+	<E> boolean fire(ObservableSet<? extends E> set, ObservableSetListener<E> listener) {
+		boolean fired = false;
+		for (var entry : deltas.entrySet()) {
+			var delta = entry.getValue();
+			if (delta.before != delta.present) {
+				if (delta.present) {
+					listener.setElementAdded(set, entry.getKey());
+				} else {
+					listener.setElementRemoved(set, entry.getKey());
+				}
+				fired = true;
+			}
+		}
+		return fired;
+	}
+}
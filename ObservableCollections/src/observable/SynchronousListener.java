@@ -0,0 +1,24 @@
+/*
+ * Copyright (C) 2023- tasogare. All rights reserved.
+ */
+package observable;
+
+/**
+ * <p>
+ * A listener of this package that keeps state derived from the list it
+ * listens to, such as the bounds of a {@link ObservableSubList} or the part
+ * sizes of a {@link ConcatenatedObservableList}, and so has to be notified
+ * before the change of the list returns. A list created with an
+ * {@link AsyncDispatch} registers it directly instead of through an
+ * {@link AsyncListener}.
+ */
+interface SynchronousListener {
+	/**
+	 * @return whether {@code listener} is a {@code SynchronousListener}, or
+	 *         refers to one through the adapters of this package
+	 */
+	static boolean isSynchronous(Object listener) {
+		return listener instanceof SynchronousListener
+				|| ListenerRegistry.referent(listener) instanceof SynchronousListener;
+	}
+}
@@ -6,57 +6,94 @@ package observable;
 import java.util.AbstractList;
 import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- *
+ * <p>
+ * A read-only view that does not dispatch notifications itself. Its listeners
+ * are registered on the source, each behind a {@link Presenter} that reports
+ * this view as the changed list, so a notification costs one more call per
+ * listener and nothing per view.
  */
 final class UnmodifiableObservableListImpl<E> extends AbstractList<E> implements ObservableList<E> {
+	/**
+	 * <p>
+	 * A listener of this view, registered on the source as is, that passes the
+	 * notifications of the source on as notifications of this view. Presenters
+	 * of the same listener for the same view are equal, so that a new one
+	 * finds the registered one on the source and the view keeps no record of
+	 * them.
+	 */
 	@SuppressWarnings({ "unchecked", "rawtypes" })
-	private class Delegator implements ObservableListListener<E> {
+	final class Presenter implements ObservableListListener<E> {
+		final ObservableListListener target;
+
+		Presenter(ObservableListListener<? extends E> target) {
+			this.target = target;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof UnmodifiableObservableListImpl<?>.Presenter other && other.view() == view()
+					&& target.equals(other.target);
+		}
+
+		@Override
+		public int hashCode() {
+			return target.hashCode();
+		}
+
+		private UnmodifiableObservableListImpl<E> view() {
+			return UnmodifiableObservableListImpl.this;
+		}
+
 		@Override
 		public void listElementPropertyChanged(ObservableList<? super E> list, int index) {
-			for (var l : UnmodifiableObservableListImpl.this.listeners) {
-				l.listElementPropertyChanged((ObservableList) UnmodifiableObservableListImpl.this, index);
-			}
+			target.listElementPropertyChanged(UnmodifiableObservableListImpl.this, index);
 		}
 
 		@Override
 		public void listElementReplaced(ObservableList<? super E> list, int index, Object oldElement) {
-			for (var l : UnmodifiableObservableListImpl.this.listeners) {
-				l.listElementReplaced((ObservableList) UnmodifiableObservableListImpl.this, index, oldElement);
-			}
+			target.listElementReplaced(UnmodifiableObservableListImpl.this, index, oldElement);
 		}
 
 		@Override
 		public void listElementsAdded(ObservableList<? super E> list, int index, int length) {
-			for (var l : UnmodifiableObservableListImpl.this.listeners) {
-				l.listElementsAdded((ObservableList) UnmodifiableObservableListImpl.this, index, length);
-			}
+			target.listElementsAdded(UnmodifiableObservableListImpl.this, index, length);
 		}
 
 		@Override
 		public void listElementsRemoved(ObservableList<? super E> list, int index, List<? super E> oldElements) {
-			for (var l : UnmodifiableObservableListImpl.this.listeners) {
-				l.listElementsRemoved((ObservableList) UnmodifiableObservableListImpl.this, index, (List) oldElements);
-			}
+			target.listElementsRemoved(UnmodifiableObservableListImpl.this, index, oldElements);
+		}
+
+		@Override
+		public void listElementsPermuted(ObservableList<? super E> list, int from, int[] permutation) {
+			target.listElementsPermuted(UnmodifiableObservableListImpl.this, from, permutation);
+		}
+
+		@Override
+		public void listElementsChanged(ObservableList<? super E> list, List<ListChange> changes) {
+			target.listElementsChanged(UnmodifiableObservableListImpl.this, changes);
 		}
 	}
 
+	/**
+	 * <p>
+	 * Returns an unmodifiable view of {@code list}, which is {@code list} itself
+	 * if it already is one.
+	 */
+	static <E> ObservableList<E> of(ObservableList<E> list) {
+		return list instanceof UnmodifiableObservableListImpl<E> ? list : new UnmodifiableObservableListImpl<>(list);
+	}
+
 	private final ObservableList<E> inner;
-	private CopyOnWriteArrayList<WeakListener.List<? super E>> listeners;
-	private WeakListener.List<? super E> listener;
 
 	/**
 	 * 
 	 * @param list inner list
 	 */
-	@SuppressWarnings("unchecked")
-	UnmodifiableObservableListImpl(ObservableList<E> list) {
+	private UnmodifiableObservableListImpl(ObservableList<E> list) {
 		this.inner = list;
-		listeners = new CopyOnWriteArrayList<>();
-		listener = new WeakListener.List<>(new Delegator());
-		this.inner.addObservableListListener((ObservableListListener<? extends E>) listener);
 	}
 
 	/**
@@ -94,10 +131,9 @@ final class UnmodifiableObservableListImpl<E> extends AbstractList<E> implements
 	/**
 	 * {@inheritDoc}
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Override
 	public void addObservableListListener(ObservableListListener<? extends E> listener) {
-		listeners.add(new WeakListener.List(listener));
+		inner.addObservableListListener(new Presenter(listener));
 	}
 
 	/**
@@ -108,20 +144,9 @@ final class UnmodifiableObservableListImpl<E> extends AbstractList<E> implements
 		return inner.get(index);
 	}
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Override
 	public void removeObservableListListener(ObservableListListener<? extends E> listener) {
-		if (listener instanceof WeakListener<?> weak) {
-			listeners.remove(weak);
-		} else {
-			// XXX: これでいいか？
-			for (var i = 0; i < listeners.size(); i++) {
-				var target = listeners.get(i);
-				if (target.refersTo((ObservableListListener) listener)) {
-					listeners.remove(i);
-				}
-			}
-		}
+		inner.removeObservableListListener(new Presenter(listener));
 	}
 
 	/**
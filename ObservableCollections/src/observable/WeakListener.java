@@ -4,10 +4,225 @@ import static java.util.Objects.requireNonNull;
 
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
+import java.util.Collection;
 
 public interface WeakListener<T> {
+	public static final class IntList implements WeakListener<ObservableIntListListener>, ObservableIntListListener {
+		final WeakReference<ObservableIntListListener> ref;
+
+		public IntList(ObservableIntListListener listener) {
+			ref = new WeakReference<>(requireNonNull(listener));
+		}
+
+		public IntList(ObservableIntListListener listener, ReferenceQueue<ObservableIntListListener> queue) {
+			ref = new WeakReference<>(requireNonNull(listener), queue);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void clear() {
+			ref.clear();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean enqueue() {
+			return ref.enqueue();
+		}
+
+		@Override
+		public void listElementReplaced(ObservableIntList list, int index, int oldValue) {
+			var listener = ref.get();
+			if (listener != null) {
+				listener.listElementReplaced(list, index, oldValue);
+			} else {
+				list.removeObservableIntListListener(this);
+			}
+		}
+
+		@Override
+		public void listElementsAdded(ObservableIntList list, int index, int length) {
+			var listener = ref.get();
+			if (listener != null) {
+				listener.listElementsAdded(list, index, length);
+			} else {
+				list.removeObservableIntListListener(this);
+			}
+		}
+
+		@Override
+		public void listElementsRemoved(ObservableIntList list, int index, int[] oldValues) {
+			var listener = ref.get();
+			if (listener != null) {
+				listener.listElementsRemoved(list, index, oldValues);
+			} else {
+				list.removeObservableIntListListener(this);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean refersTo(ObservableIntListListener obj) {
+			return ref.refersTo(obj);
+		}
+
+		@Override
+		public boolean wasGarbageCollected() {
+			return ref.get() == null;
+		}
+	}
+
+	public static final class LongList implements WeakListener<ObservableLongListListener>, ObservableLongListListener {
+		final WeakReference<ObservableLongListListener> ref;
+
+		public LongList(ObservableLongListListener listener) {
+			ref = new WeakReference<>(requireNonNull(listener));
+		}
+
+		public LongList(ObservableLongListListener listener, ReferenceQueue<ObservableLongListListener> queue) {
+			ref = new WeakReference<>(requireNonNull(listener), queue);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void clear() {
+			ref.clear();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean enqueue() {
+			return ref.enqueue();
+		}
+
+		@Override
+		public void listElementReplaced(ObservableLongList list, int index, long oldValue) {
+			var listener = ref.get();
+			if (listener != null) {
+				listener.listElementReplaced(list, index, oldValue);
+			} else {
+				list.removeObservableLongListListener(this);
+			}
+		}
+
+		@Override
+		public void listElementsAdded(ObservableLongList list, int index, int length) {
+			var listener = ref.get();
+			if (listener != null) {
+				listener.listElementsAdded(list, index, length);
+			} else {
+				list.removeObservableLongListListener(this);
+			}
+		}
+
+		@Override
+		public void listElementsRemoved(ObservableLongList list, int index, long[] oldValues) {
+			var listener = ref.get();
+			if (listener != null) {
+				listener.listElementsRemoved(list, index, oldValues);
+			} else {
+				list.removeObservableLongListListener(this);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean refersTo(ObservableLongListListener obj) {
+			return ref.refersTo(obj);
+		}
+
+		@Override
+		public boolean wasGarbageCollected() {
+			return ref.get() == null;
+		}
+	}
+
+	public static final class DoubleList
+			implements WeakListener<ObservableDoubleListListener>, ObservableDoubleListListener {
+		final WeakReference<ObservableDoubleListListener> ref;
+
+		public DoubleList(ObservableDoubleListListener listener) {
+			ref = new WeakReference<>(requireNonNull(listener));
+		}
+
+		public DoubleList(ObservableDoubleListListener listener, ReferenceQueue<ObservableDoubleListListener> queue) {
+			ref = new WeakReference<>(requireNonNull(listener), queue);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void clear() {
+			ref.clear();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean enqueue() {
+			return ref.enqueue();
+		}
+
+		@Override
+		public void listElementReplaced(ObservableDoubleList list, int index, double oldValue) {
+			var listener = ref.get();
+			if (listener != null) {
+				listener.listElementReplaced(list, index, oldValue);
+			} else {
+				list.removeObservableDoubleListListener(this);
+			}
+		}
+
+		@Override
+		public void listElementsAdded(ObservableDoubleList list, int index, int length) {
+			var listener = ref.get();
+			if (listener != null) {
+				listener.listElementsAdded(list, index, length);
+			} else {
+				list.removeObservableDoubleListListener(this);
+			}
+		}
+
+		@Override
+		public void listElementsRemoved(ObservableDoubleList list, int index, double[] oldValues) {
+			var listener = ref.get();
+			if (listener != null) {
+				listener.listElementsRemoved(list, index, oldValues);
+			} else {
+				list.removeObservableDoubleListListener(this);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean refersTo(ObservableDoubleListListener obj) {
+			return ref.refersTo(obj);
+		}
+
+		@Override
+		public boolean wasGarbageCollected() {
+			return ref.get() == null;
+		}
+	}
+
 	public static final class List<E> implements WeakListener<ObservableListListener<E>>, ObservableListListener<E> {
-		private final WeakReference<ObservableListListener<E>> ref;
+		final WeakReference<ObservableListListener<E>> ref;
 
 		public List(ObservableListListener<E> listener) {
 			ref = new WeakReference<>(requireNonNull(listener));
@@ -74,6 +289,26 @@ public interface WeakListener<T> {
 			}
 		}
 
+		@Override
+		public void listElementsPermuted(ObservableList<? super E> list, int from, int[] permutation) {
+			var listener = ref.get();
+			if (listener != null) {
+				listener.listElementsPermuted(list, from, permutation);
+			} else {
+				list.removeObservableListListener(this);
+			}
+		}
+
+		@Override
+		public void listElementsChanged(ObservableList<? super E> list, java.util.List<ListChange> changes) {
+			var listener = ref.get();
+			if (listener != null) {
+				listener.listElementsChanged(list, changes);
+			} else {
+				list.removeObservableListListener(this);
+			}
+		}
+
 		/**
 		 * {@inheritDoc}
 		 */
@@ -90,7 +325,7 @@ public interface WeakListener<T> {
 
 	public static final class Map<K, V>
 			implements WeakListener<ObservableMapListener<K, V>>, ObservableMapListener<K, V> {
-		private final WeakReference<ObservableMapListener<K, V>> ref;
+		final WeakReference<ObservableMapListener<K, V>> ref;
 
 		public Map(ObservableMapListener<K, V> listener) {
 			ref = new WeakReference<>(requireNonNull(listener));
@@ -116,6 +351,16 @@ public interface WeakListener<T> {
 			return ref.enqueue();
 		}
 
+		@Override
+		public void mapCleared(ObservableMap<? extends K, ? extends V> map, java.util.Map<?, ?> oldEntries) {
+			var listener = ref.get();
+			if (listener != null) {
+				listener.mapCleared(map, oldEntries);
+			} else {
+				map.removeObservableMapListener(this);
+			}
+		}
+
 		@Override
 		public void mapKeyAdded(ObservableMap<? extends K, ? extends V> map, Object key) {
 			var listener = ref.get();
@@ -136,6 +381,26 @@ public interface WeakListener<T> {
 			}
 		}
 
+		@Override
+		public void mapKeysAdded(ObservableMap<? extends K, ? extends V> map, Collection<?> keys) {
+			var listener = ref.get();
+			if (listener != null) {
+				listener.mapKeysAdded(map, keys);
+			} else {
+				map.removeObservableMapListener(this);
+			}
+		}
+
+		@Override
+		public void mapKeysRemoved(ObservableMap<? extends K, ? extends V> map, java.util.Map<?, ?> entries) {
+			var listener = ref.get();
+			if (listener != null) {
+				listener.mapKeysRemoved(map, entries);
+			} else {
+				map.removeObservableMapListener(this);
+			}
+		}
+
 		@Override
 		public void mapKeyValueChanged(ObservableMap<? extends K, ? extends V> map, Object key, Object lastValue) {
 			var listener = ref.get();
@@ -146,6 +411,16 @@ public interface WeakListener<T> {
 			}
 		}
 
+		@Override
+		public void mapValuesChanged(ObservableMap<? extends K, ? extends V> map, java.util.Map<?, ?> lastValues) {
+			var listener = ref.get();
+			if (listener != null) {
+				listener.mapValuesChanged(map, lastValues);
+			} else {
+				map.removeObservableMapListener(this);
+			}
+		}
+
 		/**
 		 * {@inheritDoc}
 		 */
@@ -162,7 +437,7 @@ public interface WeakListener<T> {
 	}
 
 	public static final class Set<E> implements WeakListener<ObservableSetListener<E>>, ObservableSetListener<E> {
-		private final WeakReference<ObservableSetListener<E>> ref;
+		final WeakReference<ObservableSetListener<E>> ref;
 
 		public Set(ObservableSetListener<E> listener) {
 			ref = new WeakReference<>(requireNonNull(listener));